@@ -0,0 +1,75 @@
+package com.itextpdf.pdfchain.benchmarks;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.Collection;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of BQLExecutor.execute over a chain of synthetic records, for every way the executor can evaluate a query.
+ * The interpreted and compiled engines only differ in how filters are evaluated,
+ * comparing them shows what BQLPredicateCompiler gains over walking the operator tree.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class BQLExecutorBenchmark {
+
+    @Param({"10000", "1000000"})
+    public int rows;
+
+    @Param({"range", "andOr", "sort", "select", "aggregate"})
+    public String query;
+
+    @Param({"interpreted", "compiled", "columnar", "parallel"})
+    public String engine;
+
+    private BQLExecutor executor;
+    private AbstractBQLOperator op;
+
+    @Setup(Level.Trial)
+    public void setup() {
+        executor = new BQLExecutor(new SyntheticBlockChain(rows));
+        switch (engine) {
+            case "interpreted":
+                break;
+            case "compiled":
+                executor.setCompileFilters(true);
+                break;
+            case "columnar":
+                executor.setColumnarScans(true);
+                break;
+            case "parallel":
+                executor.setParallelism(Runtime.getRuntime().availableProcessors());
+                break;
+            default:
+                throw new IllegalArgumentException("Unknown engine " + engine);
+        }
+        op = BQLCompiler.compile(Queries.get(query));
+        // build the columnar batch and the generated predicates outside of the measurement
+        executor.execute(op);
+    }
+
+    @Benchmark
+    public Collection<Record> execute() {
+        return executor.execute(op);
+    }
+}
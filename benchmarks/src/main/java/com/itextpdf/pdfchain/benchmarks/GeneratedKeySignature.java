@@ -0,0 +1,42 @@
+package com.itextpdf.pdfchain.benchmarks;
+
+import com.itextpdf.pdfchain.sign.AbstractExternalSignature;
+
+import java.security.Key;
+import java.security.KeyPair;
+import java.security.KeyPairGenerator;
+import java.security.NoSuchAlgorithmException;
+
+/**
+ * AbstractExternalSignature with a freshly generated RSA key pair, the same algorithms as DefaultExternalSignature without a keystore
+ */
+public class GeneratedKeySignature extends AbstractExternalSignature {
+
+    private final KeyPair keyPair;
+
+    public GeneratedKeySignature() throws NoSuchAlgorithmException {
+        KeyPairGenerator generator = KeyPairGenerator.getInstance("RSA");
+        generator.initialize(2048);
+        this.keyPair = generator.generateKeyPair();
+    }
+
+    @Override
+    public String getHashAlgorithm() {
+        return "SHA-256";
+    }
+
+    @Override
+    public String getEncryptionAlgorithm() {
+        return "RSA";
+    }
+
+    @Override
+    public Key getPrivateKey() {
+        return keyPair.getPrivate();
+    }
+
+    @Override
+    public Key getPublicKey() {
+        return keyPair.getPublic();
+    }
+}
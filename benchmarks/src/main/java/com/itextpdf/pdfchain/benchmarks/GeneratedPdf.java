@@ -0,0 +1,38 @@
+package com.itextpdf.pdfchain.benchmarks;
+
+import com.itextpdf.kernel.pdf.CompressionConstants;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfStream;
+import com.itextpdf.kernel.pdf.PdfWriter;
+
+import java.io.ByteArrayOutputStream;
+import java.util.Random;
+
+/**
+ * Generates PDF documents of a given size
+ */
+public final class GeneratedPdf {
+
+    private GeneratedPdf() {
+    }
+
+    /**
+     * Generate a single page document, padded with an uncompressed stream of random bytes
+     *
+     * @param size the approximate size of the document in bytes
+     * @return the document
+     */
+    public static byte[] generate(int size) {
+        ByteArrayOutputStream out = new ByteArrayOutputStream(size + 4096);
+        PdfDocument pdfDocument = new PdfDocument(new PdfWriter(out));
+        byte[] filler = new byte[Math.max(0, size - 1024)];
+        new Random(size).nextBytes(filler);
+        PdfStream stream = new PdfStream(filler);
+        stream.setCompressionLevel(CompressionConstants.NO_COMPRESSION);
+        stream.makeIndirect(pdfDocument);
+        pdfDocument.addNewPage().getPdfObject().put(new PdfName("Filler"), stream);
+        pdfDocument.close();
+        return out.toByteArray();
+    }
+}
@@ -0,0 +1,35 @@
+package com.itextpdf.pdfchain.benchmarks;
+
+import com.itextpdf.pdfchain.blockchain.IBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * IBlockChain that keeps the last record put under every key, so that benchmarks of PdfChain do not measure a node
+ */
+public class InProcessBlockChain implements IBlockChain {
+
+    private final ConcurrentMap<String, Record> records = new ConcurrentHashMap<>();
+
+    @Override
+    public boolean put(String key, Record data) {
+        records.put(key, data);
+        return true;
+    }
+
+    @Override
+    public List<Record> get(String key) {
+        Record r = records.get(key);
+        return r == null ? Collections.<Record>emptyList() : Collections.singletonList(r);
+    }
+
+    @Override
+    public List<Record> all() {
+        return new ArrayList<>(records.values());
+    }
+}
@@ -0,0 +1,89 @@
+package com.itextpdf.pdfchain.benchmarks;
+
+import com.itextpdf.kernel.pdf.PdfArray;
+import com.itextpdf.kernel.pdf.PdfDocument;
+import com.itextpdf.kernel.pdf.PdfName;
+import com.itextpdf.kernel.pdf.PdfReader;
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.pdfchain.PdfChain;
+import com.itextpdf.pdfchain.sign.AbstractExternalSignature;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.security.GeneralSecurityException;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of PdfChain.put and PdfChain.get, and of the stages of put that depend on the size of the document.
+ * Documents are read from memory and records go to an InProcessBlockChain, so neither disk nor node are measured.
+ * See MultiChainPayloadBenchmark for the stages that only depend on the record.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 2)
+@Measurement(iterations = 5, time = 2)
+@Fork(value = 1, jvmArgsAppend = {"-Xms4g", "-Xmx4g"})
+public class PdfChainBenchmark {
+
+    // 100 KB, 10 MB and 200 MB
+    @Param({"102400", "10485760", "209715200"})
+    public int size;
+
+    private byte[] pdf;
+    private AbstractExternalSignature signature;
+    private PdfChain pdfChain;
+
+    @Setup
+    public void setup() throws GeneralSecurityException, IOException {
+        pdf = GeneratedPdf.generate(size);
+        signature = new GeneratedKeySignature();
+        pdfChain = new PdfChain(new InProcessBlockChain(), signature);
+        // get needs a record to find
+        pdfChain.put(new ByteArrayInputStream(pdf));
+    }
+
+    /**
+     * Open the document and read the /ID of its trailer, as put and get do
+     */
+    @Benchmark
+    public String trailerId() throws IOException {
+        PdfDocument pdfDocument = new PdfDocument(new PdfReader(new ByteArrayInputStream(pdf)));
+        PdfArray idArr = pdfDocument.getTrailer().getAsArray(PdfName.ID);
+        String id1 = idArr.getAsString(0).toString();
+        pdfDocument.close();
+        return id1;
+    }
+
+    @Benchmark
+    public byte[] hash() {
+        return signature.hash(new ByteArrayInputStream(pdf));
+    }
+
+    @Benchmark
+    public byte[] encryptHash() throws GeneralSecurityException, IOException {
+        return signature.encryptHash(new ByteArrayInputStream(pdf));
+    }
+
+    @Benchmark
+    public boolean put() throws GeneralSecurityException, IOException {
+        return pdfChain.put(new ByteArrayInputStream(pdf));
+    }
+
+    @Benchmark
+    public List<Record> get() throws IOException {
+        return pdfChain.get(new ByteArrayInputStream(pdf));
+    }
+}
@@ -0,0 +1,30 @@
+package com.itextpdf.pdfchain.benchmarks;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Representative BQL queries, by name, for use as a benchmark parameter
+ */
+public final class Queries {
+
+    private static final Map<String, String> QUERIES = new HashMap<>();
+
+    static {
+        QUERIES.put("range", "confirmations > 10 AND confirmations <= 50");
+        QUERIES.put("andOr", "(confirmations < 5 OR confirmations > 55) AND (hsh STARTS_WITH 'a' OR id1 ENDS_WITH '7')");
+        QUERIES.put("sort", "(confirmations < 10) SORT [blocktime DESC, id2]");
+        QUERIES.put("select", "SELECT [id1, confirmations] (confirmations < 10)");
+        QUERIES.put("aggregate", "COUNT (confirmations >= 30) GROUP_BY [id1]");
+    }
+
+    private Queries() {
+    }
+
+    public static String get(String name) {
+        String query = QUERIES.get(name);
+        if (query == null)
+            throw new IllegalArgumentException("Unknown query " + name);
+        return query;
+    }
+}
@@ -0,0 +1,74 @@
+package com.itextpdf.pdfchain.benchmarks;
+
+import com.itextpdf.pdfchain.blockchain.IColumnarBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * IBlockChain holding generated records in memory, so that benchmarks measure the query engine and not a node.
+ * The columnar batch is built once, like the records.
+ */
+public class SyntheticBlockChain implements IColumnarBlockChain {
+
+    private final List<Record> records;
+    private RecordBatch batch;
+
+    /**
+     * @param size the number of records, one document per 1000 records, confirmations between 0 and 59
+     */
+    public SyntheticBlockChain(int size) {
+        records = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+            records.add(record(i));
+    }
+
+    /**
+     * Generate the i-th record
+     */
+    public static Record record(int i) {
+        Record r = new Record();
+        r.put("id1", "doc" + (i % 1000));
+        r.put("id2", "rev" + i);
+        r.put("txid", "tx" + i);
+        r.put("confirmations", i % 60);
+        r.put("blocktime", 1499691151 + i / 10);
+        r.put("hsh", Integer.toHexString(i * 31));
+        return r;
+    }
+
+    @Override
+    public boolean put(String key, Record data) {
+        throw new UnsupportedOperationException("SyntheticBlockChain is read-only");
+    }
+
+    @Override
+    public List<Record> get(String key) {
+        List<Record> out = new ArrayList<>();
+        for (Record r : records) {
+            if (key.equals(r.get("id1")))
+                out.add(r);
+        }
+        return out;
+    }
+
+    @Override
+    public List<Record> all() {
+        // a node hands out a new list on every call as well
+        return new ArrayList<>(records);
+    }
+
+    @Override
+    public RecordBatch getBatch(String key) {
+        return RecordBatch.of(get(key));
+    }
+
+    @Override
+    public synchronized RecordBatch allBatch() {
+        if (batch == null)
+            batch = RecordBatch.of(records);
+        return batch;
+    }
+}
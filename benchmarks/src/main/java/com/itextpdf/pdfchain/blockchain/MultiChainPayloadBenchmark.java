@@ -0,0 +1,68 @@
+package com.itextpdf.pdfchain.blockchain;
+
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of building the record PdfChain.put publishes, and of encoding it as a MultiChain payload.
+ * Lives in the package of MultiChain, whose encoding is not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MultiChainPayloadBenchmark {
+
+    // typical values, a SHA-256 hash and an RSA-2048 signature and public key
+    private static final String ID = "z\u00e9L{\u00f4Wd=\u00a0\u00b3\u007f\u0010\u00e2\u00f7G\u00ea";
+    private static final String HASH = repeat('h', 32);
+    private static final String SIGNED_HASH = repeat('s', 344);
+    private static final String PUBLIC_KEY = repeat('k', 294);
+
+    private Record record;
+
+    @Setup
+    public void setup() {
+        record = record();
+    }
+
+    /**
+     * Build the record, the same way PdfChain.put does
+     */
+    @Benchmark
+    public Record record() {
+        Record dataOnChain = new Record();
+        dataOnChain.put("id1", ID);
+        dataOnChain.put("id2", ID);
+        dataOnChain.put("hsh", HASH);
+        dataOnChain.put("key", PUBLIC_KEY);
+        dataOnChain.put("hshalgo", "SHA-256");
+        dataOnChain.put("sgnalgo", "RSA");
+        dataOnChain.put("shsh", SIGNED_HASH);
+        return dataOnChain;
+    }
+
+    @Benchmark
+    public String payload() {
+        return MultiChain.encode(record);
+    }
+
+    private static String repeat(char c, int count) {
+        StringBuilder out = new StringBuilder(count);
+        for (int i = 0; i < count; i++)
+            out.append(c);
+        return out.toString();
+    }
+}
@@ -0,0 +1,45 @@
+package com.itextpdf.pdfchain.bql.executor;
+
+import com.itextpdf.pdfchain.benchmarks.Queries;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Throughput of BQLTokenizer.tokenize.
+ * Lives in the package of the tokenizer, which is not public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class BQLTokenizerBenchmark {
+
+    @Param({"range", "andOr", "sort", "select", "aggregate"})
+    public String query;
+
+    private String expression;
+
+    @Setup
+    public void setup() {
+        expression = Queries.get(query);
+    }
+
+    @Benchmark
+    public List<?> tokenize() {
+        return BQLTokenizer.tokenize(expression);
+    }
+}
@@ -0,0 +1,90 @@
+package com.itextpdf.pdfchain.anchor;
+
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.RandomAccessFile;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * IProofStore that appends proofs to a file, one JSON object per line, and keeps them in memory for lookups.
+ * The proofs in the file are read back when the store is opened. A last line that was not written completely,
+ * because the process stopped during put, is removed from the file; a malformed line before it is an error.
+ * A batch is written and synced to disk before put returns.
+ */
+public class FileProofStore extends InMemoryProofStore {
+
+    private final File file;
+
+    /**
+     * Open a store, reading the proofs that are already in the file
+     *
+     * @param file the file, it is created if it does not exist
+     * @throws IOException if the file could not be read, or holds a malformed proof before its last line
+     */
+    public FileProofStore(File file) throws IOException {
+        this.file = file;
+        if (file.exists())
+            load();
+    }
+
+    public File getFile() {
+        return file;
+    }
+
+    private void load() throws IOException {
+        try (RandomAccessFile in = new RandomAccessFile(file, "rw")) {
+            byte[] content = new byte[(int) in.length()];
+            in.readFully(content);
+            int start = 0;
+            int lineNumber = 0;
+            while (start < content.length) {
+                int end = start;
+                while (end < content.length && content[end] != '\n')
+                    end++;
+                lineNumber++;
+                if (end == content.length) {
+                    // the process stopped while writing the last line
+                    in.setLength(start);
+                    return;
+                }
+                String line = new String(content, start, end - start, StandardCharsets.UTF_8);
+                if (!line.trim().isEmpty()) {
+                    try {
+                        super.put(Collections.singletonList(InclusionProof.fromJSON(new JSONObject(line))));
+                    } catch (JSONException | IllegalArgumentException e) {
+                        if (end + 1 < content.length)
+                            throw new IOException("Malformed proof on line " + lineNumber + " of " + file, e);
+                        // the last line was not written completely
+                        in.setLength(start);
+                        return;
+                    }
+                }
+                start = end + 1;
+            }
+        }
+    }
+
+    @Override
+    public synchronized void put(List<InclusionProof> batch) {
+        try (FileOutputStream out = new FileOutputStream(file, true)) {
+            Writer writer = new OutputStreamWriter(out, StandardCharsets.UTF_8);
+            for (InclusionProof proof : batch) {
+                writer.write(proof.toJSON().toString());
+                writer.write('\n');
+            }
+            writer.flush();
+            out.getFD().sync();
+        } catch (IOException e) {
+            throw new IllegalStateException("Could not write proofs to " + file, e);
+        }
+        super.put(batch);
+    }
+}
@@ -0,0 +1,24 @@
+package com.itextpdf.pdfchain.anchor;
+
+import java.util.List;
+
+/**
+ * Local storage for the inclusion proofs of anchored records
+ */
+public interface IProofStore {
+
+    /**
+     * Store the proofs of a batch that was anchored
+     *
+     * @param proofs the proofs, one per record of the batch
+     */
+    void put(List<InclusionProof> proofs);
+
+    /**
+     * Get the proofs of the records that were put with a given key
+     *
+     * @param key the key being queried
+     * @return a List of proofs, in the order they were stored
+     */
+    List<InclusionProof> get(String key);
+}
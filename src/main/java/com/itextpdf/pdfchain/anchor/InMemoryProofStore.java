@@ -0,0 +1,33 @@
+package com.itextpdf.pdfchain.anchor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * IProofStore that keeps every proof in memory
+ */
+public class InMemoryProofStore implements IProofStore {
+
+    private final Map<String, List<InclusionProof>> proofs = new HashMap<>();
+
+    @Override
+    public synchronized void put(List<InclusionProof> batch) {
+        for (InclusionProof proof : batch) {
+            List<InclusionProof> forKey = proofs.get(proof.getKey());
+            if (forKey == null) {
+                forKey = new ArrayList<>(1);
+                proofs.put(proof.getKey(), forKey);
+            }
+            forKey.add(proof);
+        }
+    }
+
+    @Override
+    public synchronized List<InclusionProof> get(String key) {
+        List<InclusionProof> forKey = proofs.get(key);
+        return forKey == null ? Collections.<InclusionProof>emptyList() : new ArrayList<>(forKey);
+    }
+}
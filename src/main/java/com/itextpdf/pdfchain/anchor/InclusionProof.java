@@ -0,0 +1,119 @@
+package com.itextpdf.pdfchain.anchor;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import org.apache.commons.codec.DecoderException;
+import org.apache.commons.codec.binary.Hex;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Proof that a record was part of a batch whose Merkle root was anchored on the blockchain.
+ * The proof holds the record itself, its position in the batch and the hashes needed to recompute the root.
+ */
+public final class InclusionProof {
+
+    private final String key;
+    private final Record record;
+    private final int index;
+    private final int size;
+    private final List<byte[]> path;
+    private final byte[] root;
+
+    public InclusionProof(String key, Record record, int index, int size, List<byte[]> path, byte[] root) {
+        this.key = key;
+        this.record = record;
+        this.index = index;
+        this.size = size;
+        this.path = Collections.unmodifiableList(new ArrayList<>(path));
+        this.root = root.clone();
+    }
+
+    /**
+     * Get the key the record was put with
+     *
+     * @return the key, the id1 of the document for records put by PdfChain
+     */
+    public String getKey() {
+        return key;
+    }
+
+    public Record getRecord() {
+        return record;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    /**
+     * Get the number of records in the batch
+     *
+     * @return the number of leaves of the Merkle tree
+     */
+    public int getSize() {
+        return size;
+    }
+
+    public List<byte[]> getPath() {
+        return path;
+    }
+
+    public byte[] getRoot() {
+        return root.clone();
+    }
+
+    /**
+     * Get the root as it is published on the blockchain
+     *
+     * @return the hex encoded root, which is also the key of the anchor on the blockchain
+     */
+    public String getRootHex() {
+        return new String(Hex.encodeHex(root));
+    }
+
+    /**
+     * Check whether the record and the path lead to the root of this proof.
+     * This does not check that the root was anchored, use PdfChain.isAnchored for that.
+     *
+     * @return true iff the record is part of the batch with this root
+     */
+    public boolean isValid() {
+        return MerkleTree.verify(MerkleAnchor.leafOf(record), index, size, path, root);
+    }
+
+    JSONObject toJSON() {
+        JSONArray hashes = new JSONArray();
+        for (byte[] hash : path)
+            hashes.put(new String(Hex.encodeHex(hash)));
+        return new JSONObject()
+                .put("key", key)
+                // new JSONObject(record) would drop the fields that are null, which are part of the leaf
+                .put("record", new JSONObject(MerkleAnchor.canonicalJSON(record)))
+                .put("index", index)
+                .put("size", size)
+                .put("path", hashes)
+                .put("root", getRootHex());
+    }
+
+    static InclusionProof fromJSON(JSONObject json) {
+        try {
+            JSONArray hashes = json.getJSONArray("path");
+            List<byte[]> path = new ArrayList<>(hashes.length());
+            for (int i = 0; i < hashes.length(); i++)
+                path.add(Hex.decodeHex(hashes.getString(i).toCharArray()));
+            return new InclusionProof(
+                    json.getString("key"),
+                    new Record(json.getJSONObject("record").toMap()),
+                    json.getInt("index"),
+                    json.getInt("size"),
+                    path,
+                    Hex.decodeHex(json.getString("root").toCharArray()));
+        } catch (DecoderException e) {
+            throw new IllegalArgumentException("Malformed inclusion proof", e);
+        }
+    }
+}
@@ -0,0 +1,332 @@
+package com.itextpdf.pdfchain.anchor;
+
+import com.itextpdf.pdfchain.blockchain.IBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+import org.apache.commons.codec.binary.Hex;
+import org.json.JSONArray;
+import org.json.JSONObject;
+
+import java.io.Closeable;
+import java.math.BigDecimal;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Collects records into batches and anchors every batch on the blockchain as a single item.
+ * A batch is closed when it holds the maximum number of records, when the maximum delay has passed
+ * since its first record was added, or when flush is called.
+ * The records of a batch are the leaves of a MerkleTree, only the root is published,
+ * under its hex encoding as key, with the fields merkleroot, leaves and hshalgo.
+ * The record itself and the proof that it is part of the root are kept in the IProofStore.
+ */
+public class MerkleAnchor implements Closeable {
+
+    private final IBlockChain blockChain;
+    private final IProofStore proofs;
+
+    private int maxBatchSize = 1024;
+    private long maxDelayNanos = 0;
+
+    // guarded by this
+    private final List<Entry> pending = new ArrayList<>();
+    private long generation = 0;
+    private boolean closed = false;
+    private ScheduledExecutorService scheduler;
+
+    // only one batch is published at a time, so a failed batch goes back to the front of the queue in order
+    private final Object publishLock = new Object();
+    private final AtomicLong batches = new AtomicLong();
+
+    public MerkleAnchor(IBlockChain blockChain, IProofStore proofs) {
+        if (blockChain == null || proofs == null)
+            throw new IllegalArgumentException("blockChain and proofs must not be null");
+        this.blockChain = blockChain;
+        this.proofs = proofs;
+    }
+
+    /**
+     * Set the maximum number of records in a batch
+     *
+     * @param maxBatchSize the maximum number of records, 1024 by default
+     * @return this MerkleAnchor
+     */
+    public synchronized MerkleAnchor setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1)
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        this.maxBatchSize = maxBatchSize;
+        return this;
+    }
+
+    /**
+     * Set how long a record may wait in a batch before the batch is anchored in the background
+     *
+     * @param maxDelay the delay, 0 to only anchor full batches and on flush
+     * @param unit     the unit of maxDelay
+     * @return this MerkleAnchor
+     */
+    public synchronized MerkleAnchor setMaxDelay(long maxDelay, TimeUnit unit) {
+        if (maxDelay < 0)
+            throw new IllegalArgumentException("maxDelay must not be negative");
+        this.maxDelayNanos = unit.toNanos(maxDelay);
+        return this;
+    }
+
+    public IBlockChain getBlockChain() {
+        return blockChain;
+    }
+
+    public IProofStore getProofStore() {
+        return proofs;
+    }
+
+    /**
+     * Get the number of records waiting to be anchored
+     *
+     * @return the number of records in the current batch
+     */
+    public synchronized int getPending() {
+        return pending.size();
+    }
+
+    /**
+     * Get the number of batches that were anchored
+     *
+     * @return the number of items this MerkleAnchor published
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    /**
+     * Add a record to the current batch.
+     * When this fills the batch, the batch is anchored before this method returns.
+     *
+     * @param key    the key the record would have been put with, its proofs are stored under this key
+     * @param record the record
+     */
+    public void add(String key, Record record) {
+        boolean full;
+        synchronized (this) {
+            if (closed)
+                throw new IllegalStateException("MerkleAnchor is closed");
+            pending.add(new Entry(key, record));
+            full = pending.size() >= maxBatchSize;
+            if (pending.size() == 1 && !full)
+                schedule();
+        }
+        if (full)
+            flush();
+    }
+
+    /**
+     * Anchor the current batch
+     *
+     * @return the hex encoded root of the batch, or null if no records were waiting
+     * @throws IllegalStateException if the root could not be published or the proofs could not be stored,
+     *                               the records then stay queued for the next batch
+     */
+    public String flush() {
+        synchronized (publishLock) {
+            List<Entry> batch;
+            synchronized (this) {
+                if (pending.isEmpty())
+                    return null;
+                List<Entry> head = pending.subList(0, Math.min(pending.size(), maxBatchSize));
+                batch = new ArrayList<>(head);
+                head.clear();
+                generation++;
+                if (!pending.isEmpty())
+                    schedule();
+            }
+
+            List<byte[]> leaves = new ArrayList<>(batch.size());
+            for (Entry entry : batch)
+                leaves.add(leafOf(entry.record));
+            MerkleTree tree = new MerkleTree(leaves);
+            byte[] root = tree.getRoot();
+            String rootHex = new String(Hex.encodeHex(root));
+
+            try {
+                if (!blockChain.put(rootHex, anchorRecord(rootHex, tree.size())))
+                    throw new IllegalStateException("Could not anchor batch " + rootHex);
+                List<InclusionProof> batchProofs = new ArrayList<>(batch.size());
+                for (int i = 0; i < batch.size(); i++)
+                    batchProofs.add(new InclusionProof(batch.get(i).key, batch.get(i).record, i, tree.size(), tree.getPath(i), root));
+                proofs.put(batchProofs);
+            } catch (RuntimeException e) {
+                requeue(batch);
+                throw e;
+            }
+            batches.incrementAndGet();
+            return rootHex;
+        }
+    }
+
+    /**
+     * Anchor every record that is waiting, and stop anchoring in the background
+     */
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+        }
+        while (flush() != null) {
+            // anchor batch after batch
+        }
+        synchronized (this) {
+            if (scheduler != null)
+                scheduler.shutdownNow();
+        }
+    }
+
+    /**
+     * Encode a record as a leaf of the Merkle tree.
+     * The record is written as JSON with its fields sorted by name, and numbers in their shortest decimal form,
+     * so a record read back from the chain or from a proof store encodes the same way, whatever type its numbers were read as.
+     * Strings, numbers and booleans are told apart, so 1 and "1" give different leaves.
+     *
+     * @param record the record
+     * @return the canonical encoding of the record
+     */
+    public static byte[] leafOf(Map<String, Object> record) {
+        return canonicalJSON(record).getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Write a record as the JSON its leaf is made of, keeping fields whose value is null
+     *
+     * @param record the record
+     * @return the canonical JSON of the record
+     */
+    static String canonicalJSON(Map<String, Object> record) {
+        StringBuilder sb = new StringBuilder();
+        appendCanonical(sb, record);
+        return sb.toString();
+    }
+
+    private static void appendCanonical(StringBuilder sb, Object value) {
+        if (value == null || JSONObject.NULL.equals(value)) {
+            sb.append("null");
+        } else if (value instanceof Map) {
+            sb.append('{');
+            boolean first = true;
+            for (Map.Entry<String, Object> en : sortedByKey((Map<?, ?>) value).entrySet()) {
+                if (!first)
+                    sb.append(',');
+                first = false;
+                sb.append(JSONObject.quote(en.getKey())).append(':');
+                appendCanonical(sb, en.getValue());
+            }
+            sb.append('}');
+        } else if (value instanceof Collection || value.getClass().isArray()) {
+            Collection<?> items = value instanceof Collection ? (Collection<?>) value : new JSONArray(value).toList();
+            sb.append('[');
+            boolean first = true;
+            for (Object item : items) {
+                if (!first)
+                    sb.append(',');
+                first = false;
+                appendCanonical(sb, item);
+            }
+            sb.append(']');
+        } else if (value instanceof JSONArray) {
+            appendCanonical(sb, ((JSONArray) value).toList());
+        } else if (value instanceof JSONObject) {
+            appendCanonical(sb, ((JSONObject) value).toMap());
+        } else if (value instanceof Number) {
+            sb.append(canonicalNumber((Number) value));
+        } else if (value instanceof Boolean) {
+            sb.append(value);
+        } else {
+            sb.append(JSONObject.quote(value.toString()));
+        }
+    }
+
+    private static Map<String, Object> sortedByKey(Map<?, ?> map) {
+        Map<String, Object> out = new TreeMap<>();
+        for (Map.Entry<?, ?> en : map.entrySet())
+            out.put(String.valueOf(en.getKey()), en.getValue());
+        return out;
+    }
+
+    /**
+     * Write a number the same way whether it is an Integer, a Long, a Double or a BigDecimal, e.g. 2, 2L and 2.0 all give 2
+     */
+    private static String canonicalNumber(Number n) {
+        try {
+            BigDecimal decimal = new BigDecimal(n.toString());
+            return decimal.signum() == 0 ? "0" : decimal.stripTrailingZeros().toPlainString();
+        } catch (NumberFormatException e) {
+            // NaN and infinity can not be written as JSON numbers
+            return JSONObject.quote(n.toString());
+        }
+    }
+
+    private static Record anchorRecord(String rootHex, int size) {
+        Record anchor = new Record();
+        anchor.put("merkleroot", rootHex);
+        anchor.put("leaves", size);
+        anchor.put("hshalgo", MerkleTree.HASH_ALGORITHM);
+        return anchor;
+    }
+
+    private void requeue(List<Entry> batch) {
+        synchronized (this) {
+            pending.addAll(0, batch);
+            schedule();
+        }
+    }
+
+    /**
+     * Anchor the current batch once the maximum delay has passed, unless it was anchored by then
+     */
+    private void schedule() {
+        if (maxDelayNanos <= 0 || closed)
+            return;
+        if (scheduler == null) {
+            scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+                @Override
+                public Thread newThread(Runnable r) {
+                    Thread t = new Thread(r, "merkle-anchor");
+                    t.setDaemon(true);
+                    return t;
+                }
+            });
+        }
+        final long scheduledGeneration = generation;
+        scheduler.schedule(new Runnable() {
+            @Override
+            public void run() {
+                synchronized (MerkleAnchor.this) {
+                    if (generation != scheduledGeneration)
+                        return;
+                }
+                try {
+                    flush();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
+                }
+            }
+        }, maxDelayNanos, TimeUnit.NANOSECONDS);
+    }
+
+    private static class Entry {
+
+        private final String key;
+        private final Record record;
+
+        Entry(String key, Record record) {
+            this.key = key;
+            this.record = record;
+        }
+    }
+}
@@ -0,0 +1,135 @@
+package com.itextpdf.pdfchain.anchor;
+
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Binary hash tree over a list of leaves.
+ * Leaves and inner nodes are hashed with different prefixes, so a leaf can never pass for an inner node.
+ * Nodes are paired level by level, the last node of a level with an odd number of nodes moves up unchanged,
+ * so the path of a leaf follows from its index and the number of leaves alone.
+ */
+public final class MerkleTree {
+
+    public static final String HASH_ALGORITHM = "SHA-256";
+
+    private static final byte LEAF_PREFIX = 0x00;
+    private static final byte NODE_PREFIX = 0x01;
+
+    // levels.get(0) holds the leaf hashes, the last level holds the root
+    private final List<byte[][]> levels = new ArrayList<>();
+
+    /**
+     * Build a tree
+     *
+     * @param leaves the data of the leaves, in order
+     */
+    public MerkleTree(List<byte[]> leaves) {
+        if (leaves.isEmpty())
+            throw new IllegalArgumentException("a Merkle tree needs at least one leaf");
+        byte[][] level = new byte[leaves.size()][];
+        for (int i = 0; i < level.length; i++)
+            level[i] = hashLeaf(leaves.get(i));
+        levels.add(level);
+        while (level.length > 1) {
+            byte[][] parent = new byte[(level.length + 1) / 2][];
+            for (int i = 0; i < parent.length; i++)
+                parent[i] = 2 * i + 1 < level.length ? hashNode(level[2 * i], level[2 * i + 1]) : level[2 * i];
+            levels.add(parent);
+            level = parent;
+        }
+    }
+
+    public int size() {
+        return levels.get(0).length;
+    }
+
+    public byte[] getRoot() {
+        return levels.get(levels.size() - 1)[0].clone();
+    }
+
+    /**
+     * Get the siblings needed to recompute the root from a leaf
+     *
+     * @param index the index of the leaf
+     * @return the hashes of the siblings, from the leaf up
+     */
+    public List<byte[]> getPath(int index) {
+        if (index < 0 || index >= size())
+            throw new IllegalArgumentException("no leaf at index " + index);
+        List<byte[]> path = new ArrayList<>();
+        for (int depth = 0; depth < levels.size() - 1; depth++) {
+            byte[][] level = levels.get(depth);
+            int sibling = index ^ 1;
+            if (sibling < level.length)
+                path.add(level[sibling].clone());
+            index /= 2;
+        }
+        return Collections.unmodifiableList(path);
+    }
+
+    /**
+     * Recompute the root of a tree from a leaf and its path
+     *
+     * @param leaf  the data of the leaf
+     * @param index the index of the leaf
+     * @param size  the number of leaves in the tree
+     * @param path  the siblings, as returned by getPath
+     * @return the root, or null if the path does not fit a tree of the given size
+     */
+    public static byte[] computeRoot(byte[] leaf, int index, int size, List<byte[]> path) {
+        if (index < 0 || index >= size)
+            return null;
+        byte[] hash = hashLeaf(leaf);
+        int used = 0;
+        while (size > 1) {
+            int sibling = index ^ 1;
+            if (sibling < size) {
+                if (used >= path.size())
+                    return null;
+                byte[] other = path.get(used++);
+                hash = (index & 1) == 0 ? hashNode(hash, other) : hashNode(other, hash);
+            }
+            index /= 2;
+            size = (size + 1) / 2;
+        }
+        return used == path.size() ? hash : null;
+    }
+
+    /**
+     * Check whether a leaf is part of a tree with the given root
+     *
+     * @return true iff the path leads from the leaf to the root
+     */
+    public static boolean verify(byte[] leaf, int index, int size, List<byte[]> path, byte[] root) {
+        byte[] computed = computeRoot(leaf, index, size, path);
+        return computed != null && MessageDigest.isEqual(computed, root);
+    }
+
+    private static byte[] hashLeaf(byte[] data) {
+        MessageDigest digest = newDigest();
+        digest.update(LEAF_PREFIX);
+        digest.update(data);
+        return digest.digest();
+    }
+
+    private static byte[] hashNode(byte[] left, byte[] right) {
+        MessageDigest digest = newDigest();
+        digest.update(NODE_PREFIX);
+        digest.update(left);
+        digest.update(right);
+        return digest.digest();
+    }
+
+    private static MessageDigest newDigest() {
+        try {
+            return MessageDigest.getInstance(HASH_ALGORITHM);
+        } catch (NoSuchAlgorithmException e) {
+            // every Java platform is required to support SHA-256
+            throw new IllegalStateException(e);
+        }
+    }
+}
@@ -0,0 +1,24 @@
+package com.itextpdf.pdfchain.blockchain;
+
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+
+/**
+ * blockchain that can decode its data directly into a columnar RecordBatch
+ */
+public interface IColumnarBlockChain extends IBlockChain {
+
+    /**
+     * Get data from the blockchain as a batch
+     *
+     * @param key the key being queried
+     * @return a RecordBatch holding the records that match the given key
+     */
+    RecordBatch getBatch(String key);
+
+    /**
+     * Get all data from the blockchain as a batch
+     *
+     * @return a RecordBatch holding all records on the blockchain
+     */
+    RecordBatch allBatch();
+}
@@ -0,0 +1,19 @@
+package com.itextpdf.pdfchain.blockchain;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * blockchain that can look up several keys in a single round trip
+ */
+public interface IMultiKeyBlockChain extends IBlockChain {
+
+    /**
+     * Get data from the blockchain for several keys at once
+     *
+     * @param keys the keys being queried
+     * @return a Map from every given key to the List of records that match it
+     */
+    Map<String, List<Record>> getAll(Collection<String> keys);
+}
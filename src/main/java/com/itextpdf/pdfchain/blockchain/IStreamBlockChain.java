@@ -0,0 +1,32 @@
+package com.itextpdf.pdfchain.blockchain;
+
+import java.util.List;
+
+/**
+ * blockchain whose data can be read as an append-only sequence of items
+ */
+public interface IStreamBlockChain extends IBlockChain {
+
+    /**
+     * Get the number of items on the blockchain
+     *
+     * @return the number of items, the index of the next item to be published
+     */
+    int size();
+
+    /**
+     * Get the current block height
+     *
+     * @return the number of blocks in the chain, which changes whenever the data (or its confirmations) may have changed
+     */
+    long height();
+
+    /**
+     * Get a range of items, in the order in which they were published
+     *
+     * @param start the index of the first item
+     * @param count the maximum number of items
+     * @return a List of at most count records, starting at the given index
+     */
+    List<Record> range(int start, int count);
+}
@@ -0,0 +1,156 @@
+package com.itextpdf.pdfchain.blockchain;
+
+import org.json.JSONObject;
+
+import java.io.ObjectStreamException;
+import java.util.Map;
+import java.util.Set;
+
+/**
+ * Record backed by a stream item as returned by MultiChain.
+ * Reading a field looks it up in the item, and converts it, without taking a lock.
+ * The hex encoded payload is decoded and parsed once, when the first field that is not metadata is read.
+ * A field of the item takes precedence over a payload field with the same name.
+ * The first modification, size or iteration converts every field into the record, after which it behaves like any Record:
+ * it can be read from several threads, but not modified concurrently.
+ */
+class LazyRecord extends Record {
+
+    private static final long serialVersionUID = 1L;
+
+    // null once every field has been converted into the record
+    private transient volatile JSONObject item;
+    private transient volatile JSONObject payload;
+    private transient String payloadHex;  // guarded by this
+
+    LazyRecord(JSONObject item) {
+        this.payloadHex = item.optString("data", "");
+        this.item = item;
+    }
+
+    @Override
+    public Object get(int slot) {
+        if (item == null)
+            return super.get(slot);
+        return get(RecordSchema.nameOf(slot));
+    }
+
+    @Override
+    public boolean has(int slot) {
+        if (item == null)
+            return super.has(slot);
+        return containsKey(RecordSchema.nameOf(slot));
+    }
+
+    @Override
+    public Object get(Object key) {
+        JSONObject current = item;
+        if (current == null || !(key instanceof String))
+            return super.get(key);
+        if (!key.equals("data") && current.has((String) key))
+            return MultiChain.toJava(current.get((String) key));
+        JSONObject fields = payload();
+        if (fields == null)
+            // every field was converted in the meantime
+            return super.get(key);
+        return fields.has((String) key) ? MultiChain.toJava(fields.get((String) key)) : null;
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        JSONObject current = item;
+        if (current == null || !(key instanceof String))
+            return super.containsKey(key);
+        if (!key.equals("data") && current.has((String) key))
+            return true;
+        JSONObject fields = payload();
+        if (fields == null)
+            return super.containsKey(key);
+        return fields.has((String) key);
+    }
+
+    @Override
+    public int size() {
+        materialize();
+        return super.size();
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        materialize();
+        return super.entrySet();
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        materialize();
+        return super.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        materialize();
+        return super.remove(key);
+    }
+
+    @Override
+    public synchronized void clear() {
+        item = null;
+        payloadHex = null;
+        payload = null;
+        super.clear();
+    }
+
+    /**
+     * Get the parsed payload, parsing it if no field of it has been read before
+     *
+     * @return the payload, or null if every field has been converted into the record already
+     */
+    private JSONObject payload() {
+        JSONObject fields = payload;
+        if (fields != null)
+            return fields;
+        synchronized (this) {
+            if (item == null)
+                return null;
+            if (payload == null) {
+                // an item that was not published by PdfChain only has its metadata
+                payload = MultiChain.decodePayload(payloadHex);
+                payloadHex = null;
+            }
+            return payload;
+        }
+    }
+
+    /**
+     * Convert every field into the record, readers keep using the item until it is done
+     */
+    private void materialize() {
+        if (item == null)
+            return;
+        synchronized (this) {
+            JSONObject current = item;
+            if (current == null)
+                return;
+            JSONObject fields = payload();
+            for (String key : fields.keySet()) {
+                if (key.equals("data") || !current.has(key))
+                    super.put(RecordSchema.intern(key), MultiChain.toJava(fields.get(key)));
+            }
+            for (String key : current.keySet()) {
+                if (!key.equals("data"))
+                    super.put(RecordSchema.intern(key), MultiChain.toJava(current.get(key)));
+            }
+            item = null;
+            payload = null;
+        }
+    }
+
+    /**
+     * Serialize as a plain Record
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        materialize();
+        return new Record(this);
+    }
+}
@@ -1,27 +1,37 @@
 package com.itextpdf.pdfchain.blockchain;
 
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+import com.itextpdf.pdfchain.metrics.IGauge;
+import com.itextpdf.pdfchain.metrics.IMetricsRegistry;
+import com.itextpdf.pdfchain.metrics.MetricsRegistry;
 import org.apache.commons.codec.DecoderException;
 import org.apache.commons.codec.binary.Hex;
 import org.apache.commons.httpclient.Credentials;
 import org.apache.commons.httpclient.HttpClient;
+import org.apache.commons.httpclient.MultiThreadedHttpConnectionManager;
 import org.apache.commons.httpclient.UsernamePasswordCredentials;
 import org.apache.commons.httpclient.methods.PostMethod;
 import org.apache.commons.httpclient.methods.StringRequestEntity;
 import org.json.JSONArray;
 import org.json.JSONException;
 import org.json.JSONObject;
+import org.json.JSONTokener;
 
 import java.io.IOException;
 import java.util.ArrayList;
+import java.util.Collection;
 import java.util.HashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
 import java.util.Map;
 import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
  * Implementation of IBlockChain using MultiChain
  */
-public class MultiChain implements IBlockChain {
+public class MultiChain implements IColumnarBlockChain, IStreamBlockChain, IMultiKeyBlockChain {
 
     // blockchain information
     private String host;
@@ -36,6 +46,17 @@ public class MultiChain implements IBlockChain {
     // random (for generating a random ID)
     private static final Random rnd = new Random(System.currentTimeMillis());
 
+    // connections to the node are kept open and shared between requests
+    private final MultiThreadedHttpConnectionManager connectionManager = new MultiThreadedHttpConnectionManager();
+    private final HttpClient client = new HttpClient(connectionManager);
+
+    // instrumentation
+    private IMetricsRegistry metrics = new MetricsRegistry();
+    private final AtomicInteger inFlight = new AtomicInteger();
+
+    // whether reads report errors instead of returning an empty result
+    private boolean failOnError = false;
+
     public MultiChain(String host, int port, String chainName, String streamName, String username, String password) {
         this.host = host;
         this.port = port;
@@ -43,12 +64,86 @@ public class MultiChain implements IBlockChain {
         this.streamName = streamName;
         this.username = username;
         this.password = password;
+
+        Credentials defaultCredentials = new UsernamePasswordCredentials(username, password);
+        client.getState().setCredentials(org.apache.commons.httpclient.auth.AuthScope.ANY, defaultCredentials);
+        setMaxConnections(8);
+        registerGauges();
+    }
+
+    /**
+     * Set the maximum number of connections to the node
+     *
+     * @param maxConnections the maximum number of requests that are sent at the same time
+     * @return this MultiChain
+     */
+    public MultiChain setMaxConnections(int maxConnections) {
+        if (maxConnections < 1)
+            throw new IllegalArgumentException("maxConnections must be at least 1");
+        connectionManager.getParams().setMaxTotalConnections(maxConnections);
+        connectionManager.getParams().setDefaultMaxConnectionsPerHost(maxConnections);
+        return this;
+    }
+
+    /**
+     * Set the registry RPC metrics are recorded in.
+     * Every RPC method gets a latency histogram in microseconds, request and response size histograms in bytes,
+     * and an error counter per type of error, all named multichain.rpc.&lt;method&gt;.*.
+     * Gauges report the requests in flight and the connection pool.
+     *
+     * @param metrics the registry, a MetricsRegistry by default
+     * @return this MultiChain
+     */
+    public MultiChain setMetricsRegistry(IMetricsRegistry metrics) {
+        if (metrics == null)
+            throw new IllegalArgumentException("metrics must not be null");
+        this.metrics = metrics;
+        registerGauges();
+        return this;
+    }
+
+    /**
+     * Set whether get, all, range and getAll throw when the node can not be reached or answers with an error.
+     * By default the error is printed and an empty result is returned.
+     *
+     * @param failOnError true to throw an IllegalStateException instead
+     * @return this MultiChain
+     */
+    public MultiChain setFailOnError(boolean failOnError) {
+        this.failOnError = failOnError;
+        return this;
+    }
+
+    public IMetricsRegistry getMetricsRegistry() {
+        return metrics;
+    }
+
+    private void registerGauges() {
+        metrics.gauge("multichain.rpc.inflight", new IGauge() {
+            @Override
+            public long getValue() {
+                return inFlight.get();
+            }
+        });
+        // open connections, idle or busy, HttpClient does not tell how many are in use
+        metrics.gauge("multichain.pool.connections", new IGauge() {
+            @Override
+            public long getValue() {
+                return connectionManager.getConnectionsInPool();
+            }
+        });
+        metrics.gauge("multichain.pool.max", new IGauge() {
+            @Override
+            public long getValue() {
+                return connectionManager.getParams().getMaxTotalConnections();
+            }
+        });
     }
 
     public boolean put(String key, Record data) {
 
         // convert data to string
-        String hexString = new String(Hex.encodeHex(new JSONObject(data).toString(3).getBytes()));
+        String hexString = encode(data);
 
         // build request
         Map<String, Object> request = new HashMap<>();
@@ -68,71 +163,242 @@ public class MultiChain implements IBlockChain {
     }
 
     public List<Record> all() {
-        // build request
+        // parse return value
+        try {
+            return processJSON(checked(postJSON(allRequest())));
+        } catch (IOException e) {
+            failed(e);
+        }
+
+        // default
+        return java.util.Collections.emptyList();
+    }
+
+    public List<Record> get(String key) {
+        // parse return value
+        try {
+            return processJSON(checked(postJSON(getRequest(key))));
+        } catch (IOException e) {
+            failed(e);
+        }
+
+        // default
+        return java.util.Collections.emptyList();
+    }
+
+    /**
+     * Look up several keys with a single JSON-RPC batch of liststreamkeyitems requests
+     *
+     * @param keys the keys being queried
+     * @return a Map from every given key to its records, keys that could not be read map to an empty List
+     */
+    public Map<String, List<Record>> getAll(Collection<String> keys) {
+        List<String> distinct = new ArrayList<>(new LinkedHashSet<>(keys));
+        List<Map<String, Object>> requests = new ArrayList<>(distinct.size());
+        for (String key : distinct)
+            requests.add(getRequest(key));
+
+        Map<String, List<Record>> retval = new HashMap<>();
+        try {
+            JSONObject[] responses = distinct.isEmpty() ? new JSONObject[0] : postJSONBatch(requests);
+            if (responses == null)
+                checked(null);
+            for (int i = 0; responses != null && i < responses.length; i++) {
+                if (responses[i] != null && responses[i].isNull("error"))
+                    retval.put(distinct.get(i), processJSON(responses[i]));
+                else
+                    checked(responses[i]);
+            }
+        } catch (IOException e) {
+            failed(e);
+        }
+
+        // default
+        for (String key : distinct) {
+            if (!retval.containsKey(key))
+                retval.put(key, java.util.Collections.<Record>emptyList());
+        }
+        return retval;
+    }
+
+    public int size() {
         Map<String, Object> request = new HashMap<>();
-        request.put("method", "liststreamitems");
+        request.put("method", "liststreams");
         request.put("chain_name", chainName);
-        request.put("params", new Object[]{streamName, false, 1024});
+        request.put("params", new Object[]{streamName});
 
         // parse return value
         try {
-            return processJSON(postJSON(request));
-        } catch (IOException e) {
+            JSONObject responseObject = postJSON(request);
+            if (responseObject != null)
+                return responseObject.getJSONArray("result").getJSONObject(0).getInt("items");
+        } catch (IOException | JSONException e) {
             e.printStackTrace();
         }
 
         // default
-        return java.util.Collections.emptyList();
+        return 0;
     }
 
-    public List<Record> get(String key) {
+    public long height() {
+        Map<String, Object> request = new HashMap<>();
+        request.put("method", "getblockcount");
+        request.put("chain_name", chainName);
 
-        // build request
+        // parse return value
+        try {
+            JSONObject responseObject = postJSON(request);
+            if (responseObject != null)
+                return responseObject.getLong("result");
+        } catch (IOException | JSONException e) {
+            e.printStackTrace();
+        }
+
+        // default
+        return -1;
+    }
+
+    public List<Record> range(int start, int count) {
         Map<String, Object> request = new HashMap<>();
-        request.put("method", "liststreamkeyitems");
+        request.put("method", "liststreamitems");
         request.put("chain_name", chainName);
-        request.put("params", new Object[]{streamName, key});
+        request.put("params", new Object[]{streamName, false, count, start});
 
         // parse return value
         try {
-            return processJSON(postJSON(request));
+            return processJSON(checked(postJSON(request)));
         } catch (IOException e) {
-            e.printStackTrace();
+            failed(e);
         }
 
         // default
         return java.util.Collections.emptyList();
     }
 
-    private List<Record> processJSON(JSONObject responseObject) {
+    public RecordBatch allBatch() {
         // parse return value
         try {
-            JSONArray resultArr = responseObject.getJSONArray("result");
-            List<Record> retval = new ArrayList<>();
-            for (int i = 0; i < resultArr.length(); i++) {
-                JSONObject resultObj = resultArr.getJSONObject(i);
-                String dataBytes = resultObj.getString("data");
-                dataBytes = new String(Hex.decodeHex(dataBytes.toCharArray()));
-                try {
-                    Record data = new Record(new JSONObject(dataBytes).toMap());
-                    Map<String, Object> objectMap = resultObj.toMap();
-                    for (String objectDataKey : objectMap.keySet()) {
-                        if (!objectDataKey.equals("data")) {
-                            data.put(objectDataKey, objectMap.get(objectDataKey));
-                        }
-                    }
-                    retval.add(data);
-                } catch (JSONException e) {
-                    e.printStackTrace();
-                }
-            }
-            return retval;
-        } catch (DecoderException e) {
+            return processJSONBatch(postJSON(allRequest()));
+        } catch (IOException e) {
             e.printStackTrace();
         }
 
         // default
-        return java.util.Collections.emptyList();
+        return new RecordBatch.Builder().build();
+    }
+
+    public RecordBatch getBatch(String key) {
+        // parse return value
+        try {
+            return processJSONBatch(postJSON(getRequest(key)));
+        } catch (IOException e) {
+            e.printStackTrace();
+        }
+
+        // default
+        return new RecordBatch.Builder().build();
+    }
+
+    private Map<String, Object> allRequest() {
+        Map<String, Object> request = new HashMap<>();
+        request.put("method", "liststreamitems");
+        request.put("chain_name", chainName);
+        request.put("params", new Object[]{streamName, false, 1024});
+        return request;
+    }
+
+    private Map<String, Object> getRequest(String key) {
+        Map<String, Object> request = new HashMap<>();
+        request.put("method", "liststreamkeyitems");
+        request.put("chain_name", chainName);
+        request.put("params", new Object[]{streamName, key});
+        return request;
+    }
+
+    /**
+     * Check a response when failOnError is set
+     */
+    private JSONObject checked(JSONObject responseObject) {
+        if (failOnError && (responseObject == null || !responseObject.isNull("error")))
+            throw new IllegalStateException("The node at " + host + ":" + port + " did not answer the request: "
+                    + (responseObject == null ? "no valid response" : responseObject.get("error")));
+        return responseObject;
+    }
+
+    private void failed(IOException e) {
+        if (failOnError)
+            throw new IllegalStateException("Could not reach the node at " + host + ":" + port, e);
+        e.printStackTrace();
+    }
+
+    private List<Record> processJSON(JSONObject responseObject) {
+        // parse return value, fields of an item are only converted when they are read
+        JSONArray resultArr = responseObject.getJSONArray("result");
+        List<Record> retval = new ArrayList<>(resultArr.length());
+        for (int i = 0; i < resultArr.length(); i++) {
+            retval.add(new LazyRecord(resultArr.getJSONObject(i)));
+        }
+        return retval;
+    }
+
+    /**
+     * Decode the items in a response straight into the columns of a RecordBatch, without building a Record per item.
+     * Like LazyRecord, an item whose payload is not a JSON object keeps its metadata fields.
+     */
+    private RecordBatch processJSONBatch(JSONObject responseObject) {
+        RecordBatch.Builder builder = new RecordBatch.Builder();
+        JSONArray resultArr = responseObject.getJSONArray("result");
+        for (int i = 0; i < resultArr.length(); i++) {
+            JSONObject resultObj = resultArr.getJSONObject(i);
+            builder.newRow();
+            JSONObject data = decodePayload(resultObj.optString("data", ""));
+            for (String dataKey : data.keySet()) {
+                builder.set(dataKey, toJava(data.get(dataKey)));
+            }
+            for (String objectDataKey : resultObj.keySet()) {
+                if (!objectDataKey.equals("data")) {
+                    builder.set(objectDataKey, toJava(resultObj.get(objectDataKey)));
+                }
+            }
+        }
+        return builder.build();
+    }
+
+    /**
+     * Decode the payload of a stream item
+     *
+     * @param payloadHex the hex encoded payload
+     * @return the payload, or an empty JSONObject if the item was not published by PdfChain
+     */
+    static JSONObject decodePayload(String payloadHex) {
+        try {
+            return new JSONObject(new String(Hex.decodeHex(payloadHex.toCharArray())));
+        } catch (DecoderException | JSONException e) {
+            return new JSONObject();
+        }
+    }
+
+    /**
+     * Encode a record as the payload of a stream item
+     *
+     * @param data the record
+     * @return the hex encoded JSON representation of the record
+     */
+    static String encode(Record data) {
+        return new String(Hex.encodeHex(new JSONObject(data).toString(3).getBytes()));
+    }
+
+    /**
+     * Convert a value from a JSONObject the same way JSONObject.toMap does
+     */
+    static Object toJava(Object value) {
+        if (value == null || JSONObject.NULL.equals(value))
+            return null;
+        if (value instanceof JSONObject)
+            return ((JSONObject) value).toMap();
+        if (value instanceof JSONArray)
+            return ((JSONArray) value).toList();
+        return value;
     }
 
     private static String generateRandomID(int len) {
@@ -148,20 +414,93 @@ public class MultiChain implements IBlockChain {
 
         // request id
         String id = generateRandomID(32);
+        String method = "multichain.rpc." + data.get("method");
+
+        Object response = post(method, new JSONObject(rpcRequest(data, id)).toString(3));
+        if (!(response instanceof JSONObject)) {
+            if (response != null)
+                error(method, "malformed");
+            return null;
+        }
+        JSONObject responseObject = (JSONObject) response;
+
+        // check id
+        if (!id.equals(responseObject.optString("id"))) {
+            error(method, "id_mismatch");
+            return null;
+        }
+        if (!responseObject.isNull("error"))
+            error(method, "rpc");
+
+        // return
+        return responseObject;
+    }
 
-        // build json
+    /**
+     * Send several requests in a single JSON-RPC batch
+     *
+     * @return the responses, in the order of the requests, null for a request that got no valid response
+     */
+    private JSONObject[] postJSONBatch(List<Map<String, Object>> data) throws IOException {
+        String prefix = generateRandomID(16);
+        JSONArray requests = new JSONArray();
+        for (int i = 0; i < data.size(); i++)
+            requests.put(new JSONObject(rpcRequest(data.get(i), prefix + i)));
+
+        String method = "multichain.rpc.batch";
+        Object response = post(method, requests.toString(3));
+        if (!(response instanceof JSONArray)) {
+            if (response != null)
+                error(method, "malformed");
+            return null;
+        }
+
+        // responses may come back in any order, match them on their id
+        JSONArray responseArr = (JSONArray) response;
+        JSONObject[] out = new JSONObject[data.size()];
+        for (int i = 0; i < responseArr.length(); i++) {
+            JSONObject responseObject = responseArr.optJSONObject(i);
+            String id = responseObject == null ? "" : responseObject.optString("id");
+            int index = -1;
+            if (id.startsWith(prefix)) {
+                try {
+                    index = Integer.parseInt(id.substring(prefix.length()));
+                } catch (NumberFormatException e) {
+                    index = -1;
+                }
+            }
+            if (index < 0 || index >= out.length) {
+                error(method, "id_mismatch");
+                continue;
+            }
+            if (!responseObject.isNull("error"))
+                error("multichain.rpc." + data.get(index).get("method"), "rpc");
+            out[index] = responseObject;
+        }
+        return out;
+    }
+
+    private Map<String, Object> rpcRequest(Map<String, Object> data, String id) {
         data.put("jsonrpc", "2.0");
         data.put("id", id);
         if (!data.containsKey("params"))
             data.put("params", new String[]{});
+        return data;
+    }
 
-        String jsonString = new JSONObject(data).toString(3);
+    /**
+     * Post a JSON string to the node and parse the response
+     *
+     * @return a JSONObject or a JSONArray, or null if the node did not answer with status 200
+     */
+    private Object post(String method, String jsonString) throws IOException {
 
         // build request entity
         StringRequestEntity requestEntity = new StringRequestEntity(
                 jsonString,
                 "application/json",
                 "UTF-8");
+        metrics.histogram(method + ".request_bytes").record(requestEntity.getContentLength());
 
         // build method
         PostMethod post = new PostMethod(host + ":" + port);
@@ -170,22 +509,31 @@ public class MultiChain implements IBlockChain {
         post.setRequestEntity(requestEntity);
 
         // execute method
-        HttpClient client = new HttpClient();
-        Credentials defaultCredentials = new UsernamePasswordCredentials(username, password);
-        client.getState().setCredentials(org.apache.commons.httpclient.auth.AuthScope.ANY, defaultCredentials);
-
-        int status = client.executeMethod(post);
-        if (status != 200)
-            return null;
-
-        // collect response
-        JSONObject responseObject = new JSONObject(post.getResponseBodyAsString());
+        inFlight.incrementAndGet();
+        long start = System.nanoTime();
+        try {
+            int status = client.executeMethod(post);
+            if (status != 200) {
+                error(method, "http_" + status);
+                return null;
+            }
 
-        // check id
-        if (!responseObject.getString("id").equals(id))
-            return null;
+            // collect response
+            byte[] responseBytes = post.getResponseBody();
+            metrics.histogram(method + ".response_bytes").record(responseBytes == null ? 0 : responseBytes.length);
+            String responseBody = responseBytes == null ? null : new String(responseBytes, post.getResponseCharSet());
+            return new JSONTokener(responseBody).nextValue();
+        } catch (IOException | RuntimeException e) {
+            error(method, e.getClass().getSimpleName());
+            throw e;
+        } finally {
+            metrics.histogram(method + ".latency_us").record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+            inFlight.decrementAndGet();
+            post.releaseConnection();
+        }
+    }
 
-        // return
-        return responseObject;
+    private void error(String method, String type) {
+        metrics.counter(method + ".errors." + type).increment(1);
     }
 }
@@ -1,9 +1,34 @@
 package com.itextpdf.pdfchain.blockchain;
 
+import java.io.Serializable;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
 import java.util.HashMap;
+import java.util.Iterator;
 import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
 
-public class Record extends HashMap<String, Object> {
+/**
+ * An object stored on the blockchain.
+ * Fields that are part of the RecordSchema are stored in fixed slots, confirmations and blocktime as primitive longs,
+ * every other field is stored in a side map.
+ * A Record behaves exactly like a {@code Map<String, Object>}, values keep the type they were put with.
+ */
+public class Record extends AbstractMap<String, Object> implements Serializable {
+
+    private static final long serialVersionUID = 1L;
+
+    // state of a slot, two bits per slot
+    private static final int ABSENT = 0;
+    private static final int REFERENCE = 1;
+    private static final int INTEGER = 2;
+    private static final int LONG = 3;
+
+    private int state = 0;
+    private Object[] references;
+    private long[] longs;
+    private Map<String, Object> extras;
 
     public Record() {
     }
@@ -11,4 +36,222 @@ public class Record extends HashMap<String, Object> {
     public Record(Map<String, Object> m) {
         this.putAll(m);
     }
+
+    /**
+     * Get the value of a fixed field
+     *
+     * @param slot the slot of the field, as defined in RecordSchema
+     * @return the value, or null if this record has no value for the field
+     */
+    public Object get(int slot) {
+        switch (stateOf(slot)) {
+            case REFERENCE:
+                return references[slot];
+            case INTEGER:
+                return (int) longs[slot - RecordSchema.FIRST_LONG_SLOT];
+            case LONG:
+                return longs[slot - RecordSchema.FIRST_LONG_SLOT];
+            default:
+                return null;
+        }
+    }
+
+    /**
+     * Check whether this record has a value for a fixed field
+     *
+     * @param slot the slot of the field, as defined in RecordSchema
+     * @return true if the field is set, even if it is set to null
+     */
+    public boolean has(int slot) {
+        return stateOf(slot) != ABSENT;
+    }
+
+    @Override
+    public Object get(Object key) {
+        int slot = RecordSchema.slotOf(key);
+        if (slot >= 0)
+            return get(slot);
+        return extras == null ? null : extras.get(key);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        int slot = RecordSchema.slotOf(key);
+        if (slot >= 0)
+            return has(slot);
+        return extras != null && extras.containsKey(key);
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        int slot = RecordSchema.slotOf(key);
+        if (slot < 0) {
+            if (extras == null)
+                extras = new HashMap<>();
+            return extras.put(key, value);
+        }
+        Object previous = get(slot);
+        if (slot >= RecordSchema.FIRST_LONG_SLOT && (value instanceof Integer || value instanceof Long)) {
+            if (longs == null)
+                longs = new long[RecordSchema.size() - RecordSchema.FIRST_LONG_SLOT];
+            longs[slot - RecordSchema.FIRST_LONG_SLOT] = ((Number) value).longValue();
+            if (references != null)
+                references[slot] = null;
+            setState(slot, value instanceof Integer ? INTEGER : LONG);
+        } else {
+            if (references == null)
+                references = new Object[RecordSchema.size()];
+            references[slot] = value;
+            setState(slot, REFERENCE);
+        }
+        return previous;
+    }
+
+    @Override
+    public Object remove(Object key) {
+        int slot = RecordSchema.slotOf(key);
+        if (slot < 0)
+            return extras == null ? null : extras.remove(key);
+        Object previous = get(slot);
+        if (references != null)
+            references[slot] = null;
+        setState(slot, ABSENT);
+        return previous;
+    }
+
+    @Override
+    public void clear() {
+        state = 0;
+        references = null;
+        extras = null;
+    }
+
+    @Override
+    public int size() {
+        // count the slots that have at least one of their two state bits set
+        int fixed = Integer.bitCount((state | (state >>> 1)) & 0x55555555);
+        return fixed + (extras == null ? 0 : extras.size());
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new EntryIterator();
+            }
+
+            @Override
+            public int size() {
+                return Record.this.size();
+            }
+        };
+    }
+
+    private int stateOf(int slot) {
+        return (state >>> (slot * 2)) & 3;
+    }
+
+    private void setState(int slot, int slotState) {
+        state = (state & ~(3 << (slot * 2))) | (slotState << (slot * 2));
+    }
+
+    /**
+     * Iterates over the fixed fields in slot order, then over the side map
+     */
+    private class EntryIterator implements Iterator<Map.Entry<String, Object>> {
+
+        private int nextSlot = 0;
+        private int lastSlot = -1;
+        private boolean lastFromExtras = false;
+        private Iterator<Map.Entry<String, Object>> extrasIterator;
+
+        EntryIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (nextSlot < RecordSchema.size() && !has(nextSlot))
+                nextSlot++;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextSlot < RecordSchema.size())
+                return true;
+            if (extrasIterator == null && extras != null)
+                extrasIterator = extras.entrySet().iterator();
+            return extrasIterator != null && extrasIterator.hasNext();
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            if (nextSlot < RecordSchema.size()) {
+                lastSlot = nextSlot++;
+                advance();
+                return new SlotEntry(lastSlot);
+            }
+            lastSlot = -1;
+            lastFromExtras = true;
+            return extrasIterator.next();
+        }
+
+        @Override
+        public void remove() {
+            if (lastFromExtras) {
+                extrasIterator.remove();
+            } else if (lastSlot >= 0) {
+                Record.this.remove(RecordSchema.nameOf(lastSlot));
+                lastSlot = -1;
+            } else {
+                throw new IllegalStateException();
+            }
+        }
+    }
+
+    private class SlotEntry implements Map.Entry<String, Object> {
+
+        private final int slot;
+
+        SlotEntry(int slot) {
+            this.slot = slot;
+        }
+
+        @Override
+        public String getKey() {
+            return RecordSchema.nameOf(slot);
+        }
+
+        @Override
+        public Object getValue() {
+            return get(slot);
+        }
+
+        @Override
+        public Object setValue(Object value) {
+            return put(getKey(), value);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Map.Entry))
+                return false;
+            Map.Entry<?, ?> e = (Map.Entry<?, ?>) o;
+            Object value = getValue();
+            return getKey().equals(e.getKey()) && (value == null ? e.getValue() == null : value.equals(e.getValue()));
+        }
+
+        @Override
+        public int hashCode() {
+            Object value = getValue();
+            return getKey().hashCode() ^ (value == null ? 0 : value.hashCode());
+        }
+
+        @Override
+        public String toString() {
+            return getKey() + "=" + getValue();
+        }
+    }
 }
@@ -0,0 +1,53 @@
+package com.itextpdf.pdfchain.blockchain;
+
+/**
+ * A field name that has been resolved against the RecordSchema once,
+ * so that reading a fixed field from a Record is an array access instead of a hash lookup.
+ */
+public final class RecordField {
+
+    private final String name;
+    private final int slot;
+
+    private RecordField(String name, int slot) {
+        this.name = name;
+        this.slot = slot;
+    }
+
+    public static RecordField of(String name) {
+        return new RecordField(name, RecordSchema.slotOf(name));
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Get the slot of this field
+     *
+     * @return the slot, or -1 if this field is not part of the RecordSchema
+     */
+    public int getSlot() {
+        return slot;
+    }
+
+    /**
+     * Read this field from a Record
+     *
+     * @param r the Record
+     * @return the value of this field, or null if the Record does not have it
+     */
+    public Object get(Record r) {
+        return slot >= 0 ? r.get(slot) : r.get(name);
+    }
+
+    /**
+     * Check whether a Record has this field
+     *
+     * @param r the Record
+     * @return true if the Record has a value for this field
+     */
+    public boolean isSet(Record r) {
+        return slot >= 0 ? r.has(slot) : r.containsKey(name);
+    }
+}
@@ -0,0 +1,125 @@
+package com.itextpdf.pdfchain.blockchain;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * The fixed fields of a Record.
+ * Every field PdfChain writes, and every field MultiChain adds when reading an item back, gets its own slot in a Record.
+ * Any other field is kept in a side map.
+ */
+public final class RecordSchema {
+
+    // fields stored as a reference
+    public static final int ID1 = 0;
+    public static final int ID2 = 1;
+    public static final int HSH = 2;
+    public static final int SHSH = 3;
+    public static final int KEY = 4;
+    public static final int HSHALGO = 5;
+    public static final int SGNALGO = 6;
+    public static final int TXID = 7;
+
+    // fields stored as a primitive long whenever their value is an Integer or a Long
+    public static final int CONFIRMATIONS = 8;
+    public static final int BLOCKTIME = 9;
+
+    private static final String[] NAMES = {"id1", "id2", "hsh", "shsh", "key", "hshalgo", "sgnalgo", "txid", "confirmations", "blocktime"};
+
+    // first slot that holds a primitive long
+    static final int FIRST_LONG_SLOT = CONFIRMATIONS;
+
+    // do not keep interning field names of arbitrary documents forever
+    private static final int MAX_INTERNED_NAMES = 4096;
+    private static final ConcurrentMap<String, String> INTERNED_NAMES = new ConcurrentHashMap<>();
+
+    static {
+        for (String name : NAMES)
+            INTERNED_NAMES.put(name, name);
+    }
+
+    private RecordSchema() {
+    }
+
+    /**
+     * Get the number of fixed fields
+     *
+     * @return the number of slots in a Record
+     */
+    public static int size() {
+        return NAMES.length;
+    }
+
+    /**
+     * Get the names of the fixed fields, in slot order
+     *
+     * @return an unmodifiable List of field names
+     */
+    public static List<String> getFieldNames() {
+        return Collections.unmodifiableList(Arrays.asList(NAMES));
+    }
+
+    /**
+     * Get the name of a fixed field
+     *
+     * @param slot the slot of the field
+     * @return the name of the field
+     */
+    public static String nameOf(int slot) {
+        return NAMES[slot];
+    }
+
+    /**
+     * Get the slot of a fixed field
+     *
+     * @param fieldName the name of the field
+     * @return the slot, or -1 if the field is not part of the schema
+     */
+    public static int slotOf(Object fieldName) {
+        if (!(fieldName instanceof String))
+            return -1;
+        String s = (String) fieldName;
+        // cheap pre-check on length and first character, fixed names are short
+        switch (s.length()) {
+            case 3:
+                if (s.equals("id1")) return ID1;
+                if (s.equals("id2")) return ID2;
+                if (s.equals("hsh")) return HSH;
+                if (s.equals("key")) return KEY;
+                return -1;
+            case 4:
+                if (s.equals("shsh")) return SHSH;
+                if (s.equals("txid")) return TXID;
+                return -1;
+            case 7:
+                if (s.equals("hshalgo")) return HSHALGO;
+                if (s.equals("sgnalgo")) return SGNALGO;
+                return -1;
+            case 9:
+                return s.equals("blocktime") ? BLOCKTIME : -1;
+            case 13:
+                return s.equals("confirmations") ? CONFIRMATIONS : -1;
+            default:
+                return -1;
+        }
+    }
+
+    /**
+     * Get a canonical instance of a field name, so that records decoded from the chain share their keys
+     *
+     * @param fieldName the name of the field
+     * @return an equal String, shared with every other caller that interned the same name
+     */
+    public static String intern(String fieldName) {
+        String interned = INTERNED_NAMES.get(fieldName);
+        if (interned != null)
+            return interned;
+        if (INTERNED_NAMES.size() >= MAX_INTERNED_NAMES)
+            return fieldName;
+        interned = INTERNED_NAMES.putIfAbsent(fieldName, fieldName);
+        return interned == null ? fieldName : interned;
+    }
+}
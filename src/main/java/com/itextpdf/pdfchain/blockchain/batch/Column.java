@@ -0,0 +1,44 @@
+package com.itextpdf.pdfchain.blockchain.batch;
+
+/**
+ * A single field of a RecordBatch, for every row of the batch.
+ * Whether a row has a value for this field is kept in a bitmap.
+ */
+public abstract class Column {
+
+    private final long[] present;
+    private final int size;
+
+    protected Column(long[] present, int size) {
+        this.present = present;
+        this.size = size;
+    }
+
+    /**
+     * Get the number of rows in this column
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Check whether a row has no value for this field
+     *
+     * @param row the row number
+     * @return true iff the row has no value (or null) for this field
+     */
+    public boolean isNull(int row) {
+        return (present[row >>> 6] & (1L << row)) == 0;
+    }
+
+    /**
+     * Get the value of a row, in the same type it had when the batch was built
+     *
+     * @param row the row number
+     * @return the (boxed) value, or null
+     */
+    public abstract Object getValue(int row);
+
+}
@@ -0,0 +1,72 @@
+package com.itextpdf.pdfchain.blockchain.batch;
+
+import java.util.Map;
+
+/**
+ * Column of strings, stored as one code per row into a dictionary of distinct values
+ */
+public class DictionaryColumn extends Column {
+
+    private final int[] codes;
+    private final String[] dictionary;
+    private final Map<String, Integer> index;
+
+    DictionaryColumn(long[] present, int size, int[] codes, String[] dictionary, Map<String, Integer> index) {
+        super(present, size);
+        this.codes = codes;
+        this.dictionary = dictionary;
+        this.index = index;
+    }
+
+    /**
+     * Get the distinct values of this column
+     *
+     * @return the dictionary, indexed by code
+     */
+    public String[] getDictionary() {
+        return dictionary;
+    }
+
+    /**
+     * Get the code of a row
+     *
+     * @param row the row number
+     * @return the index of the value of the row in the dictionary, undefined for null rows
+     */
+    public int getCode(int row) {
+        return codes[row];
+    }
+
+    /**
+     * Get the code of a value
+     *
+     * @param value a value
+     * @return the code of the value, or -1 if no row has this value
+     */
+    public int codeOf(Object value) {
+        Integer code = (value instanceof String) ? index.get(value) : null;
+        return code == null ? -1 : code;
+    }
+
+    @Override
+    public Object getValue(int row) {
+        return isNull(row) ? null : dictionary[codes[row]];
+    }
+
+    /**
+     * Select the rows whose code is accepted
+     *
+     * @param in       the candidate rows
+     * @param accepted for every code in the dictionary, whether rows with that code are selected
+     * @return the selected rows
+     */
+    public SelectionVector selectCodes(SelectionVector in, boolean[] accepted) {
+        SelectionVector out = new SelectionVector(in.size());
+        for (int i = 0; i < in.size(); i++) {
+            int row = in.get(i);
+            if (!isNull(row) && accepted[codes[row]])
+                out.add(row);
+        }
+        return out;
+    }
+}
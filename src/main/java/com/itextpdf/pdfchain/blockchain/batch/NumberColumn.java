@@ -0,0 +1,92 @@
+package com.itextpdf.pdfchain.blockchain.batch;
+
+/**
+ * Column of numbers that all have the same boxed type (Integer, Long or Double), stored as a double[]
+ */
+public class NumberColumn extends Column {
+
+    private final double[] values;
+    private final Class<? extends Number> type;
+
+    NumberColumn(long[] present, int size, double[] values, Class<? extends Number> type) {
+        super(present, size);
+        this.values = values;
+        this.type = type;
+    }
+
+    /**
+     * Get the type every value in this column had when the batch was built
+     *
+     * @return Integer.class, Long.class or Double.class
+     */
+    public Class<? extends Number> getType() {
+        return type;
+    }
+
+    /**
+     * Get the value of a row as a primitive
+     *
+     * @param row the row number
+     * @return the value, undefined for null rows
+     */
+    public double getDouble(int row) {
+        return values[row];
+    }
+
+    @Override
+    public Object getValue(int row) {
+        if (isNull(row))
+            return null;
+        if (type == Integer.class)
+            return (int) values[row];
+        if (type == Long.class)
+            return (long) values[row];
+        return values[row];
+    }
+
+    /**
+     * Select the rows that compare to a constant in a given way (rows without value are never selected)
+     *
+     * @param in       the candidate rows
+     * @param constant the constant to compare with
+     * @param sign     the sign Double.compare(value, constant) must have: -1, 0 or 1
+     * @param orEqual  whether rows equal to the constant are selected as well
+     * @return the selected rows
+     */
+    public SelectionVector selectCompare(SelectionVector in, double constant, int sign, boolean orEqual) {
+        SelectionVector out = new SelectionVector(in.size());
+        for (int i = 0; i < in.size(); i++) {
+            int row = in.get(i);
+            if (isNull(row))
+                continue;
+            int cmp = Integer.signum(Double.compare(values[row], constant));
+            if (cmp == sign || (orEqual && cmp == 0))
+                out.add(row);
+        }
+        return out;
+    }
+
+    /**
+     * Select the rows whose value equals (in the sense of Object.equals) a constant
+     *
+     * @param in       the candidate rows
+     * @param constant the constant to compare with
+     * @param negate   true to select the rows that have a value different from the constant instead
+     * @return the selected rows
+     */
+    public SelectionVector selectEqual(SelectionVector in, Object constant, boolean negate) {
+        // boxed numbers are only equal to numbers of the same type
+        boolean comparable = constant != null && constant.getClass() == type;
+        double c = comparable ? ((Number) constant).doubleValue() : 0;
+        SelectionVector out = new SelectionVector(in.size());
+        for (int i = 0; i < in.size(); i++) {
+            int row = in.get(i);
+            if (isNull(row))
+                continue;
+            boolean equal = comparable && Double.doubleToLongBits(values[row]) == Double.doubleToLongBits(c);
+            if (equal != negate)
+                out.add(row);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,19 @@
+package com.itextpdf.pdfchain.blockchain.batch;
+
+/**
+ * Column of values that are neither all strings nor all numbers of one type
+ */
+public class ObjectColumn extends Column {
+
+    private final Object[] values;
+
+    ObjectColumn(long[] present, int size, Object[] values) {
+        super(present, size);
+        this.values = values;
+    }
+
+    @Override
+    public Object getValue(int row) {
+        return values[row];
+    }
+}
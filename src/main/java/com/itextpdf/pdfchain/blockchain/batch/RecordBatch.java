@@ -0,0 +1,300 @@
+package com.itextpdf.pdfchain.blockchain.batch;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Columnar representation of a list of records.
+ * Every field is stored once for the whole batch, numbers as a double[], strings as codes into a dictionary,
+ * and a bitmap per field keeps track of which rows have a value.
+ */
+public class RecordBatch {
+
+    private final int size;
+    private final Map<String, Column> columns;
+
+    private RecordBatch(int size, Map<String, Column> columns) {
+        this.size = size;
+        this.columns = columns;
+    }
+
+    /**
+     * Build a batch from records
+     *
+     * @param records the records
+     * @return a batch with one row per record, in order
+     */
+    public static RecordBatch of(Collection<? extends Map<String, Object>> records) {
+        Builder builder = new Builder();
+        for (Map<String, Object> r : records) {
+            builder.newRow();
+            for (Map.Entry<String, Object> en : r.entrySet())
+                builder.set(en.getKey(), en.getValue());
+        }
+        return builder.build();
+    }
+
+    /**
+     * Get the number of rows in this batch
+     *
+     * @return the number of rows
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Get a column
+     *
+     * @param fieldName the name of the field
+     * @return the column, or null if no row has this field
+     */
+    public Column getColumn(String fieldName) {
+        return columns.get(fieldName);
+    }
+
+    public Collection<String> getFieldNames() {
+        return Collections.unmodifiableCollection(columns.keySet());
+    }
+
+    /**
+     * Convert a single row back into a Record
+     *
+     * @param row the row number
+     * @return a Record holding every field the row has a value for
+     */
+    public Record getRecord(int row) {
+        Record out = new Record();
+        for (Map.Entry<String, Column> en : columns.entrySet()) {
+            if (!en.getValue().isNull(row))
+                out.put(en.getKey(), en.getValue().getValue(row));
+        }
+        return out;
+    }
+
+    /**
+     * Convert the selected rows back into records
+     *
+     * @param selection the rows to convert
+     * @return a List of records, in order of selection
+     */
+    public List<Record> getRecords(SelectionVector selection) {
+        List<Record> out = new ArrayList<>(selection.size());
+        for (int i = 0; i < selection.size(); i++)
+            out.add(getRecord(selection.get(i)));
+        return out;
+    }
+
+    /**
+     * Builds a RecordBatch one row at a time, without creating a Record per row.
+     * A column starts out typed after its first value, and falls back to plain objects when a value of another type appears.
+     */
+    public static class Builder {
+
+        private final Map<String, ColumnBuilder> columns = new LinkedHashMap<>();
+        private int rows = 0;
+
+        /**
+         * Start a new row, subsequent calls to set apply to this row
+         *
+         * @return this builder
+         */
+        public Builder newRow() {
+            rows++;
+            return this;
+        }
+
+        /**
+         * Set a field of the current row
+         *
+         * @param fieldName the name of the field
+         * @param value     the value, null values are not stored
+         * @return this builder
+         */
+        public Builder set(String fieldName, Object value) {
+            if (rows == 0)
+                throw new IllegalStateException("newRow must be called before set");
+            if (value == null)
+                return this;
+            ColumnBuilder column = columns.get(fieldName);
+            if (column == null) {
+                column = new ColumnBuilder();
+                columns.put(fieldName, column);
+            }
+            column.set(rows - 1, value);
+            return this;
+        }
+
+        public RecordBatch build() {
+            Map<String, Column> out = new LinkedHashMap<>();
+            for (Map.Entry<String, ColumnBuilder> en : columns.entrySet())
+                out.put(en.getKey(), en.getValue().build(rows));
+            return new RecordBatch(rows, out);
+        }
+    }
+
+    /**
+     * Accumulates the values of a single column
+     */
+    private static class ColumnBuilder {
+
+        private static final int EMPTY = 0;
+        private static final int NUMBER = 1;
+        private static final int STRING = 2;
+        private static final int OBJECT = 3;
+
+        private int mode = EMPTY;
+        private long[] present = new long[1];
+
+        // NUMBER
+        private double[] numbers;
+        private Class<? extends Number> numberType;
+
+        // STRING
+        private int[] codes;
+        private Map<String, Integer> dictionary;
+        private List<String> dictionaryValues;
+
+        // OBJECT
+        private Object[] objects;
+
+        void set(int row, Object value) {
+            if (mode == EMPTY)
+                start(value);
+            else if (!fits(value))
+                toObjects(row + 1);
+
+            ensureCapacity(row + 1);
+            present[row >>> 6] |= 1L << row;
+            switch (mode) {
+                case NUMBER:
+                    numbers[row] = ((Number) value).doubleValue();
+                    break;
+                case STRING:
+                    Integer code = dictionary.get(value);
+                    if (code == null) {
+                        code = dictionaryValues.size();
+                        dictionary.put((String) value, code);
+                        dictionaryValues.add((String) value);
+                    }
+                    codes[row] = code;
+                    break;
+                default:
+                    objects[row] = value;
+                    break;
+            }
+        }
+
+        private void start(Object value) {
+            if (isNumber(value)) {
+                mode = NUMBER;
+                numberType = ((Number) value).getClass().asSubclass(Number.class);
+                numbers = new double[16];
+            } else if (value instanceof String) {
+                mode = STRING;
+                codes = new int[16];
+                dictionary = new HashMap<>();
+                dictionaryValues = new ArrayList<>();
+            } else {
+                mode = OBJECT;
+                objects = new Object[16];
+            }
+        }
+
+        private boolean fits(Object value) {
+            switch (mode) {
+                case NUMBER:
+                    return value.getClass() == numberType && isNumber(value);
+                case STRING:
+                    return value instanceof String;
+                default:
+                    return true;
+            }
+        }
+
+        /**
+         * Integers, and longs and doubles that survive a round trip through a double
+         */
+        private static boolean isNumber(Object value) {
+            if (value instanceof Integer || value instanceof Double)
+                return true;
+            if (value instanceof Long) {
+                long l = (Long) value;
+                return (long) (double) l == l;
+            }
+            return false;
+        }
+
+        private void toObjects(int capacity) {
+            Object[] out = new Object[Math.max(16, capacity)];
+            int rows = (mode == NUMBER) ? numbers.length : codes.length;
+            for (int row = 0; row < Math.min(rows, out.length); row++) {
+                if (!isPresent(row))
+                    continue;
+                if (mode == NUMBER)
+                    out[row] = box(numbers[row]);
+                else
+                    out[row] = dictionaryValues.get(codes[row]);
+            }
+            mode = OBJECT;
+            objects = out;
+            numbers = null;
+            codes = null;
+            dictionary = null;
+            dictionaryValues = null;
+        }
+
+        private Object box(double value) {
+            if (numberType == Integer.class)
+                return (int) value;
+            if (numberType == Long.class)
+                return (long) value;
+            return value;
+        }
+
+        private boolean isPresent(int row) {
+            return (row >>> 6) < present.length && (present[row >>> 6] & (1L << row)) != 0;
+        }
+
+        private void ensureCapacity(int rows) {
+            if (present.length * 64 < rows)
+                present = Arrays.copyOf(present, Math.max(present.length * 2, (rows + 63) / 64));
+            switch (mode) {
+                case NUMBER:
+                    if (numbers.length < rows)
+                        numbers = Arrays.copyOf(numbers, Math.max(numbers.length * 2, rows));
+                    break;
+                case STRING:
+                    if (codes.length < rows)
+                        codes = Arrays.copyOf(codes, Math.max(codes.length * 2, rows));
+                    break;
+                default:
+                    if (objects.length < rows)
+                        objects = Arrays.copyOf(objects, Math.max(objects.length * 2, rows));
+                    break;
+            }
+        }
+
+        Column build(int rows) {
+            ensureCapacity(rows);
+            long[] bitmap = Arrays.copyOf(present, (rows + 63) / 64 + 1);
+            switch (mode) {
+                case NUMBER:
+                    return new NumberColumn(bitmap, rows, Arrays.copyOf(numbers, rows), numberType);
+                case STRING:
+                    return new DictionaryColumn(bitmap, rows, Arrays.copyOf(codes, rows),
+                            dictionaryValues.toArray(new String[dictionaryValues.size()]), dictionary);
+                default:
+                    return new ObjectColumn(bitmap, rows, Arrays.copyOf(objects, rows));
+            }
+        }
+    }
+}
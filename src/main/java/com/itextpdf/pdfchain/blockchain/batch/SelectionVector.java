@@ -0,0 +1,100 @@
+package com.itextpdf.pdfchain.blockchain.batch;
+
+import java.util.Arrays;
+
+/**
+ * Ordered set of row numbers within a RecordBatch.
+ * Filters over a batch consume and produce selection vectors, so rows are never copied while filtering.
+ */
+public class SelectionVector {
+
+    private int[] rows;
+    private int size;
+
+    public SelectionVector(int capacity) {
+        this.rows = new int[Math.max(capacity, 1)];
+        this.size = 0;
+    }
+
+    /**
+     * Build a selection vector containing every row of a batch
+     *
+     * @param size the number of rows in the batch
+     * @return a selection vector holding 0 .. size-1
+     */
+    public static SelectionVector all(int size) {
+        SelectionVector out = new SelectionVector(size);
+        for (int i = 0; i < size; i++)
+            out.rows[i] = i;
+        out.size = size;
+        return out;
+    }
+
+    /**
+     * Add a row, rows must be added in ascending order
+     *
+     * @param row the row number
+     */
+    public void add(int row) {
+        if (size == rows.length)
+            rows = Arrays.copyOf(rows, rows.length * 2);
+        rows[size++] = row;
+    }
+
+    public int get(int index) {
+        return rows[index];
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * Merge two selection vectors
+     *
+     * @param other another selection vector over the same batch
+     * @return a selection vector holding the rows selected by either vector, in ascending order
+     */
+    public SelectionVector union(SelectionVector other) {
+        SelectionVector out = new SelectionVector(size + other.size);
+        int i = 0;
+        int j = 0;
+        while (i < size && j < other.size) {
+            int a = rows[i];
+            int b = other.rows[j];
+            if (a <= b) {
+                out.add(a);
+                i++;
+                if (a == b)
+                    j++;
+            } else {
+                out.add(b);
+                j++;
+            }
+        }
+        while (i < size)
+            out.add(rows[i++]);
+        while (j < other.size)
+            out.add(other.rows[j++]);
+        return out;
+    }
+
+    /**
+     * Remove rows from this selection
+     *
+     * @param other another selection vector over the same batch, holding a subset of this vector
+     * @return a selection vector holding the rows of this vector that are not in other
+     */
+    public SelectionVector minus(SelectionVector other) {
+        SelectionVector out = new SelectionVector(size);
+        int j = 0;
+        for (int i = 0; i < size; i++) {
+            int a = rows[i];
+            while (j < other.size && other.rows[j] < a)
+                j++;
+            if (j >= other.size || other.rows[j] != a)
+                out.add(a);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,297 @@
+package com.itextpdf.pdfchain.blockchain.coalesce;
+
+import com.itextpdf.pdfchain.blockchain.IBlockChain;
+import com.itextpdf.pdfchain.blockchain.IMultiKeyBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IBlockChain that sends at most one request per key to the underlying chain at any time.
+ * A caller that asks for a key that is already being fetched waits for that request and gets its result,
+ * the same goes for all().
+ * When a batch window is set and the underlying chain is an IMultiKeyBlockChain,
+ * distinct keys that are asked for within the window are fetched together with a single getAll.
+ * Every caller gets a List of its own, the records in it are shared between callers.
+ */
+public class CoalescingBlockChain implements IBlockChain {
+
+    // key of the flight for all()
+    private static final Object ALL = new Object();
+
+    private final IBlockChain blockChain;
+    private final ConcurrentMap<Object, Flight> flights = new ConcurrentHashMap<>();
+
+    private long batchWindowNanos = 0;
+    private int maxBatchSize = 64;
+
+    // batch that is still accepting keys, guarded by this
+    private Batch pending;
+
+    // statistics
+    private final AtomicLong requests = new AtomicLong();
+    private final AtomicLong coalesced = new AtomicLong();
+    private final AtomicLong batches = new AtomicLong();
+
+    public CoalescingBlockChain(IBlockChain blockChain) {
+        if (blockChain == null)
+            throw new IllegalArgumentException("blockChain must not be null");
+        this.blockChain = blockChain;
+    }
+
+    /**
+     * Set how long the first key of a batch waits for other keys before the batch is sent
+     *
+     * @param window the window, 0 to fetch every key on its own
+     * @param unit   the unit of window
+     * @return this CoalescingBlockChain
+     */
+    public CoalescingBlockChain setBatchWindow(long window, TimeUnit unit) {
+        if (window < 0)
+            throw new IllegalArgumentException("window must not be negative");
+        if (window > 0 && !(blockChain instanceof IMultiKeyBlockChain))
+            throw new IllegalStateException("the underlying blockchain can not look up several keys at once");
+        synchronized (this) {
+            this.batchWindowNanos = unit.toNanos(window);
+        }
+        return this;
+    }
+
+    /**
+     * Set the maximum number of keys in a batch, a full batch is sent without waiting for the window to end
+     *
+     * @param maxBatchSize the maximum number of keys, 64 by default
+     * @return this CoalescingBlockChain
+     */
+    public CoalescingBlockChain setMaxBatchSize(int maxBatchSize) {
+        if (maxBatchSize < 1)
+            throw new IllegalArgumentException("maxBatchSize must be at least 1");
+        synchronized (this) {
+            this.maxBatchSize = maxBatchSize;
+        }
+        return this;
+    }
+
+    /**
+     * Get the number of calls to get and all
+     *
+     * @return the number of calls made to this CoalescingBlockChain
+     */
+    public long getRequests() {
+        return requests.get();
+    }
+
+    /**
+     * Get the number of calls that were answered by a request another caller had already sent
+     *
+     * @return the number of calls that did not cause a request of their own
+     */
+    public long getCoalesced() {
+        return coalesced.get();
+    }
+
+    /**
+     * Get the number of getAll calls made to the underlying chain
+     *
+     * @return the number of batches sent
+     */
+    public long getBatches() {
+        return batches.get();
+    }
+
+    @Override
+    public boolean put(String key, Record data) {
+        return blockChain.put(key, data);
+    }
+
+    @Override
+    public List<Record> get(final String key) {
+        requests.incrementAndGet();
+        Flight flight = new Flight();
+        Flight existing = flights.putIfAbsent(key, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return new ArrayList<>(existing.await());
+        }
+
+        Batch leading = null;
+        synchronized (this) {
+            if (batchWindowNanos > 0) {
+                if (pending == null) {
+                    pending = new Batch(batchWindowNanos);
+                    leading = pending;
+                }
+                pending.add(key, flight);
+                if (pending.size() >= maxBatchSize) {
+                    pending.close();
+                    pending = null;
+                }
+            }
+        }
+
+        if (flight.isBatched()) {
+            // the first caller of a batch sends it, the others wait for their key
+            if (leading != null)
+                send(leading);
+        } else {
+            run(key, flight, new Fetch() {
+                @Override
+                public List<Record> fetch() {
+                    return blockChain.get(key);
+                }
+            });
+        }
+        return new ArrayList<>(flight.await());
+    }
+
+    @Override
+    public List<Record> all() {
+        requests.incrementAndGet();
+        Flight flight = new Flight();
+        Flight existing = flights.putIfAbsent(ALL, flight);
+        if (existing != null) {
+            coalesced.incrementAndGet();
+            return new ArrayList<>(existing.await());
+        }
+        run(ALL, flight, new Fetch() {
+            @Override
+            public List<Record> fetch() {
+                return blockChain.all();
+            }
+        });
+        return new ArrayList<>(flight.await());
+    }
+
+    private void run(Object key, Flight flight, Fetch fetch) {
+        try {
+            flight.complete(fetch.fetch());
+        } catch (RuntimeException | Error e) {
+            flight.fail(e);
+        } finally {
+            flights.remove(key, flight);
+        }
+    }
+
+    private void send(Batch batch) {
+        batch.awaitClose();
+        synchronized (this) {
+            if (pending == batch)
+                pending = null;
+        }
+
+        // no more keys are added to a batch once it is no longer pending
+        Map<String, Flight> members = batch.members;
+        batches.incrementAndGet();
+        try {
+            Map<String, List<Record>> results = ((IMultiKeyBlockChain) blockChain).getAll(members.keySet());
+            for (Map.Entry<String, Flight> en : members.entrySet()) {
+                List<Record> result = results.get(en.getKey());
+                en.getValue().complete(result == null ? new ArrayList<Record>() : result);
+            }
+        } catch (RuntimeException | Error e) {
+            for (Flight flight : members.values())
+                flight.fail(e);
+        } finally {
+            for (Map.Entry<String, Flight> en : members.entrySet())
+                flights.remove(en.getKey(), en.getValue());
+        }
+    }
+
+    private interface Fetch {
+        List<Record> fetch();
+    }
+
+    /**
+     * A request that is in progress, callers wait for its result
+     */
+    private static class Flight {
+
+        private final CountDownLatch done = new CountDownLatch(1);
+        private volatile boolean batched = false;
+        private List<Record> result;
+        private Throwable failure;
+
+        boolean isBatched() {
+            return batched;
+        }
+
+        void complete(List<Record> result) {
+            this.result = result;
+            done.countDown();
+        }
+
+        void fail(Throwable failure) {
+            this.failure = failure;
+            done.countDown();
+        }
+
+        List<Record> await() {
+            try {
+                done.await();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new IllegalStateException("Interrupted while waiting for the blockchain", e);
+            }
+            if (failure instanceof RuntimeException)
+                throw (RuntimeException) failure;
+            if (failure instanceof Error)
+                throw (Error) failure;
+            return result;
+        }
+    }
+
+    /**
+     * Keys that are sent together, in the order they were asked for
+     */
+    private static class Batch {
+
+        private final long deadline;
+        private final Map<String, Flight> members = new LinkedHashMap<>();
+        private boolean closed = false;
+
+        Batch(long windowNanos) {
+            this.deadline = System.nanoTime() + windowNanos;
+        }
+
+        synchronized void add(String key, Flight flight) {
+            flight.batched = true;
+            members.put(key, flight);
+        }
+
+        synchronized int size() {
+            return members.size();
+        }
+
+        synchronized void close() {
+            closed = true;
+            notifyAll();
+        }
+
+        /**
+         * Wait until the batch is full or its window has passed
+         */
+        synchronized void awaitClose() {
+            boolean interrupted = false;
+            long remaining;
+            while (!closed && (remaining = deadline - System.nanoTime()) > 0) {
+                try {
+                    TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    // the other callers of the batch depend on it being sent
+                    interrupted = true;
+                }
+            }
+            closed = true;
+            if (interrupted)
+                Thread.currentThread().interrupt();
+        }
+    }
+}
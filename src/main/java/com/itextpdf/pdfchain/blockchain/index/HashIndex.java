@@ -0,0 +1,33 @@
+package com.itextpdf.pdfchain.blockchain.index;
+
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Index for equality lookups.
+ * Values are compared with equals, exactly like the BQL == operator does.
+ */
+class HashIndex {
+
+    private final Map<Object, RowList> rows = new HashMap<>();
+
+    void add(int row, Object value) {
+        if (value == null)
+            return;
+        RowList list = rows.get(value);
+        if (list == null) {
+            list = new RowList();
+            rows.put(value, list);
+        }
+        list.add(row);
+    }
+
+    BitSet lookup(Object value) {
+        BitSet out = new BitSet();
+        RowList list = rows.get(value);
+        if (list != null)
+            list.addTo(out);
+        return out;
+    }
+}
@@ -0,0 +1,158 @@
+package com.itextpdf.pdfchain.blockchain.index;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.RecordField;
+
+import java.util.ArrayList;
+import java.util.BitSet;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Keeps a local set of records, and secondary indexes over their fields.
+ * Every record gets a row number in order of arrival, indexes map values to rows.
+ * Indexes can be created at any time, and are kept up to date as records are added.
+ * Lookups return null when no index exists for a field, so callers can fall back to scanning.
+ */
+public class IndexManager {
+
+    private final List<Record> records = new ArrayList<>();
+    private final Map<String, HashIndex> hashIndexes = new HashMap<>();
+    private final Map<String, RangeIndex> rangeIndexes = new HashMap<>();
+    private final Map<String, PrefixIndex> prefixIndexes = new HashMap<>();
+
+    /**
+     * Create an index for == lookups on a field
+     *
+     * @param fieldName the name of the field
+     * @return this IndexManager
+     */
+    public synchronized IndexManager createHashIndex(String fieldName) {
+        if (!hashIndexes.containsKey(fieldName)) {
+            HashIndex index = new HashIndex();
+            RecordField field = RecordField.of(fieldName);
+            for (int row = 0; row < records.size(); row++)
+                index.add(row, field.get(records.get(row)));
+            hashIndexes.put(fieldName, index);
+        }
+        return this;
+    }
+
+    /**
+     * Create an index for &lt;, &lt;=, &gt; and &gt;= lookups on a numeric field
+     *
+     * @param fieldName the name of the field
+     * @return this IndexManager
+     */
+    public synchronized IndexManager createRangeIndex(String fieldName) {
+        if (!rangeIndexes.containsKey(fieldName)) {
+            RangeIndex index = new RangeIndex();
+            RecordField field = RecordField.of(fieldName);
+            for (int row = 0; row < records.size(); row++)
+                index.add(row, field.get(records.get(row)));
+            rangeIndexes.put(fieldName, index);
+        }
+        return this;
+    }
+
+    /**
+     * Create an index for STARTS_WITH lookups on a field
+     *
+     * @param fieldName the name of the field
+     * @return this IndexManager
+     */
+    public synchronized IndexManager createPrefixIndex(String fieldName) {
+        if (!prefixIndexes.containsKey(fieldName)) {
+            PrefixIndex index = new PrefixIndex();
+            RecordField field = RecordField.of(fieldName);
+            for (int row = 0; row < records.size(); row++)
+                index.add(row, field.get(records.get(row)));
+            prefixIndexes.put(fieldName, index);
+        }
+        return this;
+    }
+
+    /**
+     * Add a record, and update every index
+     *
+     * @param r the record
+     */
+    public synchronized void add(Record r) {
+        int row = records.size();
+        records.add(r);
+        for (Map.Entry<String, HashIndex> en : hashIndexes.entrySet())
+            en.getValue().add(row, r.get(en.getKey()));
+        for (Map.Entry<String, RangeIndex> en : rangeIndexes.entrySet())
+            en.getValue().add(row, r.get(en.getKey()));
+        for (Map.Entry<String, PrefixIndex> en : prefixIndexes.entrySet())
+            en.getValue().add(row, r.get(en.getKey()));
+    }
+
+    public synchronized int size() {
+        return records.size();
+    }
+
+    /**
+     * Look up the rows where a field equals a value
+     *
+     * @param fieldName the name of the field
+     * @param value     the value
+     * @return the matching rows, or null if the field has no hash index
+     */
+    public synchronized BitSet lookupEqual(String fieldName, Object value) {
+        HashIndex index = hashIndexes.get(fieldName);
+        return index == null ? null : index.lookup(value);
+    }
+
+    /**
+     * Look up the rows where a numeric field lies in a range
+     *
+     * @param fieldName     the name of the field
+     * @param from          lower bound, or null for no lower bound
+     * @param fromInclusive whether the lower bound itself is part of the range
+     * @param to            upper bound, or null for no upper bound
+     * @param toInclusive   whether the upper bound itself is part of the range
+     * @return the matching rows, or null if the field has no range index
+     */
+    public synchronized BitSet lookupRange(String fieldName, Number from, boolean fromInclusive, Number to, boolean toInclusive) {
+        RangeIndex index = rangeIndexes.get(fieldName);
+        if (index == null)
+            return null;
+        return index.lookup(from == null ? null : from.doubleValue(), fromInclusive, to == null ? null : to.doubleValue(), toInclusive);
+    }
+
+    /**
+     * Look up the rows where a field starts with a prefix
+     *
+     * @param fieldName the name of the field
+     * @param prefix    the prefix
+     * @return the matching rows, or null if the field has no prefix index
+     */
+    public synchronized BitSet lookupPrefix(String fieldName, String prefix) {
+        PrefixIndex index = prefixIndexes.get(fieldName);
+        return index == null ? null : index.lookup(prefix);
+    }
+
+    /**
+     * Get the records in a set of rows
+     *
+     * @param rows the rows
+     * @return the records, in order of arrival
+     */
+    public synchronized List<Record> getRecords(BitSet rows) {
+        List<Record> out = new ArrayList<>(rows.cardinality());
+        for (int row = rows.nextSetBit(0); row >= 0; row = rows.nextSetBit(row + 1))
+            out.add(records.get(row));
+        return out;
+    }
+
+    /**
+     * Get all records
+     *
+     * @return a copy of the List of records, in order of arrival
+     */
+    public synchronized List<Record> getRecords() {
+        return new ArrayList<>(records);
+    }
+}
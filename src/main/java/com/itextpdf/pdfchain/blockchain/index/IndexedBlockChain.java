@@ -0,0 +1,90 @@
+package com.itextpdf.pdfchain.blockchain.index;
+
+import com.itextpdf.pdfchain.blockchain.IBlockChain;
+import com.itextpdf.pdfchain.blockchain.IStreamBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+
+import java.util.BitSet;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * IBlockChain that keeps a local, indexed copy of the items on another IBlockChain.
+ * Reads are served from the local copy, writes go to the underlying chain.
+ * Call refresh to pick up items that arrived on the chain since the last refresh,
+ * the values of an item (including its confirmations) are those at the moment it was first seen.
+ * BQLExecutor uses the indexes of the IndexManager automatically.
+ */
+public class IndexedBlockChain implements IBlockChain {
+
+    private final IBlockChain blockChain;
+    private final IndexManager indexes = new IndexManager();
+    private final Set<Object> seen = new HashSet<>();
+    // the number of items of an IStreamBlockChain in the local copy
+    private int indexedCount = 0;
+
+    public IndexedBlockChain(IBlockChain blockChain) {
+        this.blockChain = blockChain;
+        // get(key) looks up items by id1
+        this.indexes.createHashIndex("id1");
+    }
+
+    public IndexManager getIndexManager() {
+        return indexes;
+    }
+
+    /**
+     * Add the items that are on the underlying chain, but not yet in the local copy.
+     * If the chain is an IStreamBlockChain, only the items published since the last refresh are fetched,
+     * otherwise every item is fetched and the ones that were seen before are skipped.
+     *
+     * @return the number of items that were added
+     */
+    public synchronized int refresh() {
+        if (blockChain instanceof IStreamBlockChain)
+            return refreshStream((IStreamBlockChain) blockChain);
+        int added = 0;
+        for (Record r : blockChain.all()) {
+            // items are identified by their transaction, if they have one
+            Object identity = r.containsKey("txid") ? r.get("txid") : r;
+            if (seen.add(identity)) {
+                indexes.add(r);
+                added++;
+            }
+        }
+        return added;
+    }
+
+    private int refreshStream(IStreamBlockChain chain) {
+        int size = chain.size();
+        int added = 0;
+        while (indexedCount < size) {
+            // the node may return fewer items than asked for
+            List<Record> items = chain.range(indexedCount, size - indexedCount);
+            if (items.isEmpty())
+                break;
+            for (Record r : items)
+                indexes.add(r);
+            indexedCount += items.size();
+            added += items.size();
+        }
+        return added;
+    }
+
+    @Override
+    public boolean put(String key, Record data) {
+        return blockChain.put(key, data);
+    }
+
+    @Override
+    public List<Record> get(String key) {
+        BitSet rows = indexes.lookupEqual("id1", key);
+        return indexes.getRecords(rows);
+    }
+
+    @Override
+    public List<Record> all() {
+        return indexes.getRecords();
+    }
+}
@@ -0,0 +1,38 @@
+package com.itextpdf.pdfchain.blockchain.index;
+
+import java.util.BitSet;
+import java.util.Map;
+import java.util.TreeMap;
+
+/**
+ * Index for prefix lookups.
+ * All strings that start with a given prefix form a contiguous range in a sorted map,
+ * so a lookup is a single seek followed by a scan over the matching keys only.
+ * Values are indexed by their String representation, exactly like STARTS_WITH matches them.
+ */
+class PrefixIndex {
+
+    private final TreeMap<String, RowList> rows = new TreeMap<>();
+
+    void add(int row, Object value) {
+        if (value == null)
+            return;
+        String key = value.toString();
+        RowList list = rows.get(key);
+        if (list == null) {
+            list = new RowList();
+            rows.put(key, list);
+        }
+        list.add(row);
+    }
+
+    BitSet lookup(String prefix) {
+        BitSet out = new BitSet();
+        for (Map.Entry<String, RowList> en : rows.tailMap(prefix, true).entrySet()) {
+            if (!en.getKey().startsWith(prefix))
+                break;
+            en.getValue().addTo(out);
+        }
+        return out;
+    }
+}
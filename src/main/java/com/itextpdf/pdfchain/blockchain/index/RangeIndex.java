@@ -0,0 +1,50 @@
+package com.itextpdf.pdfchain.blockchain.index;
+
+import java.util.BitSet;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * Index for range lookups on numeric fields.
+ * Values are ordered by their double value, exactly like the BQL relational operators compare them.
+ * Values that are not a Number are not indexed, since they never pass a relational operator either.
+ */
+class RangeIndex {
+
+    private final ConcurrentSkipListMap<Double, RowList> rows = new ConcurrentSkipListMap<>();
+
+    void add(int row, Object value) {
+        if (!(value instanceof Number))
+            return;
+        Double key = ((Number) value).doubleValue();
+        RowList list = rows.get(key);
+        if (list == null) {
+            list = new RowList();
+            rows.put(key, list);
+        }
+        list.add(row);
+    }
+
+    /**
+     * Look up the rows with a value in a range
+     *
+     * @param from          lower bound, or null for no lower bound
+     * @param fromInclusive whether the lower bound itself is part of the range
+     * @param to            upper bound, or null for no upper bound
+     * @param toInclusive   whether the upper bound itself is part of the range
+     * @return the rows with a value in the range
+     */
+    BitSet lookup(Double from, boolean fromInclusive, Double to, boolean toInclusive) {
+        BitSet out = new BitSet();
+        if (from != null && to != null && from.compareTo(to) > 0)
+            return out;
+        NavigableMap<Double, RowList> range = rows;
+        if (from != null)
+            range = range.tailMap(from, fromInclusive);
+        if (to != null)
+            range = range.headMap(to, toInclusive);
+        for (RowList list : range.values())
+            list.addTo(out);
+        return out;
+    }
+}
@@ -0,0 +1,28 @@
+package com.itextpdf.pdfchain.blockchain.index;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Growable list of row numbers, rows are always appended in increasing order
+ */
+class RowList {
+
+    private int[] rows = new int[2];
+    private int size = 0;
+
+    void add(int row) {
+        if (size == rows.length)
+            rows = Arrays.copyOf(rows, size * 2);
+        rows[size++] = row;
+    }
+
+    int size() {
+        return size;
+    }
+
+    void addTo(BitSet out) {
+        for (int i = 0; i < size; i++)
+            out.set(rows[i]);
+    }
+}
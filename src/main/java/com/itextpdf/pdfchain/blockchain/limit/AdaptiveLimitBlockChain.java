@@ -0,0 +1,258 @@
+package com.itextpdf.pdfchain.blockchain.limit;
+
+import com.itextpdf.pdfchain.blockchain.IBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IBlockChain that limits the number of puts sent to another IBlockChain at the same time,
+ * and adapts the limit to how the chain copes (additive increase, multiplicative decrease).
+ * A put that succeeds in less than the latency tolerance times the lowest recent latency raises the limit
+ * by one over the course of about limit puts, as long as the limit is actually being used.
+ * A put that fails, or that takes longer than that, lowers the limit by the backoff ratio,
+ * at most once for all puts that were started before the previous decrease.
+ * Callers that find the limit reached either wait for a slot, or are rejected and get false straight away.
+ * Reads are not limited.
+ */
+public class AdaptiveLimitBlockChain implements IBlockChain {
+
+    public enum Mode {
+        /**
+         * Wait for a slot, up to the maximum wait
+         */
+        BLOCK,
+        /**
+         * Return false without calling the underlying chain
+         */
+        REJECT
+    }
+
+    // the lowest latency is taken over windows of this many puts, so it follows the node when it gets slower
+    private static final int LATENCY_WINDOW = 500;
+
+    private final IBlockChain blockChain;
+
+    private volatile Mode mode = Mode.BLOCK;
+    private volatile long maxWaitNanos = Long.MAX_VALUE;
+    private volatile double backoffRatio = 0.9;
+    private volatile double latencyTolerance = 2.0;
+    private volatile ILimitListener listener;
+
+    // guarded by this
+    private int minLimit = 1;
+    private int maxLimit = 64;
+    private double limit = 8;
+    private int inFlight = 0;
+    private long lastDecrease = Long.MIN_VALUE;
+    private long minLatency = Long.MAX_VALUE;
+    private long windowMinLatency = Long.MAX_VALUE;
+    private int windowCount = 0;
+
+    private final AtomicLong rejected = new AtomicLong();
+
+    public AdaptiveLimitBlockChain(IBlockChain blockChain) {
+        if (blockChain == null)
+            throw new IllegalArgumentException("blockChain must not be null");
+        this.blockChain = blockChain;
+    }
+
+    /**
+     * Set what happens to a put when the limit is reached
+     *
+     * @param mode BLOCK by default
+     * @return this AdaptiveLimitBlockChain
+     */
+    public AdaptiveLimitBlockChain setMode(Mode mode) {
+        if (mode == null)
+            throw new IllegalArgumentException("mode must not be null");
+        this.mode = mode;
+        return this;
+    }
+
+    /**
+     * Set how long a put waits for a slot in BLOCK mode, before it gives up and returns false
+     *
+     * @param maxWait the maximum wait, unlimited by default
+     * @param unit    the unit of maxWait
+     * @return this AdaptiveLimitBlockChain
+     */
+    public AdaptiveLimitBlockChain setMaxWait(long maxWait, TimeUnit unit) {
+        if (maxWait < 0)
+            throw new IllegalArgumentException("maxWait must not be negative");
+        this.maxWaitNanos = unit.toNanos(maxWait);
+        return this;
+    }
+
+    /**
+     * Set the range the limit adapts within
+     *
+     * @param initial the limit to start with, 8 by default
+     * @param min     the lowest limit, 1 by default
+     * @param max     the highest limit, 64 by default
+     * @return this AdaptiveLimitBlockChain
+     */
+    public synchronized AdaptiveLimitBlockChain setLimits(int initial, int min, int max) {
+        if (min < 1 || initial < min || max < initial)
+            throw new IllegalArgumentException("limits must satisfy 1 <= min <= initial <= max");
+        this.minLimit = min;
+        this.maxLimit = max;
+        this.limit = initial;
+        notifyAll();
+        return this;
+    }
+
+    /**
+     * Set the factor the limit is multiplied with when a put fails or is too slow
+     *
+     * @param backoffRatio a factor in (0, 1), 0.9 by default
+     * @return this AdaptiveLimitBlockChain
+     */
+    public AdaptiveLimitBlockChain setBackoffRatio(double backoffRatio) {
+        if (backoffRatio <= 0 || backoffRatio >= 1)
+            throw new IllegalArgumentException("backoffRatio must be in (0, 1)");
+        this.backoffRatio = backoffRatio;
+        return this;
+    }
+
+    /**
+     * Set how much slower than the lowest recent latency a put may be before it counts as a sign of overload
+     *
+     * @param latencyTolerance a factor of at least 1, 2 by default
+     * @return this AdaptiveLimitBlockChain
+     */
+    public AdaptiveLimitBlockChain setLatencyTolerance(double latencyTolerance) {
+        if (latencyTolerance < 1)
+            throw new IllegalArgumentException("latencyTolerance must be at least 1");
+        this.latencyTolerance = latencyTolerance;
+        return this;
+    }
+
+    /**
+     * Set the listener that is told when the limit changes, so producers can slow down before they are blocked
+     *
+     * @param listener the listener, or null
+     * @return this AdaptiveLimitBlockChain
+     */
+    public AdaptiveLimitBlockChain setListener(ILimitListener listener) {
+        this.listener = listener;
+        return this;
+    }
+
+    public synchronized int getLimit() {
+        return (int) limit;
+    }
+
+    public synchronized int getInFlight() {
+        return inFlight;
+    }
+
+    /**
+     * Get the lowest latency of a put in the current window
+     *
+     * @return the latency in microseconds, or -1 if no put completed yet
+     */
+    public synchronized long getMinLatency() {
+        return minLatency == Long.MAX_VALUE ? -1 : TimeUnit.NANOSECONDS.toMicros(minLatency);
+    }
+
+    /**
+     * Get the number of puts that were turned away because the limit was reached
+     *
+     * @return the number of rejected puts, including puts that waited longer than the maximum wait
+     */
+    public long getRejected() {
+        return rejected.get();
+    }
+
+    @Override
+    public boolean put(String key, Record data) {
+        if (!acquire()) {
+            rejected.incrementAndGet();
+            return false;
+        }
+        long start = System.nanoTime();
+        boolean success = false;
+        try {
+            success = blockChain.put(key, data);
+            return success;
+        } finally {
+            release(start, System.nanoTime() - start, success);
+        }
+    }
+
+    @Override
+    public List<Record> get(String key) {
+        return blockChain.get(key);
+    }
+
+    @Override
+    public List<Record> all() {
+        return blockChain.all();
+    }
+
+    private synchronized boolean acquire() {
+        if (inFlight >= (int) limit) {
+            if (mode == Mode.REJECT)
+                return false;
+            long wait = maxWaitNanos;
+            long deadline = wait == Long.MAX_VALUE ? Long.MAX_VALUE : System.nanoTime() + wait;
+            while (inFlight >= (int) limit) {
+                long remaining = deadline == Long.MAX_VALUE ? Long.MAX_VALUE : deadline - System.nanoTime();
+                if (remaining <= 0)
+                    return false;
+                try {
+                    if (remaining == Long.MAX_VALUE)
+                        wait();
+                    else
+                        TimeUnit.NANOSECONDS.timedWait(this, remaining);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while waiting to put on the blockchain", e);
+                }
+            }
+        }
+        inFlight++;
+        return true;
+    }
+
+    private void release(long start, long latency, boolean success) {
+        int previous;
+        int current;
+        synchronized (this) {
+            previous = (int) limit;
+            boolean saturated = inFlight * 2 >= limit;
+            inFlight--;
+
+            if (success)
+                recordLatency(latency);
+            boolean overloaded = !success || latency > minLatency * latencyTolerance;
+            if (overloaded) {
+                // one decrease per round of puts, puts that were already running when the limit was lowered do not count
+                if (start > lastDecrease) {
+                    limit = Math.max(minLimit, limit * backoffRatio);
+                    lastDecrease = System.nanoTime();
+                }
+            } else if (saturated) {
+                limit = Math.min(maxLimit, limit + 1 / limit);
+            }
+            current = (int) limit;
+            notifyAll();
+        }
+        ILimitListener l = listener;
+        if (l != null && previous != current)
+            l.onLimitChanged(previous, current);
+    }
+
+    private void recordLatency(long latency) {
+        windowMinLatency = Math.min(windowMinLatency, latency);
+        minLatency = Math.min(minLatency, latency);
+        if (++windowCount >= LATENCY_WINDOW) {
+            minLatency = windowMinLatency;
+            windowMinLatency = Long.MAX_VALUE;
+            windowCount = 0;
+        }
+    }
+}
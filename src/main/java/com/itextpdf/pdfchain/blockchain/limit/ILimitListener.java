@@ -0,0 +1,15 @@
+package com.itextpdf.pdfchain.blockchain.limit;
+
+/**
+ * Listener that is told when an AdaptiveLimitBlockChain changes the number of writes it lets through at the same time
+ */
+public interface ILimitListener {
+
+    /**
+     * Called after the limit changed, outside of any lock of the AdaptiveLimitBlockChain
+     *
+     * @param previous the previous limit
+     * @param limit    the new limit
+     */
+    void onLimitChanged(int previous, int limit);
+}
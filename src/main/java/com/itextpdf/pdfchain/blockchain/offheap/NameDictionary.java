@@ -0,0 +1,63 @@
+package com.itextpdf.pdfchain.blockchain.offheap;
+
+import com.itextpdf.pdfchain.blockchain.RecordSchema;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Maps field names to the short ids they are encoded with
+ */
+final class NameDictionary {
+
+    private final ConcurrentMap<String, Integer> ids = new ConcurrentHashMap<>();
+    private final List<String> names = new ArrayList<>();
+
+    // id of the name of every fixed field of a Record, or -1
+    private final int[] slotIds = new int[RecordSchema.size()];
+
+    NameDictionary() {
+        for (int slot = 0; slot < slotIds.length; slot++)
+            slotIds[slot] = -1;
+    }
+
+    /**
+     * Get the id of a name, adding the name if needed
+     */
+    synchronized int idOf(String name) {
+        Integer id = ids.get(name);
+        if (id != null)
+            return id;
+        if (names.size() > Short.MAX_VALUE)
+            throw new IllegalStateException("Too many distinct field names");
+        id = names.size();
+        names.add(RecordSchema.intern(name));
+        ids.put(name, id);
+        int slot = RecordSchema.slotOf(name);
+        if (slot >= 0)
+            slotIds[slot] = id;
+        return id;
+    }
+
+    /**
+     * Get the id of a name
+     *
+     * @return the id, or -1 if no record has a field with this name
+     */
+    int find(Object name) {
+        if (name == null)
+            return -1;
+        Integer id = ids.get(name);
+        return id == null ? -1 : id;
+    }
+
+    int findSlot(int slot) {
+        return slotIds[slot];
+    }
+
+    synchronized String nameOf(int id) {
+        return names.get(id);
+    }
+}
@@ -0,0 +1,158 @@
+package com.itextpdf.pdfchain.blockchain.offheap;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+
+import java.io.ObjectStreamException;
+import java.nio.ByteBuffer;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Record that reads its fields from an encoded record in an OffHeapRecordStore, decoding a field only when it is read.
+ * The first modification decodes every field, after which this record no longer depends on the store.
+ */
+class OffHeapRecord extends Record {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient NameDictionary names;
+    private transient ByteBuffer buffer;
+    private transient int position;
+
+    OffHeapRecord(NameDictionary names, ByteBuffer buffer, int position) {
+        this.names = names;
+        this.buffer = buffer;
+        this.position = position;
+    }
+
+    @Override
+    public Object get(int slot) {
+        if (buffer == null)
+            return super.get(slot);
+        return read(names.findSlot(slot));
+    }
+
+    @Override
+    public boolean has(int slot) {
+        if (buffer == null)
+            return super.has(slot);
+        int id = names.findSlot(slot);
+        return id >= 0 && RecordCodec.find(buffer, position, id) >= 0;
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (buffer == null)
+            return super.get(key);
+        return read(names.find(key));
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (buffer == null)
+            return super.containsKey(key);
+        int id = names.find(key);
+        return id >= 0 && RecordCodec.find(buffer, position, id) >= 0;
+    }
+
+    @Override
+    public int size() {
+        if (buffer == null)
+            return super.size();
+        return RecordCodec.fieldCount(buffer, position);
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (buffer == null)
+            return super.entrySet();
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new FieldIterator();
+            }
+
+            @Override
+            public int size() {
+                return OffHeapRecord.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        materialize();
+        return super.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        materialize();
+        return super.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        names = null;
+        buffer = null;
+        super.clear();
+    }
+
+    private Object read(int id) {
+        if (id < 0)
+            return null;
+        int p = RecordCodec.find(buffer, position, id);
+        return p < 0 ? null : RecordCodec.readValue(buffer, p);
+    }
+
+    private void materialize() {
+        if (buffer == null)
+            return;
+        ByteBuffer b = buffer;
+        buffer = null;
+        RecordCodec.decodeAll(b, position, names, this);
+        names = null;
+    }
+
+    /**
+     * Serialize as a plain Record holding the decoded fields
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return new Record(this);
+    }
+
+    /**
+     * Iterates over the encoded fields in the order they were stored, read-only
+     */
+    private class FieldIterator implements Iterator<Map.Entry<String, Object>> {
+
+        private final int count = RecordCodec.fieldCount(buffer, position);
+        private int index = 0;
+        private int next = position + 2;
+
+        @Override
+        public boolean hasNext() {
+            return index < count;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            String name = names.nameOf(buffer.getShort(next));
+            Object value = RecordCodec.readValue(buffer, next + 2);
+            next = RecordCodec.skipValue(buffer, next + 2);
+            index++;
+            return new AbstractMap.SimpleImmutableEntry<>(name, value);
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -0,0 +1,190 @@
+package com.itextpdf.pdfchain.blockchain.offheap;
+
+import com.itextpdf.pdfchain.blockchain.IBlockChain;
+import com.itextpdf.pdfchain.blockchain.IStreamBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.RecordSchema;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.RandomAccess;
+
+/**
+ * IBlockChain that keeps its records encoded in direct ByteBuffers, outside of the Java heap.
+ * The heap only holds an offset per record, the key index and the dictionary of field names.
+ * Records returned by get and all decode a field when it is read, so a BQL query only decodes the fields it touches.
+ * Memory is allocated in chunks and released when the store is garbage collected.
+ */
+public class OffHeapRecordStore implements IStreamBlockChain {
+
+    private static final int DEFAULT_CHUNK_SIZE = 16 * 1024 * 1024;
+
+    private final int chunkSize;
+    private final NameDictionary names = new NameDictionary();
+
+    private final List<ByteBuffer> chunks = new ArrayList<>();
+    private ByteBuffer writer;
+    private long allocated = 0;
+
+    // chunk index in the high 32 bits, position in the chunk in the low 32 bits
+    private long[] offsets = new long[1024];
+    private int count = 0;
+
+    private final Map<String, Rows> keys = new HashMap<>();
+
+    public OffHeapRecordStore() {
+        this(DEFAULT_CHUNK_SIZE);
+    }
+
+    /**
+     * @param chunkSize the number of bytes allocated at once, a record larger than this gets a chunk of its own
+     */
+    public OffHeapRecordStore(int chunkSize) {
+        if (chunkSize <= 0)
+            throw new IllegalArgumentException("chunkSize must be positive");
+        this.chunkSize = chunkSize;
+    }
+
+    /**
+     * Copy every record of another chain into this store, keyed by their id1
+     *
+     * @param source the chain
+     * @return the number of records that were copied
+     */
+    public int load(IBlockChain source) {
+        List<Record> records = source.all();
+        for (Record r : records) {
+            Object id1 = r.get(RecordSchema.ID1);
+            put(id1 == null ? null : id1.toString(), r);
+        }
+        return records.size();
+    }
+
+    @Override
+    public synchronized boolean put(String key, Record data) {
+        byte[] encoded = RecordCodec.encode(data, names);
+        if (writer == null || writer.remaining() < encoded.length) {
+            ByteBuffer chunk = ByteBuffer.allocateDirect(Math.max(chunkSize, encoded.length));
+            chunks.add(chunk);
+            allocated += chunk.capacity();
+            // records are written through a duplicate, readers only use absolute reads on the chunk itself
+            writer = chunk.duplicate();
+        }
+        int position = writer.position();
+        writer.put(encoded);
+
+        if (count == offsets.length)
+            offsets = Arrays.copyOf(offsets, count * 2);
+        offsets[count] = ((long) (chunks.size() - 1) << 32) | position;
+
+        if (key != null) {
+            Rows rows = keys.get(key);
+            if (rows == null) {
+                rows = new Rows();
+                keys.put(key, rows);
+            }
+            rows.add(count);
+        }
+        count++;
+        return true;
+    }
+
+    @Override
+    public synchronized List<Record> get(String key) {
+        Rows rows = keys.get(key);
+        List<Record> out = new ArrayList<>(rows == null ? 0 : rows.size);
+        if (rows != null) {
+            for (int i = 0; i < rows.size; i++)
+                out.add(record(offsets[rows.rows[i]]));
+        }
+        return out;
+    }
+
+    @Override
+    public synchronized List<Record> all() {
+        return new View(chunks.toArray(new ByteBuffer[chunks.size()]), offsets, 0, count);
+    }
+
+    @Override
+    public synchronized int size() {
+        return count;
+    }
+
+    /**
+     * Every record is put in a block of its own
+     */
+    @Override
+    public synchronized long height() {
+        return count;
+    }
+
+    @Override
+    public synchronized List<Record> range(int start, int count) {
+        int end = Math.min(this.count, start + count);
+        return new View(chunks.toArray(new ByteBuffer[chunks.size()]), offsets, start, Math.max(start, end));
+    }
+
+    /**
+     * Get the amount of off-heap memory held by this store
+     *
+     * @return the number of bytes allocated
+     */
+    public synchronized long getAllocatedBytes() {
+        return allocated;
+    }
+
+    private Record record(long offset) {
+        return new OffHeapRecord(names, chunks.get((int) (offset >>> 32)), (int) offset);
+    }
+
+    /**
+     * Read-only list over a range of records, the records are created when they are read
+     */
+    private class View extends AbstractList<Record> implements RandomAccess {
+
+        private final ByteBuffer[] chunks;
+        private final long[] offsets;
+        private final int from;
+        private final int to;
+
+        View(ByteBuffer[] chunks, long[] offsets, int from, int to) {
+            this.chunks = chunks;
+            this.offsets = offsets;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        public Record get(int index) {
+            if (index < 0 || index >= to - from)
+                throw new IndexOutOfBoundsException("Index: " + index + ", Size: " + size());
+            long offset = offsets[from + index];
+            return new OffHeapRecord(names, chunks[(int) (offset >>> 32)], (int) offset);
+        }
+
+        @Override
+        public int size() {
+            return to - from;
+        }
+    }
+
+    /**
+     * Growable list of row numbers
+     */
+    private static class Rows {
+
+        private int[] rows = new int[2];
+        private int size = 0;
+
+        void add(int row) {
+            if (size == rows.length)
+                rows = Arrays.copyOf(rows, size * 2);
+            rows[size++] = row;
+        }
+    }
+}
@@ -0,0 +1,238 @@
+package com.itextpdf.pdfchain.blockchain.offheap;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.math.BigDecimal;
+import java.math.BigInteger;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Binary encoding of records.
+ * A record is encoded as [short fieldCount] followed by [short nameId][value] for every field,
+ * a value is a type byte followed by its payload. Variable length payloads start with their length in bytes,
+ * so a field can be skipped without decoding it.
+ */
+final class RecordCodec {
+
+    private static final Charset UTF8 = Charset.forName("UTF-8");
+
+    private static final byte NULL = 0;
+    private static final byte INT = 1;
+    private static final byte LONG = 2;
+    private static final byte DOUBLE = 3;
+    private static final byte FLOAT = 4;
+    private static final byte TRUE = 5;
+    private static final byte FALSE = 6;
+    private static final byte STRING = 7;
+    private static final byte BIG_INTEGER = 8;
+    private static final byte BIG_DECIMAL = 9;
+    private static final byte LIST = 10;
+    private static final byte MAP = 11;
+
+    private RecordCodec() {
+    }
+
+    /**
+     * Encode a record
+     *
+     * @param r     the record
+     * @param names the dictionary that maps field names to ids, new names are added to it
+     * @return the encoded record
+     */
+    static byte[] encode(Map<String, Object> r, NameDictionary names) {
+        try {
+            ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+            DataOutputStream out = new DataOutputStream(bytes);
+            out.writeShort(r.size());
+            for (Map.Entry<String, Object> en : r.entrySet()) {
+                out.writeShort(names.idOf(en.getKey()));
+                writeValue(out, en.getValue());
+            }
+            out.flush();
+            return bytes.toByteArray();
+        } catch (IOException e) {
+            // a ByteArrayOutputStream does not throw
+            throw new IllegalStateException(e);
+        }
+    }
+
+    private static void writeValue(DataOutputStream out, Object value) throws IOException {
+        if (value == null) {
+            out.writeByte(NULL);
+        } else if (value instanceof Integer) {
+            out.writeByte(INT);
+            out.writeInt((Integer) value);
+        } else if (value instanceof Long) {
+            out.writeByte(LONG);
+            out.writeLong((Long) value);
+        } else if (value instanceof Double) {
+            out.writeByte(DOUBLE);
+            out.writeDouble((Double) value);
+        } else if (value instanceof Float) {
+            out.writeByte(FLOAT);
+            out.writeFloat((Float) value);
+        } else if (value instanceof Boolean) {
+            out.writeByte((Boolean) value ? TRUE : FALSE);
+        } else if (value instanceof String) {
+            out.writeByte(STRING);
+            writeString(out, (String) value);
+        } else if (value instanceof BigInteger) {
+            out.writeByte(BIG_INTEGER);
+            writeString(out, value.toString());
+        } else if (value instanceof BigDecimal) {
+            out.writeByte(BIG_DECIMAL);
+            writeString(out, value.toString());
+        } else if (value instanceof List) {
+            ByteArrayOutputStream nested = new ByteArrayOutputStream();
+            DataOutputStream nestedOut = new DataOutputStream(nested);
+            nestedOut.writeInt(((List<?>) value).size());
+            for (Object element : (List<?>) value)
+                writeValue(nestedOut, element);
+            nestedOut.flush();
+            out.writeByte(LIST);
+            out.writeInt(nested.size());
+            nested.writeTo(out);
+        } else if (value instanceof Map) {
+            ByteArrayOutputStream nested = new ByteArrayOutputStream();
+            DataOutputStream nestedOut = new DataOutputStream(nested);
+            nestedOut.writeInt(((Map<?, ?>) value).size());
+            for (Map.Entry<?, ?> en : ((Map<?, ?>) value).entrySet()) {
+                writeString(nestedOut, String.valueOf(en.getKey()));
+                writeValue(nestedOut, en.getValue());
+            }
+            nestedOut.flush();
+            out.writeByte(MAP);
+            out.writeInt(nested.size());
+            nested.writeTo(out);
+        } else {
+            throw new IllegalArgumentException("Unsupported value type " + value.getClass().getName());
+        }
+    }
+
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(UTF8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    static int fieldCount(ByteBuffer buf, int recordPos) {
+        return buf.getShort(recordPos);
+    }
+
+    /**
+     * Find a field in an encoded record
+     *
+     * @param buf       the buffer holding the record
+     * @param recordPos the position of the record
+     * @param nameId    the id of the field name
+     * @return the position of the value of the field, or -1 if the record does not have the field
+     */
+    static int find(ByteBuffer buf, int recordPos, int nameId) {
+        int count = buf.getShort(recordPos);
+        int p = recordPos + 2;
+        for (int i = 0; i < count; i++) {
+            if (buf.getShort(p) == nameId)
+                return p + 2;
+            p = skipValue(buf, p + 2);
+        }
+        return -1;
+    }
+
+    /**
+     * Decode every field of an encoded record
+     *
+     * @param buf       the buffer holding the record
+     * @param recordPos the position of the record
+     * @param names     the dictionary the record was encoded with
+     * @param out       the map the fields are put in
+     */
+    static void decodeAll(ByteBuffer buf, int recordPos, NameDictionary names, Map<String, Object> out) {
+        int count = buf.getShort(recordPos);
+        int p = recordPos + 2;
+        for (int i = 0; i < count; i++) {
+            String name = names.nameOf(buf.getShort(p));
+            out.put(name, readValue(buf, p + 2));
+            p = skipValue(buf, p + 2);
+        }
+    }
+
+    static int skipValue(ByteBuffer buf, int p) {
+        switch (buf.get(p)) {
+            case INT:
+            case FLOAT:
+                return p + 5;
+            case LONG:
+            case DOUBLE:
+                return p + 9;
+            case STRING:
+            case BIG_INTEGER:
+            case BIG_DECIMAL:
+            case LIST:
+            case MAP:
+                return p + 5 + buf.getInt(p + 1);
+            default:
+                return p + 1;
+        }
+    }
+
+    static Object readValue(ByteBuffer buf, int p) {
+        switch (buf.get(p)) {
+            case INT:
+                return buf.getInt(p + 1);
+            case LONG:
+                return buf.getLong(p + 1);
+            case DOUBLE:
+                return buf.getDouble(p + 1);
+            case FLOAT:
+                return buf.getFloat(p + 1);
+            case TRUE:
+                return Boolean.TRUE;
+            case FALSE:
+                return Boolean.FALSE;
+            case STRING:
+                return readString(buf, p + 1);
+            case BIG_INTEGER:
+                return new BigInteger(readString(buf, p + 1));
+            case BIG_DECIMAL:
+                return new BigDecimal(readString(buf, p + 1));
+            case LIST: {
+                int count = buf.getInt(p + 5);
+                List<Object> out = new ArrayList<>(count);
+                int q = p + 9;
+                for (int i = 0; i < count; i++) {
+                    out.add(readValue(buf, q));
+                    q = skipValue(buf, q);
+                }
+                return out;
+            }
+            case MAP: {
+                int count = buf.getInt(p + 5);
+                Map<String, Object> out = new HashMap<>();
+                int q = p + 9;
+                for (int i = 0; i < count; i++) {
+                    String key = readString(buf, q);
+                    q += 4 + buf.getInt(q);
+                    out.put(key, readValue(buf, q));
+                    q = skipValue(buf, q);
+                }
+                return out;
+            }
+            default:
+                return null;
+        }
+    }
+
+    private static String readString(ByteBuffer buf, int p) {
+        byte[] bytes = new byte[buf.getInt(p)];
+        ByteBuffer view = buf.duplicate();
+        view.position(p + 4);
+        view.get(bytes);
+        return new String(bytes, UTF8);
+    }
+}
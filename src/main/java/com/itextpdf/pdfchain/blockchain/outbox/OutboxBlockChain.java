@@ -0,0 +1,487 @@
+package com.itextpdf.pdfchain.blockchain.outbox;
+
+import com.itextpdf.pdfchain.blockchain.IBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+import org.json.JSONException;
+import org.json.JSONObject;
+
+import java.io.ByteArrayOutputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.RandomAccessFile;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IBlockChain that writes every put to a local append-only log and publishes it to another IBlockChain in the background.
+ * A put returns as soon as its record is on disk, concurrent puts share a single fsync.
+ * A publisher thread sends the logged records to the underlying chain in order, retrying with exponential backoff
+ * for as long as the chain refuses or fails them, and stores how far it got in a second file after every batch.
+ * Records that were logged but not published when the process stopped are published when the outbox is opened again.
+ * A record may be published twice if the process stops between publishing it and storing the offset.
+ * A record that can not be decoded is skipped and counted, so it does not hold up the records after it.
+ * Reads go to the underlying chain, so they only see records that were published.
+ */
+public class OutboxBlockChain implements IBlockChain, Closeable {
+
+    // the log is read back in chunks of this size
+    private static final int READ_CHUNK = 1 << 20;
+
+    private final IBlockChain blockChain;
+    private final File logFile;
+    private final File offsetFile;
+    // RandomAccessFile rather than FileChannel, an interrupted caller must not close the log for everyone
+    private final RandomAccessFile log;
+    private final RandomAccessFile reader;
+    private final RandomAccessFile offset;
+
+    // positions only grow, the file holds the log from base on, which moves up whenever the log is emptied
+    private final Object appendLock = new Object();
+    private final Object syncLock = new Object();
+    private long base;          // guarded by appendLock, only changed by the publisher
+    private volatile long written;  // guarded by appendLock
+    private long synced;        // guarded by syncLock
+    private boolean syncing = false;
+    private volatile long published;  // only changed by the publisher
+
+    private volatile int batchSize = 256;
+    private volatile long initialBackoffNanos = TimeUnit.MILLISECONDS.toNanos(100);
+    private volatile long maxBackoffNanos = TimeUnit.SECONDS.toNanos(30);
+
+    private final AtomicLong pending = new AtomicLong();
+    private final AtomicLong publishedRecords = new AtomicLong();
+    private final AtomicLong retries = new AtomicLong();
+    private final AtomicLong skipped = new AtomicLong();
+
+    private volatile boolean closed = false;
+    private final Thread publisher;
+
+    /**
+     * Open an outbox, and start publishing the records that are already in it
+     *
+     * @param blockChain the chain records are published to
+     * @param logFile    the log, it is created if it does not exist, the offset is kept next to it in logFile.offset
+     * @throws IOException if the log could not be opened or read
+     */
+    public OutboxBlockChain(IBlockChain blockChain, File logFile) throws IOException {
+        if (blockChain == null || logFile == null)
+            throw new IllegalArgumentException("blockChain and logFile must not be null");
+        this.blockChain = blockChain;
+        this.logFile = logFile;
+        this.offsetFile = new File(logFile.getPath() + ".offset");
+        this.log = new RandomAccessFile(logFile, "rw");
+        this.reader = new RandomAccessFile(logFile, "r");
+        this.offset = new RandomAccessFile(offsetFile, "rw");
+        recover();
+
+        publisher = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                publish();
+            }
+        }, "outbox-publisher");
+        publisher.setDaemon(true);
+        publisher.start();
+    }
+
+    /**
+     * Set the maximum number of records published before the offset is stored
+     *
+     * @param batchSize the number of records, 256 by default
+     * @return this OutboxBlockChain
+     */
+    public OutboxBlockChain setBatchSize(int batchSize) {
+        if (batchSize < 1)
+            throw new IllegalArgumentException("batchSize must be at least 1");
+        this.batchSize = batchSize;
+        return this;
+    }
+
+    /**
+     * Set the time the publisher waits after a failed publish, the wait doubles after every failure up to the maximum
+     *
+     * @param initial the first wait, 100 milliseconds by default
+     * @param max     the longest wait, 30 seconds by default
+     * @param unit    the unit of initial and max
+     * @return this OutboxBlockChain
+     */
+    public OutboxBlockChain setRetryBackoff(long initial, long max, TimeUnit unit) {
+        if (initial < 0 || max < initial)
+            throw new IllegalArgumentException("backoff must satisfy 0 <= initial <= max");
+        this.initialBackoffNanos = unit.toNanos(initial);
+        this.maxBackoffNanos = unit.toNanos(max);
+        return this;
+    }
+
+    public File getLogFile() {
+        return logFile;
+    }
+
+    /**
+     * Get the number of records that are logged but not yet published
+     *
+     * @return the number of records waiting in the outbox
+     */
+    public long getPending() {
+        return pending.get();
+    }
+
+    /**
+     * Get the number of records the publisher has sent since the outbox was opened
+     *
+     * @return the number of published records
+     */
+    public long getPublished() {
+        return publishedRecords.get();
+    }
+
+    /**
+     * Get the number of failed attempts to publish a record
+     *
+     * @return the number of retries
+     */
+    public long getRetries() {
+        return retries.get();
+    }
+
+    /**
+     * Get the number of records that were skipped because they could not be decoded
+     *
+     * @return the number of malformed records
+     */
+    public long getSkipped() {
+        return skipped.get();
+    }
+
+    /**
+     * Write a record to the outbox
+     *
+     * @param key  the key being used to put the data on the blockchain
+     * @param data the data being put on the blockchain
+     * @return true once the record is on disk, false if it could not be written
+     */
+    @Override
+    public boolean put(String key, Record data) {
+        if (closed)
+            throw new IllegalStateException("OutboxBlockChain is closed");
+        byte[] line = encode(key, data);
+        try {
+            long end;
+            synchronized (appendLock) {
+                // close may have stored the offset and closed the log since the first check
+                if (closed)
+                    throw new IllegalStateException("OutboxBlockChain is closed");
+                log.seek(written - base);
+                log.write(line);
+                written = end = written + line.length;
+                pending.incrementAndGet();
+            }
+            sync(end);
+        } catch (IOException e) {
+            e.printStackTrace();
+            return false;
+        }
+        synchronized (this) {
+            notifyAll();
+        }
+        return true;
+    }
+
+    @Override
+    public List<Record> get(String key) {
+        return blockChain.get(key);
+    }
+
+    @Override
+    public List<Record> all() {
+        return blockChain.all();
+    }
+
+    /**
+     * Wait until every record in the outbox has been published
+     *
+     * @param timeout the maximum time to wait
+     * @param unit    the unit of timeout
+     * @return true if the outbox is empty
+     * @throws InterruptedException if the thread was interrupted while waiting
+     */
+    public boolean awaitDrained(long timeout, TimeUnit unit) throws InterruptedException {
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        synchronized (this) {
+            long remaining;
+            while (pending.get() > 0 && (remaining = deadline - System.nanoTime()) > 0)
+                TimeUnit.NANOSECONDS.timedWait(this, remaining);
+            return pending.get() == 0;
+        }
+    }
+
+    /**
+     * Stop publishing and close the log, records that were not published yet stay in the outbox
+     */
+    @Override
+    public void close() throws IOException {
+        synchronized (this) {
+            closed = true;
+            notifyAll();
+        }
+        publisher.interrupt();
+        try {
+            publisher.join();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        synchronized (appendLock) {
+            // records that were appended before close are synced here, puts still waiting for their sync find them synced
+            synchronized (syncLock) {
+                boolean interrupted = false;
+                while (syncing) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                if (interrupted)
+                    Thread.currentThread().interrupt();
+                log.getFD().sync();
+                synced = written;
+                syncLock.notifyAll();
+            }
+            // keep the records the publisher sent since its last batch from being sent again
+            storeOffset();
+            log.close();
+            reader.close();
+            offset.close();
+        }
+    }
+
+    /**
+     * Wait until the log is on disk up to the given position.
+     * The first caller to find no fsync in progress syncs everything written so far, the others wait for it.
+     */
+    private void sync(long end) throws IOException {
+        while (true) {
+            long target;
+            synchronized (syncLock) {
+                while (synced < end && syncing) {
+                    try {
+                        syncLock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IOException("Interrupted while syncing the outbox", e);
+                    }
+                }
+                if (synced >= end)
+                    return;
+                syncing = true;
+                target = written;
+            }
+            boolean done = false;
+            try {
+                log.getFD().sync();
+                done = true;
+            } finally {
+                synchronized (syncLock) {
+                    syncing = false;
+                    if (done)
+                        synced = Math.max(synced, target);
+                    syncLock.notifyAll();
+                }
+            }
+        }
+    }
+
+    /**
+     * Read the published offset, and drop a partial record left at the end of the log by a crash
+     */
+    private void recover() throws IOException {
+        long start = offset.length() >= 8 ? offset.readLong() : 0;
+        // the process stopped while emptying the log, after every record in it was published
+        if (start > 0 && log.length() == 0)
+            start = 0;
+        if (start < 0 || start > log.length())
+            throw new IOException("Offset " + start + " does not fit the outbox " + logFile);
+
+        long end = start;
+        long position = start;
+        int records = 0;
+        byte[] chunk = new byte[READ_CHUNK];
+        log.seek(start);
+        int read;
+        while ((read = log.read(chunk)) > 0) {
+            for (int i = 0; i < read; i++) {
+                if (chunk[i] == '\n') {
+                    end = position + i + 1;
+                    records++;
+                }
+            }
+            position += read;
+        }
+        if (end < log.length())
+            log.setLength(end);
+
+        base = 0;
+        published = start;
+        written = end;
+        synced = end;
+        pending.set(records);
+    }
+
+    /**
+     * Publish logged records until the outbox is closed
+     */
+    private void publish() {
+        long backoff = initialBackoffNanos;
+        while (!closed) {
+            try {
+                List<Entry> batch = readBatch();
+                if (batch.isEmpty()) {
+                    compact();
+                    long end = synced();
+                    synchronized (this) {
+                        if (!closed && end <= published)
+                            wait(1000);
+                    }
+                    continue;
+                }
+                for (Entry entry : batch) {
+                    while (entry.data != null && !publish(entry)) {
+                        retries.incrementAndGet();
+                        TimeUnit.NANOSECONDS.sleep(backoff);
+                        backoff = Math.min(maxBackoffNanos, Math.max(1, backoff * 2));
+                    }
+                    backoff = initialBackoffNanos;
+                    published = entry.end;
+                    pending.decrementAndGet();
+                    if (entry.data == null)
+                        skipped.incrementAndGet();
+                    else
+                        publishedRecords.incrementAndGet();
+                }
+                storeOffset();
+                synchronized (this) {
+                    notifyAll();
+                }
+            } catch (InterruptedException e) {
+                // closing
+                return;
+            } catch (IOException e) {
+                if (closed)
+                    return;
+                e.printStackTrace();
+                try {
+                    TimeUnit.NANOSECONDS.sleep(maxBackoffNanos);
+                } catch (InterruptedException ie) {
+                    return;
+                }
+            }
+        }
+    }
+
+    private boolean publish(Entry entry) {
+        try {
+            return blockChain.put(entry.key, entry.data);
+        } catch (RuntimeException e) {
+            e.printStackTrace();
+            return false;
+        }
+    }
+
+    private long synced() {
+        synchronized (syncLock) {
+            return synced;
+        }
+    }
+
+    /**
+     * Read the next records that are on disk and not yet published
+     */
+    private List<Entry> readBatch() throws IOException {
+        long start = published;
+        long end = synced();
+        List<Entry> out = new ArrayList<>();
+        if (start >= end)
+            return out;
+
+        // only the publisher moves base, so it can be read without the append lock
+        reader.seek(start - base);
+        byte[] chunk = new byte[(int) Math.min(READ_CHUNK, end - start)];
+        ByteArrayOutputStream line = new ByteArrayOutputStream();
+        long position = start;
+        while (position < end && out.size() < batchSize) {
+            int read = reader.read(chunk, 0, (int) Math.min(chunk.length, end - position));
+            if (read <= 0)
+                break;
+            for (int i = 0; i < read && out.size() < batchSize; i++) {
+                if (chunk[i] != '\n') {
+                    line.write(chunk[i]);
+                    continue;
+                }
+                out.add(decode(new String(line.toByteArray(), StandardCharsets.UTF_8), position + i + 1));
+                line.reset();
+            }
+            position += read;
+        }
+        return out;
+    }
+
+    private void storeOffset() throws IOException {
+        synchronized (offset) {
+            offset.seek(0);
+            offset.writeLong(published - base);
+            offset.getFD().sync();
+        }
+    }
+
+    /**
+     * Empty the log once every record in it was published
+     */
+    private void compact() throws IOException {
+        synchronized (appendLock) {
+            if (published == base || published != written)
+                return;
+            log.setLength(0);
+            log.getFD().sync();
+            base = written;
+            storeOffset();
+        }
+    }
+
+    private static byte[] encode(String key, Record data) {
+        JSONObject json = new JSONObject();
+        json.put("key", key);
+        json.put("data", new JSONObject(data));
+        // JSONObject escapes line breaks, so a record is always a single line
+        return (json.toString() + "\n").getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Decode a record, a record that can not be decoded is returned without data, so the publisher skips it
+     */
+    private Entry decode(String line, long end) {
+        try {
+            JSONObject json = new JSONObject(line);
+            return new Entry(json.getString("key"), new Record(json.getJSONObject("data").toMap()), end);
+        } catch (JSONException e) {
+            new IOException("Skipping a malformed record in the outbox " + logFile + " before offset " + end, e).printStackTrace();
+            return new Entry(null, null, end);
+        }
+    }
+
+    private static class Entry {
+
+        private final String key;
+        private final Record data;  // null if the record could not be decoded
+        private final long end;
+
+        Entry(String key, Record data, long end) {
+            this.key = key;
+            this.data = data;
+            this.end = end;
+        }
+    }
+}
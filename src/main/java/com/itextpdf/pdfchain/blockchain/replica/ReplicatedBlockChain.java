@@ -0,0 +1,362 @@
+package com.itextpdf.pdfchain.blockchain.replica;
+
+import com.itextpdf.pdfchain.blockchain.IBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.metrics.Histogram;
+
+import java.io.Closeable;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CompletionService;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorCompletionService;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * IBlockChain that spreads reads over several replicas of the same chain, and sends every write to a single node.
+ * A read goes to the replica with the fewest requests in progress. When a replica throws,
+ * the read is retried on the next replica, and the failing replica is skipped for a while.
+ * With hedging enabled, a read that takes longer than the 95th percentile of earlier reads
+ * is sent to a second replica as well, and whichever answers first wins.
+ * Replicas only report errors if they throw, use MultiChain.setFailOnError for MultiChain replicas.
+ * Close the chain to stop the threads hedged reads run on, reads after that are no longer hedged.
+ */
+public class ReplicatedBlockChain implements IBlockChain, Closeable {
+
+    // reads observed before the latency percentile is trusted for hedging
+    private static final int MIN_SAMPLES_FOR_HEDGING = 20;
+
+    private final IBlockChain writer;
+    private final List<Replica> replicas = new ArrayList<>();
+    private final AtomicInteger next = new AtomicInteger();
+
+    private volatile boolean hedging = false;
+    private volatile double hedgePercentile = 95;
+    private volatile long failureBackoffNanos = TimeUnit.SECONDS.toNanos(1);
+
+    // latency of successful reads, in microseconds
+    private final Histogram latency = new Histogram();
+    private final AtomicLong hedges = new AtomicLong();
+    private final AtomicLong failovers = new AtomicLong();
+
+    // hedged reads run on these threads, idle threads are dropped after a minute
+    private final ExecutorService executor = Executors.newCachedThreadPool(new ThreadFactory() {
+        private final AtomicInteger count = new AtomicInteger();
+
+        @Override
+        public Thread newThread(Runnable r) {
+            Thread t = new Thread(r, "replicated-read-" + count.incrementAndGet());
+            t.setDaemon(true);
+            return t;
+        }
+    });
+
+    /**
+     * Create a ReplicatedBlockChain
+     *
+     * @param writer   the node every put is sent to, it may also be one of the replicas
+     * @param replicas the nodes reads are sent to
+     */
+    public ReplicatedBlockChain(IBlockChain writer, List<? extends IBlockChain> replicas) {
+        if (writer == null)
+            throw new IllegalArgumentException("writer must not be null");
+        if (replicas == null || replicas.isEmpty())
+            throw new IllegalArgumentException("at least one replica is needed");
+        this.writer = writer;
+        for (IBlockChain replica : replicas)
+            this.replicas.add(new Replica(replica));
+    }
+
+    /**
+     * Set whether slow reads are sent to a second replica
+     *
+     * @param hedging true to send a duplicate read once a read takes longer than the hedge percentile
+     * @return this ReplicatedBlockChain
+     */
+    public ReplicatedBlockChain setHedging(boolean hedging) {
+        this.hedging = hedging;
+        return this;
+    }
+
+    /**
+     * Set the percentile of the read latency after which a read is hedged
+     *
+     * @param hedgePercentile the percentile, 95 by default
+     * @return this ReplicatedBlockChain
+     */
+    public ReplicatedBlockChain setHedgePercentile(double hedgePercentile) {
+        if (hedgePercentile <= 0 || hedgePercentile > 100)
+            throw new IllegalArgumentException("hedgePercentile must be in (0, 100]");
+        this.hedgePercentile = hedgePercentile;
+        return this;
+    }
+
+    /**
+     * Set how long a replica is skipped after it failed, unless every other replica failed as well
+     *
+     * @param backoff the time, 1 second by default
+     * @param unit    the unit of backoff
+     * @return this ReplicatedBlockChain
+     */
+    public ReplicatedBlockChain setFailureBackoff(long backoff, TimeUnit unit) {
+        if (backoff < 0)
+            throw new IllegalArgumentException("backoff must not be negative");
+        this.failureBackoffNanos = unit.toNanos(backoff);
+        return this;
+    }
+
+    /**
+     * Get the delay after which a read is hedged
+     *
+     * @return the delay in microseconds, or -1 if too few reads were observed to hedge
+     */
+    public long getHedgeDelay() {
+        if (latency.getCount() < MIN_SAMPLES_FOR_HEDGING)
+            return -1;
+        return Math.max(1, latency.getPercentile(hedgePercentile));
+    }
+
+    /**
+     * Get the number of duplicate reads that were sent
+     *
+     * @return the number of hedged reads
+     */
+    public long getHedges() {
+        return hedges.get();
+    }
+
+    /**
+     * Get the number of reads that were retried on another replica after a failure
+     *
+     * @return the number of failovers
+     */
+    public long getFailovers() {
+        return failovers.get();
+    }
+
+    /**
+     * Get the number of reads each replica has served, failed or not
+     *
+     * @return the number of reads per replica, in the order the replicas were given
+     */
+    public List<Long> getRequestsPerReplica() {
+        List<Long> out = new ArrayList<>();
+        for (Replica replica : replicas)
+            out.add(replica.requests.get());
+        return Collections.unmodifiableList(out);
+    }
+
+    @Override
+    public boolean put(String key, Record data) {
+        return writer.put(key, data);
+    }
+
+    @Override
+    public List<Record> get(final String key) {
+        return read(new Read() {
+            @Override
+            public List<Record> read(IBlockChain blockChain) {
+                return blockChain.get(key);
+            }
+        });
+    }
+
+    @Override
+    public List<Record> all() {
+        return read(new Read() {
+            @Override
+            public List<Record> read(IBlockChain blockChain) {
+                return blockChain.all();
+            }
+        });
+    }
+
+    private interface Read {
+        List<Record> read(IBlockChain blockChain);
+    }
+
+    /**
+     * Stop the threads hedged reads run on, reads that are in progress are allowed to finish
+     */
+    @Override
+    public void close() {
+        executor.shutdown();
+    }
+
+    private List<Record> read(Read read) {
+        long delay = hedging && !executor.isShutdown() ? getHedgeDelay() : -1;
+        return delay < 0 ? readInline(read) : readHedged(read, delay);
+    }
+
+    /**
+     * Read on the calling thread, trying the replicas one after the other
+     */
+    private List<Record> readInline(Read read) {
+        List<Replica> tried = new ArrayList<>();
+        RuntimeException failure = null;
+        Replica replica;
+        while ((replica = choose(tried)) != null) {
+            if (failure != null)
+                failovers.incrementAndGet();
+            try {
+                return replica.read(read);
+            } catch (RuntimeException e) {
+                failure = e;
+            }
+        }
+        throw new IllegalStateException("Every replica failed to answer the read", failure);
+    }
+
+    /**
+     * Read on the executor, sending a second read when the first one takes longer than the given delay
+     */
+    private List<Record> readHedged(final Read read, long delayMicros) {
+        CompletionService<List<Record>> completion = new ExecutorCompletionService<>(executor);
+        List<Future<List<Record>>> running = new ArrayList<>();
+        List<Replica> tried = new ArrayList<>();
+        RuntimeException failure = null;
+        boolean hedged = false;
+
+        Future<List<Record>> first = submit(completion, choose(tried), read);
+        if (first == null)
+            // closed in the meantime
+            return readInline(read);
+        running.add(first);
+        try {
+            while (!running.isEmpty()) {
+                Future<List<Record>> done = hedged
+                        ? completion.take()
+                        : completion.poll(delayMicros, TimeUnit.MICROSECONDS);
+                if (done == null) {
+                    hedged = true;
+                    Replica replica = choose(tried);
+                    Future<List<Record>> hedge = replica == null ? null : submit(completion, replica, read);
+                    if (hedge != null) {
+                        hedges.incrementAndGet();
+                        running.add(hedge);
+                    }
+                    continue;
+                }
+                running.remove(done);
+                try {
+                    return done.get();
+                } catch (ExecutionException e) {
+                    failure = e.getCause() instanceof RuntimeException
+                            ? (RuntimeException) e.getCause()
+                            : new IllegalStateException(e.getCause());
+                    // keep a failed read from waiting on a hedge that will never be sent
+                    Replica replica = running.isEmpty() ? choose(tried) : null;
+                    if (replica != null) {
+                        failovers.incrementAndGet();
+                        Future<List<Record>> retry = submit(completion, replica, read);
+                        if (retry == null)
+                            return readInline(read);
+                        running.add(retry);
+                    }
+                }
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while waiting for a replica", e);
+        }
+        // reads that lost the race are not cancelled, so every chosen replica gets its outstanding count back
+        throw new IllegalStateException("Every replica failed to answer the read", failure);
+    }
+
+    /**
+     * Read from a replica on the executor
+     *
+     * @return the pending read, or null if the chain was closed
+     */
+    private Future<List<Record>> submit(CompletionService<List<Record>> completion, final Replica replica, final Read read) {
+        try {
+            return completion.submit(new Callable<List<Record>>() {
+                @Override
+                public List<Record> call() {
+                    return replica.read(read);
+                }
+            });
+        } catch (RejectedExecutionException e) {
+            replica.outstanding.decrementAndGet();
+            return null;
+        }
+    }
+
+    /**
+     * Pick the healthy replica with the fewest reads in progress, that was not tried yet.
+     * Ties are broken round robin, and replicas that failed recently are only picked when no healthy one is left.
+     * The read is counted as in progress on the chosen replica straight away.
+     */
+    private synchronized Replica choose(List<Replica> tried) {
+        long now = System.nanoTime();
+        int start = next.getAndIncrement() & Integer.MAX_VALUE;
+        Replica best = null;
+        boolean bestHealthy = false;
+        for (int i = 0; i < replicas.size(); i++) {
+            Replica replica = replicas.get((start + i) % replicas.size());
+            if (tried.contains(replica))
+                continue;
+            boolean healthy = replica.isHealthy(now);
+            if (best == null
+                    || (healthy && !bestHealthy)
+                    || (healthy == bestHealthy && replica.outstanding.get() < best.outstanding.get())) {
+                best = replica;
+                bestHealthy = healthy;
+            }
+        }
+        if (best != null) {
+            tried.add(best);
+            best.outstanding.incrementAndGet();
+        }
+        return best;
+    }
+
+    /**
+     * A single replica, and its bookkeeping
+     */
+    private class Replica {
+
+        private final IBlockChain blockChain;
+        private final AtomicInteger outstanding = new AtomicInteger();
+        private final AtomicLong requests = new AtomicLong();
+        private volatile long failedAt;
+        private volatile boolean failed = false;
+
+        Replica(IBlockChain blockChain) {
+            this.blockChain = blockChain;
+        }
+
+        boolean isHealthy(long now) {
+            return !failed || now - failedAt >= failureBackoffNanos;
+        }
+
+        /**
+         * Read from this replica, the read must have been counted as outstanding by choose
+         */
+        List<Record> read(Read read) {
+            requests.incrementAndGet();
+            long start = System.nanoTime();
+            try {
+                List<Record> out = read.read(blockChain);
+                latency.record(TimeUnit.NANOSECONDS.toMicros(System.nanoTime() - start));
+                failed = false;
+                return out;
+            } catch (RuntimeException e) {
+                failedAt = System.nanoTime();
+                failed = true;
+                throw e;
+            } finally {
+                outstanding.decrementAndGet();
+            }
+        }
+    }
+}
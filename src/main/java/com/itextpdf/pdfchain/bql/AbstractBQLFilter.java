@@ -0,0 +1,66 @@
+package com.itextpdf.pdfchain.bql;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+import com.itextpdf.pdfchain.blockchain.batch.SelectionVector;
+
+import java.util.ArrayList;
+import java.util.Collection;
+
+/**
+ * Abstract implementation of a BQL operator that decides about every record on its own.
+ * Filters are applied in a single pass over their input, and can be combined per record by AND and OR.
+ */
+public abstract class AbstractBQLFilter extends AbstractBQLOperator implements IRecordPredicate {
+
+    /**
+     * Test whether an operator can be evaluated one record at a time
+     *
+     * @param op the operator
+     * @return true iff op is a filter, and test can be called on it
+     */
+    public static boolean isPredicate(AbstractBQLOperator op) {
+        return (op instanceof AbstractBQLFilter) && ((AbstractBQLFilter) op).isPredicate();
+    }
+
+    /**
+     * Test whether this filter can be evaluated one record at a time
+     *
+     * @return true iff test can be called on this filter
+     */
+    public boolean isPredicate() {
+        return true;
+    }
+
+    @Override
+    public abstract boolean test(Record r);
+
+    @Override
+    public Collection<Record> apply(Collection<Record> in) {
+        Collection<Record> out = new ArrayList<>();
+        for (Record r : in) {
+            if (test(r))
+                out.add(r);
+        }
+        return out;
+    }
+
+    /**
+     * Apply this filter to rows of a columnar batch.
+     * This default implementation converts every candidate row to a Record, filters should override it
+     * to work on the columns directly.
+     *
+     * @param batch the batch
+     * @param in    the candidate rows
+     * @return the candidate rows that pass this filter, in ascending order
+     */
+    public SelectionVector select(RecordBatch batch, SelectionVector in) {
+        SelectionVector out = new SelectionVector(in.size());
+        for (int i = 0; i < in.size(); i++) {
+            int row = in.get(i);
+            if (test(batch.getRecord(row)))
+                out.add(row);
+        }
+        return out;
+    }
+}
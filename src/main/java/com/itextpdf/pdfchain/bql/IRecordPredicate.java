@@ -0,0 +1,18 @@
+package com.itextpdf.pdfchain.bql;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+
+/**
+ * Interface representing a filter that is evaluated one Record at a time
+ */
+public interface IRecordPredicate {
+
+    /**
+     * Test a single record
+     *
+     * @param r the record to be tested
+     * @return true iff the record passes the filter
+     */
+    boolean test(Record r);
+
+}
@@ -0,0 +1,189 @@
+package com.itextpdf.pdfchain.bql.aggregate;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.RecordField;
+import com.itextpdf.pdfchain.bql.AbstractBQLFilter;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Aggregate operator for BQL.
+ * Records are grouped by the values of the group fields, and every group yields a single record
+ * holding those values and the outcome of every aggregation.
+ * Aggregation is done in a single pass with one accumulator per group, so memory use grows with the number of groups.
+ * When the source is a filter, records are tested and aggregated one at a time, without collecting the filtered records first.
+ */
+public class Aggregate extends AbstractBQLOperator {
+
+    private String[] groupBy;
+    private RecordField[] groupFields;
+    private Aggregation[] aggregations;
+
+    public Aggregate(AbstractBQLOperator source, String[] groupBy, Aggregation... aggregations) {
+        this.addChild(source);
+        this.groupBy = groupBy;
+        this.groupFields = new RecordField[groupBy.length];
+        for (int i = 0; i < groupBy.length; i++)
+            this.groupFields[i] = RecordField.of(groupBy[i]);
+        this.aggregations = aggregations;
+    }
+
+    public Aggregate(AbstractBQLOperator source, Aggregation... aggregations) {
+        this(source, new String[0], aggregations);
+    }
+
+    public String[] getGroupBy() {
+        return groupBy;
+    }
+
+    public Aggregation[] getAggregations() {
+        return aggregations;
+    }
+
+    @Override
+    public Collection<Record> apply(Collection<Record> in) {
+        AbstractBQLOperator source = getChild(0);
+        if (!AbstractBQLFilter.isPredicate(source))
+            return aggregate(source.apply(in));
+
+        AbstractBQLFilter filter = (AbstractBQLFilter) source;
+        Map<Object, Accumulator> groups = new LinkedHashMap<>();
+        for (Record r : in) {
+            if (filter.test(r))
+                accumulate(groups, r);
+        }
+        return finish(groups);
+    }
+
+    /**
+     * Aggregate records, without applying the source operator
+     *
+     * @param in the records to aggregate
+     * @return one record per group, in order of the first record of every group
+     */
+    public List<Record> aggregate(Collection<Record> in) {
+        Map<Object, Accumulator> groups = new LinkedHashMap<>();
+        for (Record r : in)
+            accumulate(groups, r);
+        return finish(groups);
+    }
+
+    private void accumulate(Map<Object, Accumulator> groups, Record r) {
+        Object key = groupKey(r);
+        Accumulator acc = groups.get(key);
+        if (acc == null) {
+            acc = new Accumulator(r);
+            groups.put(key, acc);
+        }
+        acc.add(r);
+    }
+
+    private Object groupKey(Record r) {
+        // avoid building a key object for the common cases
+        if (groupFields.length == 0)
+            return Collections.emptyList();
+        if (groupFields.length == 1)
+            return groupFields[0].get(r);
+        Object[] key = new Object[groupFields.length];
+        for (int i = 0; i < groupFields.length; i++)
+            key[i] = groupFields[i].get(r);
+        return Arrays.asList(key);
+    }
+
+    private List<Record> finish(Map<Object, Accumulator> groups) {
+        // an aggregate without groups yields a single record, even if there are no records to aggregate
+        if (groups.isEmpty() && groupFields.length == 0)
+            groups.put(Collections.emptyList(), new Accumulator(new Record()));
+        List<Record> out = new ArrayList<>(groups.size());
+        for (Accumulator acc : groups.values())
+            out.add(acc.toRecord());
+        return out;
+    }
+
+    /**
+     * Running state of every aggregation for a single group
+     */
+    private class Accumulator {
+
+        private final Object[] key;
+        private final long[] count;
+        private final double[] sum;
+        private final Number[] extreme;
+
+        Accumulator(Record first) {
+            key = new Object[groupFields.length];
+            for (int i = 0; i < groupFields.length; i++)
+                key[i] = groupFields[i].get(first);
+            count = new long[aggregations.length];
+            sum = new double[aggregations.length];
+            extreme = new Number[aggregations.length];
+        }
+
+        void add(Record r) {
+            for (int i = 0; i < aggregations.length; i++) {
+                Aggregation aggregation = aggregations[i];
+                if (aggregation.getField() == null) {
+                    count[i]++;
+                    continue;
+                }
+                Object val = aggregation.getField().get(r);
+                switch (aggregation.getFunction()) {
+                    case COUNT:
+                        if (val != null)
+                            count[i]++;
+                        break;
+                    case SUM:
+                    case AVG:
+                        if (val instanceof Number) {
+                            count[i]++;
+                            sum[i] += ((Number) val).doubleValue();
+                        }
+                        break;
+                    case MIN:
+                        if (val instanceof Number && (extreme[i] == null || Double.compare(((Number) val).doubleValue(), extreme[i].doubleValue()) < 0))
+                            extreme[i] = (Number) val;
+                        break;
+                    case MAX:
+                        if (val instanceof Number && (extreme[i] == null || Double.compare(((Number) val).doubleValue(), extreme[i].doubleValue()) > 0))
+                            extreme[i] = (Number) val;
+                        break;
+                }
+            }
+        }
+
+        Record toRecord() {
+            Record out = new Record();
+            for (int i = 0; i < groupFields.length; i++) {
+                if (key[i] != null)
+                    out.put(groupBy[i], key[i]);
+            }
+            for (int i = 0; i < aggregations.length; i++) {
+                Object val;
+                switch (aggregations[i].getFunction()) {
+                    case COUNT:
+                        val = count[i];
+                        break;
+                    case SUM:
+                        val = sum[i];
+                        break;
+                    case AVG:
+                        val = count[i] == 0 ? null : sum[i] / count[i];
+                        break;
+                    default:
+                        val = extreme[i];
+                        break;
+                }
+                if (val != null)
+                    out.put(aggregations[i].getOutputName(), val);
+            }
+            return out;
+        }
+    }
+}
@@ -0,0 +1,13 @@
+package com.itextpdf.pdfchain.bql.aggregate;
+
+/**
+ * The aggregate functions supported by BQL.
+ * SUM, AVG, MIN and MAX only take numeric values into account, just like the relational operators only compare numbers.
+ */
+public enum AggregateFunction {
+    COUNT,
+    SUM,
+    AVG,
+    MIN,
+    MAX
+}
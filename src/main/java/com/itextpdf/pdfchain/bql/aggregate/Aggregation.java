@@ -0,0 +1,50 @@
+package com.itextpdf.pdfchain.bql.aggregate;
+
+import com.itextpdf.pdfchain.blockchain.RecordField;
+
+import java.util.Locale;
+
+/**
+ * An aggregate function applied to a field
+ */
+public class Aggregation {
+
+    private AggregateFunction function;
+    private String fieldName;
+    private RecordField field;
+
+    /**
+     * Create an Aggregation
+     *
+     * @param function  the aggregate function
+     * @param fieldName the field the function is applied to, or null to count records
+     */
+    public Aggregation(AggregateFunction function, String fieldName) {
+        if (fieldName == null && function != AggregateFunction.COUNT)
+            throw new IllegalArgumentException("Aggregate function " + function + " requires a field");
+        this.function = function;
+        this.fieldName = fieldName;
+        this.field = fieldName == null ? null : RecordField.of(fieldName);
+    }
+
+    public AggregateFunction getFunction() {
+        return function;
+    }
+
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    /**
+     * Get the name of the field that holds the outcome of this aggregation in the result
+     *
+     * @return the function and field name, e.g. "sum_confirmations", or "count_all" for counting records
+     */
+    public String getOutputName() {
+        return function.name().toLowerCase(Locale.ROOT) + "_" + (fieldName == null ? "all" : fieldName);
+    }
+
+    RecordField getField() {
+        return field;
+    }
+}
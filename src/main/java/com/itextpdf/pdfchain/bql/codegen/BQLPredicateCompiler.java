@@ -0,0 +1,374 @@
+package com.itextpdf.pdfchain.bql.codegen;
+
+import com.itextpdf.pdfchain.blockchain.RecordSchema;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.IRecordPredicate;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregate;
+import com.itextpdf.pdfchain.bql.logical.And;
+import com.itextpdf.pdfchain.bql.logical.Or;
+import com.itextpdf.pdfchain.bql.relational.Equal;
+import com.itextpdf.pdfchain.bql.relational.EqualID;
+import com.itextpdf.pdfchain.bql.relational.Greater;
+import com.itextpdf.pdfchain.bql.relational.GreaterOrEqual;
+import com.itextpdf.pdfchain.bql.relational.NotEqual;
+import com.itextpdf.pdfchain.bql.relational.Smaller;
+import com.itextpdf.pdfchain.bql.relational.SmallerOrEqual;
+import com.itextpdf.pdfchain.bql.relational.Star;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import com.itextpdf.pdfchain.bql.string.EndsWith;
+import com.itextpdf.pdfchain.bql.string.StartsWith;
+import com.itextpdf.pdfchain.bql.transform.Select;
+import org.objectweb.asm.ClassWriter;
+import org.objectweb.asm.Label;
+import org.objectweb.asm.MethodVisitor;
+import org.objectweb.asm.Opcodes;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Compiles a tree of BQL filter operators into a generated class implementing IRecordPredicate.
+ * Field names and constants are embedded in the bytecode, every field is looked up once per record,
+ * and AND / OR become (short-circuiting) jumps instead of nested calls to apply.
+ * Generated predicates are stateless, and are cached by the shape and constants of the filter.
+ */
+public class BQLPredicateCompiler {
+
+    private static final String RECORD = "com/itextpdf/pdfchain/blockchain/Record";
+    private static final String PREDICATE = "com/itextpdf/pdfchain/bql/IRecordPredicate";
+    private static final String SUPPORT = "com/itextpdf/pdfchain/bql/codegen/BQLPredicateSupport";
+    private static final String GENERATED = "com/itextpdf/pdfchain/bql/codegen/GeneratedPredicate";
+
+    private static final int CACHE_SIZE = 256;
+    private static final Map<String, IRecordPredicate> cache = Collections.synchronizedMap(new LinkedHashMap<String, IRecordPredicate>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<String, IRecordPredicate> eldest) {
+            return size() > CACHE_SIZE;
+        }
+    });
+
+    private static final AtomicInteger classCounter = new AtomicInteger();
+
+    /**
+     * Test whether an operator (and all of its children) can be compiled into an IRecordPredicate
+     *
+     * @param op the root of a tree of BQL operators
+     * @return true iff every operator in the tree filters records one at a time
+     */
+    public static boolean isCompilable(AbstractBQLOperator op) {
+        if (op instanceof And || op instanceof Or) {
+            for (AbstractBQLOperator c : op.getChildren()) {
+                if (!isCompilable(c))
+                    return false;
+            }
+            return true;
+        }
+        if (op instanceof Greater || op instanceof GreaterOrEqual || op instanceof Smaller || op instanceof SmallerOrEqual)
+            return numericValue(op) instanceof Number;
+        return (op instanceof Equal) ||
+                (op instanceof EqualID) ||
+                (op instanceof NotEqual) ||
+                (op instanceof StartsWith) ||
+                (op instanceof EndsWith) ||
+                (op instanceof Star);
+    }
+
+    /**
+     * Compile a filter into an IRecordPredicate
+     *
+     * @param op the root of a tree of BQL filter operators
+     * @return a predicate that accepts exactly the records the filter would retain
+     * @throws IllegalArgumentException if the tree contains operators that can not be compiled
+     */
+    public static IRecordPredicate compile(AbstractBQLOperator op) {
+        if (!isCompilable(op))
+            throw new IllegalArgumentException("Operator can not be compiled into a predicate");
+
+        Generator generator = new Generator();
+        generator.describe(op);
+        String key = generator.cacheable ? generator.description.toString() : null;
+        if (key != null) {
+            IRecordPredicate cached = cache.get(key);
+            if (cached != null)
+                return cached;
+        }
+        IRecordPredicate predicate = generator.generate(op);
+        if (key != null)
+            cache.put(key, predicate);
+        return predicate;
+    }
+
+    /**
+     * Replace every maximal filter subtree of a query by a CompiledFilter.
+     * The input tree is not modified.
+     *
+     * @param op the root of a tree of BQL operators
+     * @return a tree that yields the same records, or op itself if nothing could be compiled
+     */
+    public static AbstractBQLOperator compileFilters(AbstractBQLOperator op) {
+        if (op instanceof CompiledFilter)
+            return op;
+        if (isCompilable(op))
+            return new CompiledFilter(op, compile(op));
+        if (op instanceof Select) {
+            AbstractBQLOperator child = op.getChildren().get(0);
+            AbstractBQLOperator compiledChild = compileFilters(child);
+            return compiledChild == child ? op : new Select(compiledChild, ((Select) op).getFieldNames(), ((Select) op).isDistinct());
+        }
+        if (op instanceof SortBy) {
+            AbstractBQLOperator child = op.getChildren().get(0);
+            AbstractBQLOperator compiledChild = compileFilters(child);
+            return compiledChild == child ? op : new SortBy(compiledChild, ((SortBy) op).getFieldNames(), ((SortBy) op).getAscending());
+        }
+        if (op instanceof Aggregate) {
+            AbstractBQLOperator child = op.getChildren().get(0);
+            AbstractBQLOperator compiledChild = compileFilters(child);
+            return compiledChild == child ? op : new Aggregate(compiledChild, ((Aggregate) op).getGroupBy(), ((Aggregate) op).getAggregations());
+        }
+        return op;
+    }
+
+    private static Object numericValue(AbstractBQLOperator op) {
+        if (op instanceof Greater)
+            return ((Greater) op).getFieldValue();
+        if (op instanceof GreaterOrEqual)
+            return ((GreaterOrEqual) op).getFieldValue();
+        if (op instanceof Smaller)
+            return ((Smaller) op).getFieldValue();
+        if (op instanceof SmallerOrEqual)
+            return ((SmallerOrEqual) op).getFieldValue();
+        return null;
+    }
+
+    private static String fieldName(AbstractBQLOperator op) {
+        if (op instanceof Equal)
+            return ((Equal) op).getFieldName();
+        if (op instanceof EqualID)
+            return "id1";
+        if (op instanceof NotEqual)
+            return ((NotEqual) op).getFieldName();
+        if (op instanceof Greater)
+            return ((Greater) op).getFieldName();
+        if (op instanceof GreaterOrEqual)
+            return ((GreaterOrEqual) op).getFieldName();
+        if (op instanceof Smaller)
+            return ((Smaller) op).getFieldName();
+        if (op instanceof SmallerOrEqual)
+            return ((SmallerOrEqual) op).getFieldName();
+        if (op instanceof StartsWith)
+            return ((StartsWith) op).getFieldName();
+        if (op instanceof EndsWith)
+            return ((EndsWith) op).getFieldName();
+        return null;
+    }
+
+    private static Object equalityValue(AbstractBQLOperator op) {
+        if (op instanceof Equal)
+            return ((Equal) op).getFieldValue();
+        if (op instanceof EqualID)
+            return ((EqualID) op).getSelectedValue();
+        if (op instanceof NotEqual)
+            return ((NotEqual) op).getFieldValue();
+        return null;
+    }
+
+    /**
+     * Class loader holding a single generated class, so that evicted predicates can be unloaded
+     */
+    private static class PredicateClassLoader extends ClassLoader {
+
+        PredicateClassLoader() {
+            super(IRecordPredicate.class.getClassLoader());
+        }
+
+        Class<?> define(String name, byte[] bytecode) {
+            return defineClass(name, bytecode, 0, bytecode.length);
+        }
+    }
+
+    /**
+     * Emits the bytecode for a single predicate
+     */
+    private static class Generator implements Opcodes {
+
+        private StringBuilder description = new StringBuilder();
+        private boolean cacheable = true;
+
+        private List<String> fields = new ArrayList<>();
+        private List<Object> constants = new ArrayList<>();
+
+        /**
+         * Build the cache key of a filter, and collect the distinct field names it uses
+         */
+        private void describe(AbstractBQLOperator op) {
+            description.append(op.getClass().getSimpleName()).append('(');
+            if (op instanceof And || op instanceof Or) {
+                for (AbstractBQLOperator c : op.getChildren()) {
+                    describe(c);
+                    description.append(',');
+                }
+            } else if (!(op instanceof Star)) {
+                String field = fieldName(op);
+                if (!fields.contains(field))
+                    fields.add(field);
+                appendConstant(field);
+                description.append(',');
+                if (op instanceof StartsWith)
+                    appendConstant(((StartsWith) op).getPrefix());
+                else if (op instanceof EndsWith)
+                    appendConstant(((EndsWith) op).getSuffix());
+                else if (numericValue(op) != null)
+                    appendConstant(((Number) numericValue(op)).doubleValue());
+                else
+                    appendConstant(equalityValue(op));
+            }
+            description.append(')');
+        }
+
+        private void appendConstant(Object value) {
+            if (value instanceof String)
+                description.append("S").append(((String) value).length()).append(':').append(value);
+            else if (value instanceof Double)
+                description.append("D").append(Double.doubleToLongBits((Double) value));
+            else if (value == null)
+                description.append("null");
+            else
+                cacheable = false;
+        }
+
+        private IRecordPredicate generate(AbstractBQLOperator op) {
+            String className = GENERATED + classCounter.incrementAndGet();
+
+            ClassWriter cw = new ClassWriter(ClassWriter.COMPUTE_FRAMES | ClassWriter.COMPUTE_MAXS);
+            cw.visit(V1_7, ACC_PUBLIC | ACC_FINAL | ACC_SUPER, className, null, "java/lang/Object", new String[]{PREDICATE});
+            cw.visitField(ACC_PRIVATE | ACC_FINAL, "constants", "[Ljava/lang/Object;", null, null).visitEnd();
+
+            // constructor
+            MethodVisitor mv = cw.visitMethod(ACC_PUBLIC, "<init>", "([Ljava/lang/Object;)V", null, null);
+            mv.visitCode();
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitMethodInsn(INVOKESPECIAL, "java/lang/Object", "<init>", "()V", false);
+            mv.visitVarInsn(ALOAD, 0);
+            mv.visitVarInsn(ALOAD, 1);
+            mv.visitFieldInsn(PUTFIELD, className, "constants", "[Ljava/lang/Object;");
+            mv.visitInsn(RETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+
+            // test method, every distinct field is fetched once into a local variable
+            mv = cw.visitMethod(ACC_PUBLIC, "test", "(L" + RECORD + ";)Z", null, null);
+            mv.visitCode();
+            for (int i = 0; i < fields.size(); i++) {
+                mv.visitVarInsn(ALOAD, 1);
+                int slot = RecordSchema.slotOf(fields.get(i));
+                if (slot >= 0) {
+                    // fixed fields are read straight from their slot
+                    mv.visitLdcInsn(slot);
+                    mv.visitMethodInsn(INVOKEVIRTUAL, RECORD, "get", "(I)Ljava/lang/Object;", false);
+                } else {
+                    mv.visitLdcInsn(fields.get(i));
+                    mv.visitMethodInsn(INVOKEVIRTUAL, RECORD, "get", "(Ljava/lang/Object;)Ljava/lang/Object;", false);
+                }
+                mv.visitVarInsn(ASTORE, 2 + i);
+            }
+            Label reject = new Label();
+            condition(mv, className, op, reject, false);
+            mv.visitInsn(ICONST_1);
+            mv.visitInsn(IRETURN);
+            mv.visitLabel(reject);
+            mv.visitInsn(ICONST_0);
+            mv.visitInsn(IRETURN);
+            mv.visitMaxs(0, 0);
+            mv.visitEnd();
+            cw.visitEnd();
+
+            try {
+                Class<?> cls = new PredicateClassLoader().define(className.replace('/', '.'), cw.toByteArray());
+                return (IRecordPredicate) cls.getConstructor(Object[].class).newInstance(new Object[]{constants.toArray()});
+            } catch (ReflectiveOperationException e) {
+                throw new IllegalStateException("Unable to load generated predicate", e);
+            }
+        }
+
+        /**
+         * Emit code that jumps to target iff the outcome of op equals jumpIfTrue, and falls through otherwise
+         */
+        private void condition(MethodVisitor mv, String className, AbstractBQLOperator op, Label target, boolean jumpIfTrue) {
+            if (op instanceof And || op instanceof Or) {
+                boolean isAnd = op instanceof And;
+                AbstractBQLOperator left = op.getChildren().get(0);
+                AbstractBQLOperator right = op.getChildren().get(1);
+                if (isAnd != jumpIfTrue) {
+                    // AND jumping on false, OR jumping on true: either child decides
+                    condition(mv, className, left, target, jumpIfTrue);
+                    condition(mv, className, right, target, jumpIfTrue);
+                } else {
+                    // only the right child decides, the left child can skip it
+                    Label skip = new Label();
+                    condition(mv, className, left, skip, !jumpIfTrue);
+                    condition(mv, className, right, target, jumpIfTrue);
+                    mv.visitLabel(skip);
+                }
+                return;
+            }
+            leaf(mv, className, op);
+            mv.visitJumpInsn(jumpIfTrue ? IFNE : IFEQ, target);
+        }
+
+        /**
+         * Emit code that leaves the outcome of a single comparison on the stack
+         */
+        private void leaf(MethodVisitor mv, String className, AbstractBQLOperator op) {
+            if (op instanceof Star) {
+                mv.visitInsn(ICONST_1);
+                return;
+            }
+            mv.visitVarInsn(ALOAD, 2 + fields.indexOf(fieldName(op)));
+
+            // string operators
+            if (op instanceof StartsWith || op instanceof EndsWith) {
+                boolean starts = op instanceof StartsWith;
+                mv.visitLdcInsn(starts ? ((StartsWith) op).getPrefix() : ((EndsWith) op).getSuffix());
+                mv.visitMethodInsn(INVOKESTATIC, SUPPORT, starts ? "startsWith" : "endsWith", "(Ljava/lang/Object;Ljava/lang/String;)Z", false);
+                return;
+            }
+
+            // numeric comparison
+            Object number = numericValue(op);
+            if (number != null) {
+                String method = (op instanceof Greater) ? "greater" :
+                        (op instanceof GreaterOrEqual) ? "greaterOrEqual" :
+                                (op instanceof Smaller) ? "smaller" : "smallerOrEqual";
+                mv.visitLdcInsn(((Number) number).doubleValue());
+                mv.visitMethodInsn(INVOKESTATIC, SUPPORT, method, "(Ljava/lang/Object;D)Z", false);
+                return;
+            }
+
+            // (in)equality
+            boolean negate = op instanceof NotEqual;
+            Object value = equalityValue(op);
+            if (value instanceof Double) {
+                mv.visitLdcInsn(value);
+                mv.visitMethodInsn(INVOKESTATIC, SUPPORT, negate ? "notEqualDouble" : "equalDouble", "(Ljava/lang/Object;D)Z", false);
+                return;
+            }
+            if (value instanceof String || value == null) {
+                if (value == null)
+                    mv.visitInsn(ACONST_NULL);
+                else
+                    mv.visitLdcInsn(value);
+            } else {
+                mv.visitVarInsn(ALOAD, 0);
+                mv.visitFieldInsn(GETFIELD, className, "constants", "[Ljava/lang/Object;");
+                mv.visitLdcInsn(constants.size());
+                mv.visitInsn(AALOAD);
+                constants.add(value);
+            }
+            mv.visitMethodInsn(INVOKESTATIC, SUPPORT, negate ? "notEqual" : "equal", "(Ljava/lang/Object;Ljava/lang/Object;)Z", false);
+        }
+    }
+}
@@ -0,0 +1,52 @@
+package com.itextpdf.pdfchain.bql.codegen;
+
+/**
+ * Static comparison helpers called from generated predicates.
+ * These mirror the semantics of the interpreted BQL operators, and are small enough to be inlined by the JIT.
+ * This class is public only because generated classes live in their own class loader.
+ */
+public final class BQLPredicateSupport {
+
+    private BQLPredicateSupport() {
+    }
+
+    public static boolean equal(Object val, Object constant) {
+        return val != null && val.equals(constant);
+    }
+
+    public static boolean notEqual(Object val, Object constant) {
+        return val != null && !val.equals(constant);
+    }
+
+    public static boolean equalDouble(Object val, double constant) {
+        return val instanceof Double && Double.doubleToLongBits((Double) val) == Double.doubleToLongBits(constant);
+    }
+
+    public static boolean notEqualDouble(Object val, double constant) {
+        return val != null && !equalDouble(val, constant);
+    }
+
+    public static boolean greater(Object val, double constant) {
+        return val instanceof Number && Double.compare(((Number) val).doubleValue(), constant) > 0;
+    }
+
+    public static boolean greaterOrEqual(Object val, double constant) {
+        return val instanceof Number && Double.compare(((Number) val).doubleValue(), constant) >= 0;
+    }
+
+    public static boolean smaller(Object val, double constant) {
+        return val instanceof Number && Double.compare(((Number) val).doubleValue(), constant) < 0;
+    }
+
+    public static boolean smallerOrEqual(Object val, double constant) {
+        return val instanceof Number && Double.compare(((Number) val).doubleValue(), constant) <= 0;
+    }
+
+    public static boolean startsWith(Object val, String prefix) {
+        return val != null && val.toString().startsWith(prefix);
+    }
+
+    public static boolean endsWith(Object val, String suffix) {
+        return val != null && val.toString().endsWith(suffix);
+    }
+}
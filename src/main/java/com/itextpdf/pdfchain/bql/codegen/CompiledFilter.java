@@ -0,0 +1,39 @@
+package com.itextpdf.pdfchain.bql.codegen;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLFilter;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.IRecordPredicate;
+
+/**
+ * BQL operator that evaluates a generated IRecordPredicate in a single loop.
+ * It replaces a tree of filter operators, which is kept for reference.
+ */
+public class CompiledFilter extends AbstractBQLFilter {
+
+    private AbstractBQLOperator source;
+    private IRecordPredicate predicate;
+
+    public CompiledFilter(AbstractBQLOperator source, IRecordPredicate predicate) {
+        this.source = source;
+        this.predicate = predicate;
+    }
+
+    /**
+     * Get the tree of operators this filter was compiled from
+     *
+     * @return the original (interpreted) filter
+     */
+    public AbstractBQLOperator getSource() {
+        return source;
+    }
+
+    public IRecordPredicate getPredicate() {
+        return predicate;
+    }
+
+    @Override
+    public boolean test(Record r) {
+        return predicate.test(r);
+    }
+}
@@ -42,17 +42,19 @@ class BQLBracketMatcher {
                 tmp.push(new Object[]{t, i});
             else if (t.getType() == BQLTokenizer.Type.RIGHT_BRACKET) {
                 if (tmp.isEmpty())
-                    throw new IllegalArgumentException("Mismatched parenthesis");
+                    throw new IllegalArgumentException("Mismatched parenthesis at position " + t.getPosition());
 
                 Object[] objs = (Object[]) tmp.pop();
                 BQLTokenizer.Token l = (BQLTokenizer.Token) objs[0];
                 Integer leftPos = (Integer) objs[1];
                 if (!isMatchingBracket(l, t))
-                    throw new IllegalArgumentException("Mismatched parenthesis");
+                    throw new IllegalArgumentException("Mismatched parenthesis at position " + t.getPosition());
                 retval.put(leftPos, i);
                 retval.put(i, leftPos);
             }
         }
+        if (!tmp.isEmpty())
+            throw new IllegalArgumentException("Mismatched parenthesis at position " + ((BQLTokenizer.Token) ((Object[]) tmp.peek())[0]).getPosition());
         return retval;
     }
 }
@@ -1,6 +1,9 @@
 package com.itextpdf.pdfchain.bql.executor;
 
 import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregate;
+import com.itextpdf.pdfchain.bql.aggregate.AggregateFunction;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregation;
 import com.itextpdf.pdfchain.bql.logical.And;
 import com.itextpdf.pdfchain.bql.logical.Or;
 import com.itextpdf.pdfchain.bql.relational.Equal;
@@ -15,7 +18,9 @@ import com.itextpdf.pdfchain.bql.string.EndsWith;
 import com.itextpdf.pdfchain.bql.string.StartsWith;
 import com.itextpdf.pdfchain.bql.transform.Select;
 
+import java.util.ArrayList;
 import java.util.List;
+import java.util.Locale;
 import java.util.Stack;
 
 /**
@@ -35,7 +40,7 @@ public class BQLCompiler {
         Stack<Object> tmp = new Stack<>();
         for (BQLTokenizer.Token t : tokens) {
             if (t.getType() == BQLTokenizer.Type.OPERATOR) {
-                String operator = t.getText().toUpperCase();
+                String operator = t.getText().toUpperCase(Locale.ROOT);
                 switch (operator) {
                     case "*":
                         tmp.push(buildStarOperator());
@@ -68,7 +73,10 @@ public class BQLCompiler {
                         tmp.push(buildSort(tmp));
                         break;
                     case "SELECT":
-                        tmp.push(buildSelect(tmp));
+                        tmp.push(buildSelect(tmp, false));
+                        break;
+                    case "SELECT DISTINCT":
+                        tmp.push(buildSelect(tmp, true));
                         break;
                     case "STARTS_WITH":
                         tmp.push(buildStartsWith(tmp));
@@ -76,6 +84,18 @@ public class BQLCompiler {
                     case "ENDS_WITH":
                         tmp.push(buildEndsWith(tmp));
                         break;
+                    case "COUNT":
+                        tmp.push(buildCount(tmp));
+                        break;
+                    case "SUM":
+                    case "AVG":
+                    case "MIN":
+                    case "MAX":
+                        tmp.push(buildAggregate(tmp, AggregateFunction.valueOf(operator)));
+                        break;
+                    case "GROUP_BY":
+                        tmp.push(buildGroupBy(tmp));
+                        break;
                 }
             } else {
                 tmp.push(t);
@@ -90,14 +110,51 @@ public class BQLCompiler {
         return new Star();
     }
 
-    private static AbstractBQLOperator buildSelect(Stack<Object> stk) {
+    private static AbstractBQLOperator buildSelect(Stack<Object> stk, boolean distinct) {
+        String name = distinct ? "SELECT DISTINCT" : "SELECT";
         if (stk.size() < 2)
-            throw new IllegalArgumentException("Not enough arguments for operator SELECT");
+            throw new IllegalArgumentException("Not enough arguments for operator " + name);
         Object arg0 = stk.pop();
         Object arg1 = stk.pop();
         if (!isOperator(arg0) || !isArray(arg1))
-            throw new IllegalArgumentException("Invalid argument(s) for operator SELECT");
-        return new Select((AbstractBQLOperator) arg0, ((BQLTokenizer.Token) arg1).getTexts());
+            throw new IllegalArgumentException("Invalid argument(s) for operator " + name);
+        return new Select((AbstractBQLOperator) arg0, ((BQLTokenizer.Token) arg1).getTexts(), distinct);
+    }
+
+    private static AbstractBQLOperator buildCount(Stack<Object> stk) {
+        if (stk.size() < 1)
+            throw new IllegalArgumentException("Not enough arguments for operator COUNT");
+        Object arg0 = stk.pop();
+        if (!isOperator(arg0))
+            throw new IllegalArgumentException("Invalid argument(s) for operator COUNT");
+        return new Aggregate((AbstractBQLOperator) arg0, new Aggregation(AggregateFunction.COUNT, null));
+    }
+
+    private static AbstractBQLOperator buildAggregate(Stack<Object> stk, AggregateFunction function) {
+        if (stk.size() < 2)
+            throw new IllegalArgumentException("Not enough arguments for operator " + function);
+        Object arg0 = stk.pop();
+        Object arg1 = stk.pop();
+        if (!isOperator(arg0) || !isArray(arg1) || ((BQLTokenizer.Token) arg1).getTexts().length != 1)
+            throw new IllegalArgumentException("Invalid argument(s) for operator " + function);
+        return new Aggregate((AbstractBQLOperator) arg0, new Aggregation(function, ((BQLTokenizer.Token) arg1).getTexts()[0]));
+    }
+
+    private static AbstractBQLOperator buildGroupBy(Stack<Object> stk) {
+        if (stk.size() < 2)
+            throw new IllegalArgumentException("Not enough arguments for operator GROUP_BY");
+        Object arg0 = stk.pop();
+        Object arg1 = stk.pop();
+        if (!isArray(arg0) || !isOperator(arg1))
+            throw new IllegalArgumentException("Invalid argument(s) for operator GROUP_BY");
+        String[] groupBy = ((BQLTokenizer.Token) arg0).getTexts();
+
+        // group an aggregate, or just yield the distinct groups
+        if (arg1 instanceof Aggregate && ((Aggregate) arg1).getGroupBy().length == 0) {
+            Aggregate aggregate = (Aggregate) arg1;
+            return new Aggregate(aggregate.getChildren().get(0), groupBy, aggregate.getAggregations());
+        }
+        return new Aggregate((AbstractBQLOperator) arg1, groupBy);
     }
 
     private static AbstractBQLOperator buildStartsWith(Stack<Object> stk) {
@@ -129,9 +186,31 @@ public class BQLCompiler {
             throw new IllegalArgumentException("Not enough arguments for operator SORT");
         Object arg0 = stk.pop();
         Object arg1 = stk.pop();
-        if (!isVariable(arg0) || !isOperator(arg1))
+        if (!(isVariable(arg0) || isArray(arg0)) || !isOperator(arg1))
+            throw new IllegalArgumentException("Invalid argument(s) for operator SORT");
+        if (isVariable(arg0))
+            return new SortBy((AbstractBQLOperator) arg1, ((BQLTokenizer.Token) arg0).getText());
+
+        // [a DESC, b ASC, c], a direction applies to the field in front of it
+        List<String> fieldNames = new ArrayList<>();
+        List<Boolean> ascending = new ArrayList<>();
+        for (String text : ((BQLTokenizer.Token) arg0).getTexts()) {
+            boolean direction = text.equalsIgnoreCase("ASC") || text.equalsIgnoreCase("DESC");
+            if (direction && !fieldNames.isEmpty())
+                ascending.set(ascending.size() - 1, text.equalsIgnoreCase("ASC"));
+            else if (direction)
+                throw new IllegalArgumentException("Sort direction " + text + " without a field");
+            else {
+                fieldNames.add(text);
+                ascending.add(true);
+            }
+        }
+        if (fieldNames.isEmpty())
             throw new IllegalArgumentException("Invalid argument(s) for operator SORT");
-        return new SortBy((AbstractBQLOperator) arg1, ((BQLTokenizer.Token) arg0).getText());
+        boolean[] directions = new boolean[ascending.size()];
+        for (int i = 0; i < directions.length; i++)
+            directions[i] = ascending.get(i);
+        return new SortBy((AbstractBQLOperator) arg1, fieldNames.toArray(new String[fieldNames.size()]), directions);
     }
 
     private static AbstractBQLOperator buildAnd(Stack<Object> stk) {
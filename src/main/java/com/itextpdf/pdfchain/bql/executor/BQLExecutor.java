@@ -1,17 +1,33 @@
 package com.itextpdf.pdfchain.bql.executor;
 
 import com.itextpdf.pdfchain.blockchain.IBlockChain;
+import com.itextpdf.pdfchain.blockchain.IColumnarBlockChain;
+import com.itextpdf.pdfchain.blockchain.IStreamBlockChain;
 import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.index.IndexedBlockChain;
 import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregate;
+import com.itextpdf.pdfchain.bql.codegen.BQLPredicateCompiler;
 import com.itextpdf.pdfchain.bql.logical.And;
+import com.itextpdf.pdfchain.bql.logical.Or;
 import com.itextpdf.pdfchain.bql.relational.EqualID;
 import com.itextpdf.pdfchain.bql.sort.SortBy;
 import com.itextpdf.pdfchain.bql.transform.Select;
 
 import java.util.ArrayList;
+import java.util.BitSet;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashSet;
 import java.util.List;
-import java.util.Stack;
+import java.util.Set;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
 
 /**
  * BQLExecutor for BQL
@@ -21,56 +37,347 @@ import java.util.Stack;
 public class BQLExecutor {
 
     private IBlockChain blockchain;
+    private boolean compileFilters = false;
+    private ParallelEvaluator parallelEvaluator = null;
+    // the pool created by setParallelism, which is shut down when it is replaced
+    private ForkJoinPool ownedPool = null;
+    private boolean columnarScans = false;
+    private BQLResultCache resultCache = null;
+    private final List<BQLSubscription> subscriptions = new CopyOnWriteArrayList<>();
+    private ScheduledExecutorService poller = null;
 
     public BQLExecutor(IBlockChain blockchain) {
         this.blockchain = blockchain;
     }
 
+    /**
+     * Set whether filters should be compiled into generated predicates before they are executed
+     *
+     * @param compileFilters true to execute filters through BQLPredicateCompiler, false to interpret the operator tree
+     * @return this executor
+     */
+    public BQLExecutor setCompileFilters(boolean compileFilters) {
+        this.compileFilters = compileFilters;
+        return this;
+    }
+
+    /**
+     * Set the number of threads used to execute a query.
+     * With more than one thread, the records are split into chunks that are filtered and projected in parallel,
+     * and sorting is done with a parallel merge sort.
+     *
+     * The pool created for a previous call is shut down.
+     *
+     * @param parallelism the number of threads, 1 to execute queries on the calling thread
+     * @return this executor
+     */
+    public BQLExecutor setParallelism(int parallelism) {
+        if (parallelism < 1)
+            throw new IllegalArgumentException("Parallelism must be at least 1");
+        ForkJoinPool pool = (parallelism == 1) ? null : new ForkJoinPool(parallelism);
+        replacePool(pool);
+        this.ownedPool = pool;
+        return this;
+    }
+
+    /**
+     * Set the pool used to execute queries in parallel
+     *
+     * The pool is not shut down by this executor.
+     *
+     * @param pool the pool on which chunks of records are processed, or null to execute queries on the calling thread
+     * @return this executor
+     */
+    public BQLExecutor setForkJoinPool(ForkJoinPool pool) {
+        replacePool(pool);
+        return this;
+    }
+
+    private void replacePool(ForkJoinPool pool) {
+        if (ownedPool != null) {
+            ownedPool.shutdown();
+            ownedPool = null;
+        }
+        this.parallelEvaluator = (pool == null) ? null : new ParallelEvaluator(pool);
+    }
+
+    /**
+     * Set whether full scans should be executed over a columnar RecordBatch.
+     * This only has effect if the blockchain implements IColumnarBlockChain. Records are then decoded straight into columns,
+     * filters work on those columns, and only the records that pass the filters are built.
+     *
+     * @param columnarScans true to scan batches, false to scan records
+     * @return this executor
+     */
+    public BQLExecutor setColumnarScans(boolean columnarScans) {
+        this.columnarScans = columnarScans;
+        return this;
+    }
+
+    /**
+     * Set the cache in which query results are kept.
+     * This only has effect if the blockchain implements IStreamBlockChain, since a result is only valid for the block height
+     * and number of items at which it was computed. A query is looked up by its normalised form, so "a > 1 AND b > 2" and "b > 2 AND a > 1" share a result.
+     * Cached results hold the same Record instances for every caller, which should not modify them.
+     *
+     * @param resultCache the cache, or null to always execute queries
+     * @return this executor
+     */
+    public BQLExecutor setResultCache(BQLResultCache resultCache) {
+        this.resultCache = resultCache;
+        return this;
+    }
+
     public Collection<Record> execute(AbstractBQLOperator op) {
-        Object id = useID(op);
-        Collection<Record> db = (id == null) ? blockchain.all() : blockchain.get(id.toString());
-        return op.apply(db);
-    }
-
-    private List<AbstractBQLOperator> leaves(AbstractBQLOperator root) {
-        List<AbstractBQLOperator> out = new ArrayList<>();
-        Stack<AbstractBQLOperator> operatorStack = new Stack<>();
-        operatorStack.push(root);
-        while (!operatorStack.isEmpty()) {
-            AbstractBQLOperator op = operatorStack.pop();
-            if (op.getChildren().isEmpty())
-                out.add(op);
-            else {
-                for (AbstractBQLOperator c : op.getChildren())
-                    operatorStack.push(c);
-            }
+        if (resultCache == null || !(blockchain instanceof IStreamBlockChain))
+            return executeUncached(op);
+
+        String plan = BQLPlanNormalizer.normalize(op);
+        IStreamBlockChain chain = (IStreamBlockChain) blockchain;
+        long height = chain.height();
+        if (plan == null || height < 0)
+            return executeUncached(op);
+        int size = chain.size();
+
+        List<Record> cached = resultCache.get(blockchain, plan, height, size);
+        if (cached == null) {
+            cached = Collections.unmodifiableList(new ArrayList<>(executeUncached(op)));
+            resultCache.put(blockchain, plan, height, size, cached);
         }
-        return out;
+        return new ArrayList<>(cached);
+    }
+
+    private Collection<Record> executeUncached(AbstractBQLOperator op) {
+        if (columnarScans && blockchain instanceof IColumnarBlockChain && keys(op) == null)
+            return ColumnarEvaluator.apply(op, ((IColumnarBlockChain) blockchain).allBatch());
+
+        return evaluate(op, fetch(op));
     }
 
-    private Object useID(AbstractBQLOperator root) {
-        for (AbstractBQLOperator leaf : leaves(root)) {
-            AbstractBQLOperator tmp = leaf;
-            if (!(tmp instanceof EqualID))
+    /**
+     * Execute a query and measure it.
+     * The records are fetched the same way execute fetches them, the operators are then evaluated one by one
+     * on the calling thread, without compiling filters, scanning columns or using the result cache,
+     * so that every operator can be measured.
+     *
+     * @param op the root of a tree of BQL operators
+     * @return the records the query returned, the access path, and the measurements of every operator
+     */
+    public BQLExplanation explainAnalyze(AbstractBQLOperator op) {
+        BQLExplanation explanation = new BQLExplanation();
+
+        long start = System.nanoTime();
+        long allocated = BQLPlanProfiler.allocatedBytes();
+        Collection<Record> db = fetch(op, explanation);
+        explanation.fetchNanos = System.nanoTime() - start;
+        if (allocated >= 0)
+            explanation.fetchAllocatedBytes = BQLPlanProfiler.allocatedBytes() - allocated;
+        explanation.fetchedRows = db.size();
+
+        if (explanation.getAccessPath() == BQLExplanation.AccessPath.FULL_SCAN && containsEqualID(op))
+            explanation.addNote("a condition on id1 is combined with OR, or sits under an operator that is not AND, so it can not select keys to get");
+        if (columnarScans && blockchain instanceof IColumnarBlockChain && keys(op) == null)
+            explanation.addNote("execute scans a columnar batch instead, operators were measured on records");
+
+        BQLPlanNode top = new BQLPlanNode("");
+        explanation.result = BQLPlanProfiler.profile(op, db, top);
+        explanation.root = top.getChildren().get(0);
+        return explanation;
+    }
+
+    /**
+     * Register a standing query.
+     * Every poll evaluates the query against the items that were published since the previous poll only,
+     * and passes the outcome to the listener if it is not empty.
+     * Items that were published before the subscription was made are never seen.
+     *
+     * @param op       the root of a tree of BQL operators, which may not aggregate
+     * @param listener the listener that receives the records
+     * @return the subscription
+     */
+    public BQLSubscription subscribe(AbstractBQLOperator op, IBQLSubscriptionListener listener) {
+        if (!(blockchain instanceof IStreamBlockChain))
+            throw new IllegalStateException("Subscriptions require a blockchain that implements IStreamBlockChain");
+        if (aggregates(op))
+            throw new IllegalArgumentException("Aggregating queries can not be evaluated incrementally");
+        BQLSubscription subscription = new BQLSubscription(op, listener, ((IStreamBlockChain) blockchain).size());
+        subscriptions.add(subscription);
+        return subscription;
+    }
+
+    /**
+     * Fetch the items that were published since the previous poll, and evaluate every subscription against them.
+     * The new items are fetched once, for all subscriptions.
+     */
+    public synchronized void poll() {
+        for (BQLSubscription subscription : subscriptions) {
+            if (subscription.isCancelled())
+                subscriptions.remove(subscription);
+        }
+        if (subscriptions.isEmpty())
+            return;
+
+        IStreamBlockChain chain = (IStreamBlockChain) blockchain;
+        int size = chain.size();
+        int from = size;
+        for (BQLSubscription subscription : subscriptions)
+            from = Math.min(from, subscription.getPosition());
+        if (from >= size)
+            return;
+
+        List<Record> items = chain.range(from, size - from);
+        int to = from + items.size();
+        for (BQLSubscription subscription : subscriptions) {
+            int position = subscription.getPosition();
+            if (position >= to)
                 continue;
-            boolean pathUp = true;
-            while (tmp.getParent() != null) {
-                AbstractBQLOperator parent = tmp.getParent();
-                if (!enforcesID(parent)) {
-                    pathUp = false;
-                    break;
+            Collection<Record> records = evaluate(subscription.getQuery(), items.subList(position - from, items.size()));
+            subscription.setPosition(to);
+            if (!records.isEmpty() && !subscription.isCancelled())
+                subscription.getListener().onRecords(subscription, records);
+        }
+    }
+
+    /**
+     * Poll for new items on a background thread, with a fixed delay between two polls
+     *
+     * @param period the time between two polls
+     * @param unit   the unit of period
+     * @return this executor
+     */
+    public synchronized BQLExecutor startPolling(long period, TimeUnit unit) {
+        stopPolling();
+        poller = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+            @Override
+            public Thread newThread(Runnable r) {
+                Thread t = new Thread(r, "bql-subscriptions");
+                t.setDaemon(true);
+                return t;
+            }
+        });
+        poller.scheduleWithFixedDelay(new Runnable() {
+            @Override
+            public void run() {
+                // an exception would cancel all further polls
+                try {
+                    poll();
+                } catch (RuntimeException e) {
+                    e.printStackTrace();
                 }
-                tmp = parent;
             }
-            if (pathUp)
-                return ((EqualID) leaf).getSelectedValue();
+        }, period, period, unit);
+        return this;
+    }
+
+    /**
+     * Stop polling for new items
+     */
+    public synchronized void stopPolling() {
+        if (poller != null) {
+            poller.shutdownNow();
+            poller = null;
         }
-        return null;
     }
 
-    private boolean enforcesID(AbstractBQLOperator operator) {
-        return (operator instanceof And) ||
-                (operator instanceof Select) ||
-                (operator instanceof SortBy);
+    private Collection<Record> evaluate(AbstractBQLOperator op, Collection<Record> db) {
+        AbstractBQLOperator plan = compileFilters ? BQLPredicateCompiler.compileFilters(op) : op;
+        return parallelEvaluator == null ? plan.apply(db) : parallelEvaluator.apply(plan, db);
+    }
+
+    private static boolean aggregates(AbstractBQLOperator op) {
+        if (op instanceof Aggregate)
+            return true;
+        for (AbstractBQLOperator child : op.getChildren()) {
+            if (aggregates(child))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Fetch the records a query needs.
+     * When the query only retains records with specific IDs, those IDs are fetched by key instead of fetching all records.
+     * Otherwise, if the blockchain keeps indexes, only the records the indexes allow are fetched.
+     */
+    private Collection<Record> fetch(AbstractBQLOperator op) {
+        return fetch(op, null);
+    }
+
+    /**
+     * Fetch the records a query needs
+     *
+     * @param op          the root of a tree of BQL operators
+     * @param explanation the explanation the access path is written to, or null
+     */
+    private Collection<Record> fetch(AbstractBQLOperator op, BQLExplanation explanation) {
+        Set<String> ids = keys(op);
+        if (ids == null && blockchain instanceof IndexedBlockChain) {
+            BitSet rows = IndexPlanner.candidates(op, ((IndexedBlockChain) blockchain).getIndexManager());
+            if (rows != null) {
+                if (explanation != null)
+                    explanation.setAccessPath(BQLExplanation.AccessPath.INDEX_LOOKUP, null);
+                return ((IndexedBlockChain) blockchain).getIndexManager().getRecords(rows);
+            }
+        }
+        if (explanation != null)
+            explanation.setAccessPath(ids == null ? BQLExplanation.AccessPath.FULL_SCAN : BQLExplanation.AccessPath.KEYED_GET, ids);
+        if (ids == null)
+            return blockchain.all();
+        if (ids.size() == 1)
+            return blockchain.get(ids.iterator().next());
+
+        // union of keyed fetches, a record is kept once even if it is returned for several keys
+        List<Record> out = new ArrayList<>();
+        Set<Record> seen = Collections.newSetFromMap(new IdentityHashMap<Record, Boolean>());
+        for (String id : ids) {
+            for (Record r : blockchain.get(id)) {
+                if (seen.add(r))
+                    out.add(r);
+            }
+        }
+        return out;
+    }
+
+    private static boolean containsEqualID(AbstractBQLOperator op) {
+        if (op instanceof EqualID)
+            return true;
+        for (AbstractBQLOperator child : op.getChildren()) {
+            if (containsEqualID(child))
+                return true;
+        }
+        return false;
+    }
+
+    /**
+     * Determine which IDs a query can possibly retain
+     *
+     * @param op the root of a tree of BQL operators
+     * @return the Set of IDs, or null if the query can retain records with any ID
+     */
+    private Set<String> keys(AbstractBQLOperator op) {
+        if (op instanceof EqualID) {
+            Set<String> out = new LinkedHashSet<>();
+            out.add(((EqualID) op).getSelectedValue().toString());
+            return out;
+        }
+        if (op instanceof And) {
+            Set<String> left = keys(op.getChildren().get(0));
+            Set<String> right = keys(op.getChildren().get(1));
+            if (left == null || right == null)
+                return left == null ? right : left;
+            left.retainAll(right);
+            return left;
+        }
+        if (op instanceof Or) {
+            Set<String> left = keys(op.getChildren().get(0));
+            Set<String> right = keys(op.getChildren().get(1));
+            if (left == null || right == null)
+                return null;
+            left.addAll(right);
+            return left;
+        }
+        if (op instanceof Select || op instanceof SortBy || op instanceof Aggregate)
+            return keys(op.getChildren().get(0));
+        return null;
     }
 }
@@ -0,0 +1,131 @@
+package com.itextpdf.pdfchain.bql.executor;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Outcome of BQLExecutor.explainAnalyze: the records a query returned, how they were fetched from the blockchain,
+ * and the measurements of every operator. toString renders the plan as an indented tree.
+ */
+public class BQLExplanation {
+
+    /**
+     * The way records are fetched from the blockchain
+     */
+    public enum AccessPath {
+        /**
+         * every record is fetched with IBlockChain.all
+         */
+        FULL_SCAN,
+        /**
+         * only records with specific keys are fetched with IBlockChain.get
+         */
+        KEYED_GET,
+        /**
+         * the indexes of an IndexedBlockChain select the records
+         */
+        INDEX_LOOKUP
+    }
+
+    private AccessPath accessPath;
+    private Set<String> keys = Collections.emptySet();
+    private final List<String> notes = new ArrayList<>();
+    long fetchedRows;
+    long fetchNanos;
+    long fetchAllocatedBytes = -1;
+    BQLPlanNode root;
+    Collection<Record> result;
+
+    BQLExplanation() {
+    }
+
+    public AccessPath getAccessPath() {
+        return accessPath;
+    }
+
+    /**
+     * @return the keys that were fetched with IBlockChain.get, empty unless the access path is KEYED_GET
+     */
+    public Set<String> getKeys() {
+        return Collections.unmodifiableSet(keys);
+    }
+
+    /**
+     * @return remarks about the plan, such as why keys could not be used
+     */
+    public List<String> getNotes() {
+        return Collections.unmodifiableList(notes);
+    }
+
+    public long getFetchedRows() {
+        return fetchedRows;
+    }
+
+    public long getFetchNanos() {
+        return fetchNanos;
+    }
+
+    /**
+     * @return the number of bytes allocated while fetching, or -1 if it was not measured
+     */
+    public long getFetchAllocatedBytes() {
+        return fetchAllocatedBytes;
+    }
+
+    /**
+     * @return the measurements of the root operator
+     */
+    public BQLPlanNode getRoot() {
+        return root;
+    }
+
+    /**
+     * @return the records the query returned
+     */
+    public Collection<Record> getResult() {
+        return result;
+    }
+
+    void setAccessPath(AccessPath accessPath, Set<String> keys) {
+        this.accessPath = accessPath;
+        this.keys = keys == null ? Collections.<String>emptySet() : keys;
+    }
+
+    void addNote(String note) {
+        notes.add(note);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder();
+        sb.append("FETCH ").append(accessPath);
+        if (accessPath == AccessPath.KEYED_GET)
+            sb.append(' ').append(keys);
+        sb.append("  rows=").append(fetchedRows).append("  time=").append(formatNanos(fetchNanos));
+        if (fetchAllocatedBytes >= 0)
+            sb.append("  allocated=").append(formatBytes(fetchAllocatedBytes));
+        sb.append('\n');
+        for (String note : notes)
+            sb.append("  note: ").append(note).append('\n');
+        if (root != null)
+            root.appendTo(sb, 0);
+        return sb.toString();
+    }
+
+    static String formatNanos(long nanos) {
+        return String.format("%.3f ms", nanos / 1e6);
+    }
+
+    static String formatBytes(long bytes) {
+        if (bytes < 1024)
+            return bytes + " B";
+        if (bytes < 1024 * 1024)
+            return String.format("%.1f KB", bytes / 1024.0);
+        return String.format("%.1f MB", bytes / (1024.0 * 1024.0));
+    }
+}
@@ -0,0 +1,84 @@
+package com.itextpdf.pdfchain.bql.executor;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Measurements of a single operator, taken while executing a query with BQLExecutor.explainAnalyze
+ */
+public class BQLPlanNode {
+
+    private final String description;
+    private final List<BQLPlanNode> children = new ArrayList<>();
+    long rowsIn = 0;
+    long rowsOut = 0;
+    long wallNanos = -1;
+    long allocatedBytes = -1;
+
+    BQLPlanNode(String description) {
+        this.description = description;
+    }
+
+    /**
+     * @return a description of the operator, such as SORT [blocktime DESC]
+     */
+    public String getDescription() {
+        return description;
+    }
+
+    public List<BQLPlanNode> getChildren() {
+        return Collections.unmodifiableList(children);
+    }
+
+    /**
+     * @return the number of records the operator was given
+     */
+    public long getRowsIn() {
+        return rowsIn;
+    }
+
+    /**
+     * @return the number of records the operator returned
+     */
+    public long getRowsOut() {
+        return rowsOut;
+    }
+
+    /**
+     * Get the time spent in this operator, including its children
+     *
+     * @return the time in nanoseconds, or -1 if the operator was evaluated together with its parent filter
+     */
+    public long getWallNanos() {
+        return wallNanos;
+    }
+
+    /**
+     * Get the memory allocated by this operator, including its children
+     *
+     * @return the number of bytes, or -1 if it was not measured
+     */
+    public long getAllocatedBytes() {
+        return allocatedBytes;
+    }
+
+    void addChild(BQLPlanNode child) {
+        children.add(child);
+    }
+
+    void appendTo(StringBuilder sb, int depth) {
+        for (int i = 0; i < depth; i++)
+            sb.append("  ");
+        sb.append(description).append("  rows in=").append(rowsIn).append(" out=").append(rowsOut);
+        if (wallNanos < 0)
+            sb.append("  (evaluated with parent)");
+        else
+            sb.append("  time=").append(BQLExplanation.formatNanos(wallNanos));
+        if (allocatedBytes >= 0)
+            sb.append("  allocated=").append(BQLExplanation.formatBytes(allocatedBytes));
+        sb.append('\n');
+        for (BQLPlanNode child : children)
+            child.appendTo(sb, depth + 1);
+    }
+}
@@ -0,0 +1,153 @@
+package com.itextpdf.pdfchain.bql.executor;
+
+import com.itextpdf.pdfchain.bql.AbstractBQLFilter;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregate;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregation;
+import com.itextpdf.pdfchain.bql.codegen.CompiledFilter;
+import com.itextpdf.pdfchain.bql.logical.And;
+import com.itextpdf.pdfchain.bql.logical.Or;
+import com.itextpdf.pdfchain.bql.relational.Equal;
+import com.itextpdf.pdfchain.bql.relational.EqualID;
+import com.itextpdf.pdfchain.bql.relational.Greater;
+import com.itextpdf.pdfchain.bql.relational.GreaterOrEqual;
+import com.itextpdf.pdfchain.bql.relational.NotEqual;
+import com.itextpdf.pdfchain.bql.relational.Smaller;
+import com.itextpdf.pdfchain.bql.relational.SmallerOrEqual;
+import com.itextpdf.pdfchain.bql.relational.Star;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import com.itextpdf.pdfchain.bql.string.EndsWith;
+import com.itextpdf.pdfchain.bql.string.StartsWith;
+import com.itextpdf.pdfchain.bql.transform.Select;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Builds a canonical description of a tree of BQL operators.
+ * Two trees with the same description yield the same records:
+ * the operands of AND and OR are flattened and sorted when they are all filters, and so are the fields of SELECT,
+ * and constants are described together with their type, since 12 and 12.0 are not equal in BQL.
+ */
+class BQLPlanNormalizer {
+
+    private BQLPlanNormalizer() {
+    }
+
+    /**
+     * Describe a query
+     *
+     * @param op the root of a tree of BQL operators
+     * @return the description, or null if the tree contains an operator that can not be described
+     */
+    static String normalize(AbstractBQLOperator op) {
+        StringBuilder sb = new StringBuilder();
+        return append(sb, op) ? sb.toString() : null;
+    }
+
+    private static boolean append(StringBuilder sb, AbstractBQLOperator op) {
+        if (op instanceof CompiledFilter)
+            return append(sb, ((CompiledFilter) op).getSource());
+        if (op instanceof And || op instanceof Or) {
+            String name = op instanceof And ? "AND" : "OR";
+            if (!AbstractBQLFilter.isPredicate(op)) {
+                // operators that are not filters are applied in order, so their operands do not commute
+                sb.append(name).append('(');
+                if (!append(sb, op.getChildren().get(0)))
+                    return false;
+                sb.append(',');
+                if (!append(sb, op.getChildren().get(1)))
+                    return false;
+                sb.append(')');
+                return true;
+            }
+            // AND and OR of filters are associative and commutative
+            List<String> operands = new ArrayList<>();
+            if (!flatten(op, op.getClass(), operands))
+                return false;
+            Collections.sort(operands);
+            sb.append(name).append(operands);
+            return true;
+        }
+        if (op instanceof Star) {
+            sb.append('*');
+            return true;
+        }
+        if (op instanceof EqualID)
+            return comparison(sb, "==", "id1", ((EqualID) op).getSelectedValue());
+        if (op instanceof Equal)
+            return comparison(sb, "==", ((Equal) op).getFieldName(), ((Equal) op).getFieldValue());
+        if (op instanceof NotEqual)
+            return comparison(sb, "!=", ((NotEqual) op).getFieldName(), ((NotEqual) op).getFieldValue());
+        if (op instanceof Greater)
+            return comparison(sb, ">", ((Greater) op).getFieldName(), ((Greater) op).getFieldValue());
+        if (op instanceof GreaterOrEqual)
+            return comparison(sb, ">=", ((GreaterOrEqual) op).getFieldName(), ((GreaterOrEqual) op).getFieldValue());
+        if (op instanceof Smaller)
+            return comparison(sb, "<", ((Smaller) op).getFieldName(), ((Smaller) op).getFieldValue());
+        if (op instanceof SmallerOrEqual)
+            return comparison(sb, "<=", ((SmallerOrEqual) op).getFieldName(), ((SmallerOrEqual) op).getFieldValue());
+        if (op instanceof StartsWith)
+            return comparison(sb, "STARTS_WITH", ((StartsWith) op).getFieldName(), ((StartsWith) op).getPrefix());
+        if (op instanceof EndsWith)
+            return comparison(sb, "ENDS_WITH", ((EndsWith) op).getFieldName(), ((EndsWith) op).getSuffix());
+        if (op instanceof Select) {
+            String[] fieldNames = ((Select) op).getFieldNames().clone();
+            Arrays.sort(fieldNames);
+            sb.append(((Select) op).isDistinct() ? "SELECT DISTINCT" : "SELECT").append(Arrays.toString(fieldNames)).append('(');
+            return child(sb, op);
+        }
+        if (op instanceof SortBy) {
+            SortBy sortBy = (SortBy) op;
+            sb.append("SORT[");
+            for (int i = 0; i < sortBy.getFieldNames().length; i++)
+                sb.append(sortBy.getFieldNames()[i]).append(sortBy.getAscending()[i] ? " ASC," : " DESC,");
+            sb.append("](");
+            return child(sb, op);
+        }
+        if (op instanceof Aggregate) {
+            sb.append("GROUP_BY").append(Arrays.toString(((Aggregate) op).getGroupBy())).append('[');
+            for (Aggregation aggregation : ((Aggregate) op).getAggregations())
+                sb.append(aggregation.getOutputName()).append(',');
+            sb.append("](");
+            return child(sb, op);
+        }
+        return false;
+    }
+
+    private static boolean child(StringBuilder sb, AbstractBQLOperator op) {
+        if (!append(sb, op.getChildren().get(0)))
+            return false;
+        sb.append(')');
+        return true;
+    }
+
+    private static boolean flatten(AbstractBQLOperator op, Class<?> type, List<String> out) {
+        if (op.getClass() == type) {
+            for (AbstractBQLOperator child : op.getChildren()) {
+                if (!flatten(child, type, out))
+                    return false;
+            }
+            return true;
+        }
+        String operand = normalize(op);
+        if (operand == null)
+            return false;
+        out.add(operand);
+        return true;
+    }
+
+    private static boolean comparison(StringBuilder sb, String operator, String fieldName, Object value) {
+        sb.append('(').append(fieldName).append(' ').append(operator).append(' ');
+        if (value == null)
+            sb.append("null");
+        else if (value instanceof String)
+            sb.append('\'').append(((String) value).replace("\\", "\\\\").replace("'", "\\'")).append('\'');
+        else
+            sb.append(value.getClass().getSimpleName()).append(':').append(value);
+        sb.append(')');
+        return true;
+    }
+}
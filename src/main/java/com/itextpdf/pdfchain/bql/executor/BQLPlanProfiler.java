@@ -0,0 +1,173 @@
+package com.itextpdf.pdfchain.bql.executor;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLFilter;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregate;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregation;
+import com.itextpdf.pdfchain.bql.logical.And;
+import com.itextpdf.pdfchain.bql.logical.Or;
+import com.itextpdf.pdfchain.bql.relational.Star;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import com.itextpdf.pdfchain.bql.transform.Select;
+
+import java.lang.management.ManagementFactory;
+import java.lang.management.ThreadMXBean;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Evaluates a tree of BQL operators on the calling thread, measuring every operator.
+ * A tree of filters is evaluated in a single pass, like AbstractBQLFilter.apply does:
+ * every operator in it counts the records it tests and accepts, the time is measured for the tree as a whole.
+ */
+class BQLPlanProfiler {
+
+    private BQLPlanProfiler() {
+    }
+
+    /**
+     * Evaluate an operator
+     *
+     * @param op     the operator
+     * @param in     the input records
+     * @param parent the node the measurements of op are added to
+     * @return the output records
+     */
+    static Collection<Record> profile(AbstractBQLOperator op, Collection<Record> in, BQLPlanNode parent) {
+        long start = System.nanoTime();
+        long allocated = allocatedBytes();
+
+        BQLPlanNode node;
+        Collection<Record> out;
+        if (AbstractBQLFilter.isPredicate(op)) {
+            node = predicateNode(op);
+            out = new ArrayList<>();
+            for (Record r : in) {
+                if (test(op, node, r))
+                    out.add(r);
+            }
+        } else {
+            node = new BQLPlanNode(describe(op));
+            node.rowsIn = in.size();
+            out = evaluate(op, in, node);
+            node.rowsOut = out.size();
+        }
+
+        node.wallNanos = System.nanoTime() - start;
+        if (allocated >= 0)
+            node.allocatedBytes = allocatedBytes() - allocated;
+        parent.addChild(node);
+        return out;
+    }
+
+    private static Collection<Record> evaluate(AbstractBQLOperator op, Collection<Record> in, BQLPlanNode node) {
+        if (op instanceof And) {
+            // the left operand is applied to the output of the right operand
+            Collection<Record> right = profile(op.getChildren().get(1), in, node);
+            return profile(op.getChildren().get(0), right, node);
+        }
+        if (op instanceof Or) {
+            List<Record> out = new ArrayList<>(profile(op.getChildren().get(0), in, node));
+            Set<Record> seen = Collections.newSetFromMap(new IdentityHashMap<Record, Boolean>());
+            seen.addAll(out);
+            for (Record r : profile(op.getChildren().get(1), in, node)) {
+                if (seen.add(r))
+                    out.add(r);
+            }
+            return out;
+        }
+        if (op instanceof Select) {
+            Select select = (Select) op;
+            List<Record> projected = select.project(profile(op.getChildren().get(0), in, node));
+            return select.isDistinct() ? select.deduplicate(projected) : projected;
+        }
+        if (op instanceof SortBy)
+            return ((SortBy) op).sort(profile(op.getChildren().get(0), in, node));
+        if (op instanceof Aggregate)
+            return ((Aggregate) op).aggregate(profile(op.getChildren().get(0), in, node));
+        return op.apply(in);
+    }
+
+    /**
+     * Build the nodes of a tree of filters, the children are evaluated together with the root
+     */
+    private static BQLPlanNode predicateNode(AbstractBQLOperator op) {
+        BQLPlanNode node = new BQLPlanNode(describe(op));
+        if (op instanceof And || op instanceof Or) {
+            for (AbstractBQLOperator child : op.getChildren())
+                node.addChild(predicateNode(child));
+        }
+        return node;
+    }
+
+    /**
+     * Test a record the way And and Or do, counting the records every operator sees
+     */
+    private static boolean test(AbstractBQLOperator op, BQLPlanNode node, Record r) {
+        node.rowsIn++;
+        boolean accepted;
+        if (op instanceof And) {
+            accepted = test(op.getChildren().get(0), node.getChildren().get(0), r)
+                    && test(op.getChildren().get(1), node.getChildren().get(1), r);
+        } else if (op instanceof Or) {
+            accepted = test(op.getChildren().get(0), node.getChildren().get(0), r)
+                    || test(op.getChildren().get(1), node.getChildren().get(1), r);
+        } else {
+            accepted = ((AbstractBQLFilter) op).test(r);
+        }
+        if (accepted)
+            node.rowsOut++;
+        return accepted;
+    }
+
+    static String describe(AbstractBQLOperator op) {
+        if (op instanceof And)
+            return "AND";
+        if (op instanceof Or)
+            return "OR";
+        if (op instanceof Star)
+            return "*";
+        if (op instanceof Select)
+            return (((Select) op).isDistinct() ? "SELECT DISTINCT " : "SELECT ") + Arrays.toString(((Select) op).getFieldNames());
+        if (op instanceof SortBy) {
+            SortBy sortBy = (SortBy) op;
+            StringBuilder sb = new StringBuilder("SORT [");
+            for (int i = 0; i < sortBy.getFieldNames().length; i++) {
+                if (i > 0)
+                    sb.append(", ");
+                sb.append(sortBy.getFieldNames()[i]).append(sortBy.getAscending()[i] ? " ASC" : " DESC");
+            }
+            return sb.append(']').toString();
+        }
+        if (op instanceof Aggregate) {
+            Aggregate aggregate = (Aggregate) op;
+            List<String> outputs = new ArrayList<>();
+            for (Aggregation aggregation : aggregate.getAggregations())
+                outputs.add(aggregation.getOutputName());
+            return "AGGREGATE " + outputs + (aggregate.getGroupBy().length == 0 ? "" : " GROUP_BY " + Arrays.toString(aggregate.getGroupBy()));
+        }
+        String description = BQLPlanNormalizer.normalize(op);
+        return description == null ? op.getClass().getSimpleName() : description;
+    }
+
+    /**
+     * Get the number of bytes allocated by the calling thread so far
+     *
+     * @return the number of bytes, or -1 if the JVM does not measure allocations
+     */
+    static long allocatedBytes() {
+        ThreadMXBean bean = ManagementFactory.getThreadMXBean();
+        if (!(bean instanceof com.sun.management.ThreadMXBean))
+            return -1;
+        com.sun.management.ThreadMXBean sunBean = (com.sun.management.ThreadMXBean) bean;
+        if (!sunBean.isThreadAllocatedMemorySupported() || !sunBean.isThreadAllocatedMemoryEnabled())
+            return -1;
+        return sunBean.getThreadAllocatedBytes(Thread.currentThread().getId());
+    }
+}
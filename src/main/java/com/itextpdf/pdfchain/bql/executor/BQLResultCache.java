@@ -0,0 +1,99 @@
+package com.itextpdf.pdfchain.bql.executor;
+
+import com.itextpdf.pdfchain.blockchain.IBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Least recently used cache of query results.
+ * A result is stored for a blockchain, a normalised query, and the block height and number of items at which it was computed,
+ * so it is no longer found once a new block or a new unconfirmed item arrives, and is eventually evicted.
+ * A single cache can be shared by several BQLExecutor instances.
+ */
+public class BQLResultCache {
+
+    private final int maxEntries;
+    private final Map<Key, List<Record>> entries;
+
+    // statistics
+    private long hits = 0;
+    private long misses = 0;
+
+    /**
+     * Create a BQLResultCache
+     *
+     * @param maxEntries the maximum number of results to keep
+     */
+    public BQLResultCache(final int maxEntries) {
+        if (maxEntries < 1)
+            throw new IllegalArgumentException("A result cache must hold at least one entry");
+        this.maxEntries = maxEntries;
+        this.entries = new LinkedHashMap<Key, List<Record>>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Key, List<Record>> eldest) {
+                return size() > BQLResultCache.this.maxEntries;
+            }
+        };
+    }
+
+    synchronized List<Record> get(IBlockChain blockchain, String plan, long height, int size) {
+        List<Record> out = entries.get(new Key(blockchain, plan, height, size));
+        if (out == null)
+            misses++;
+        else
+            hits++;
+        return out;
+    }
+
+    synchronized void put(IBlockChain blockchain, String plan, long height, int size, List<Record> result) {
+        entries.put(new Key(blockchain, plan, height, size), result);
+    }
+
+    public synchronized int size() {
+        return entries.size();
+    }
+
+    public synchronized void clear() {
+        entries.clear();
+    }
+
+    public synchronized long getHits() {
+        return hits;
+    }
+
+    public synchronized long getMisses() {
+        return misses;
+    }
+
+    private static class Key {
+
+        private final IBlockChain blockchain;
+        private final String plan;
+        private final long height;
+        // items are listed before they are confirmed, so a put can change a result within a block
+        private final int size;
+
+        Key(IBlockChain blockchain, String plan, long height, int size) {
+            this.blockchain = blockchain;
+            this.plan = plan;
+            this.height = height;
+            this.size = size;
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            if (!(o instanceof Key))
+                return false;
+            Key k = (Key) o;
+            return blockchain == k.blockchain && height == k.height && size == k.size && plan.equals(k.plan);
+        }
+
+        @Override
+        public int hashCode() {
+            return ((System.identityHashCode(blockchain) * 31 + plan.hashCode()) * 31 + (int) (height ^ (height >>> 32))) * 31 + size;
+        }
+    }
+}
@@ -0,0 +1,54 @@
+package com.itextpdf.pdfchain.bql.executor;
+
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+
+/**
+ * A query registered with BQLExecutor.subscribe.
+ * Every poll evaluates the query against the items published since the previous poll,
+ * so fields that change after publication (such as confirmations) are seen with the value they had at that time.
+ */
+public class BQLSubscription {
+
+    private final AbstractBQLOperator query;
+    private final IBQLSubscriptionListener listener;
+    private volatile int position;
+    private volatile boolean cancelled = false;
+
+    BQLSubscription(AbstractBQLOperator query, IBQLSubscriptionListener listener, int position) {
+        this.query = query;
+        this.listener = listener;
+        this.position = position;
+    }
+
+    public AbstractBQLOperator getQuery() {
+        return query;
+    }
+
+    /**
+     * Get the index of the first item this subscription has not seen yet
+     *
+     * @return the item index
+     */
+    public int getPosition() {
+        return position;
+    }
+
+    /**
+     * Stop delivering records to the listener
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    public boolean isCancelled() {
+        return cancelled;
+    }
+
+    IBQLSubscriptionListener getListener() {
+        return listener;
+    }
+
+    void setPosition(int position) {
+        this.position = position;
+    }
+}
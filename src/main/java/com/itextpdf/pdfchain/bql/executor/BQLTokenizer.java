@@ -4,7 +4,9 @@ import java.util.ArrayList;
 import java.util.List;
 
 /**
- * (greedy) Tokenizer for BQL
+ * Single-pass tokenizer for BQL
+ * Every character is classified exactly once, and the class of the first character of a token
+ * decides which token is being read. Keywords are recognized after a word has been scanned.
  */
 class BQLTokenizer {
 
@@ -23,15 +25,22 @@ class BQLTokenizer {
     public static class Token {
         private String[] text;
         private Type type;
+        private int position;
 
         Token(String[] text) {
             this.text = text;
             this.type = Type.ARRAY;
+            this.position = -1;
         }
 
         Token(String text, Type type) {
+            this(text, type, -1);
+        }
+
+        Token(String text, Type type, int position) {
             this.text = new String[]{text};
             this.type = type;
+            this.position = position;
         }
 
         String getText() {
@@ -46,118 +55,224 @@ class BQLTokenizer {
             return type;
         }
 
+        /**
+         * Get the offset of this token in the original input
+         *
+         * @return the offset of the first character of this token, or -1 if the token was not read from input
+         */
+        int getPosition() {
+            return position;
+        }
+
         public String toString() {
             return text[0] + " [" + type.toString() + "]";
         }
     }
 
+    // keywords that are made up of word characters (symbolic operators are handled separately)
+    private static final String[] KEYWORDS = {"AND", "ENDS_WITH", "GROUP_BY", "OR", "SELECT", "SORT", "STARTS_WITH", "WHERE"};
+
+    // aggregate functions are only keywords when an argument follows, so fields can still be called count, min, ..
+    private static final String[] FUNCTIONS = {"AVG", "COUNT", "MAX", "MIN", "SUM"};
+
+    // character classes
+    private static final int CC_WORD = 0;
+    private static final int CC_WHITESPACE = 1;
+    private static final int CC_COMMA = 2;
+    private static final int CC_LEFT_BRACKET = 3;
+    private static final int CC_RIGHT_BRACKET = 4;
+    private static final int CC_QUOTE = 5;
+    private static final int CC_SYMBOL = 6;
+    private static final int CC_DIGIT = 7;
+
+    // lookup table for the ASCII range, everything else is a word character (or whitespace)
+    private static final byte[] ASCII_CLASS = new byte[128];
+
+    static {
+        for (int c = 0; c < 128; c++) {
+            if (Character.isWhitespace((char) c))
+                ASCII_CLASS[c] = CC_WHITESPACE;
+            else if (c >= '0' && c <= '9' || c == '.')
+                ASCII_CLASS[c] = CC_DIGIT;
+            else
+                ASCII_CLASS[c] = CC_WORD;
+        }
+        ASCII_CLASS[','] = CC_COMMA;
+        ASCII_CLASS['('] = CC_LEFT_BRACKET;
+        ASCII_CLASS['['] = CC_LEFT_BRACKET;
+        ASCII_CLASS['{'] = CC_LEFT_BRACKET;
+        ASCII_CLASS[')'] = CC_RIGHT_BRACKET;
+        ASCII_CLASS[']'] = CC_RIGHT_BRACKET;
+        ASCII_CLASS['}'] = CC_RIGHT_BRACKET;
+        ASCII_CLASS['\''] = CC_QUOTE;
+        ASCII_CLASS['!'] = CC_SYMBOL;
+        ASCII_CLASS['='] = CC_SYMBOL;
+        ASCII_CLASS['<'] = CC_SYMBOL;
+        ASCII_CLASS['>'] = CC_SYMBOL;
+        ASCII_CLASS['*'] = CC_SYMBOL;
+    }
+
+    private static int charClass(char c) {
+        if (c < 128)
+            return ASCII_CLASS[c];
+        return Character.isWhitespace(c) ? CC_WHITESPACE : CC_WORD;
+    }
+
+    /**
+     * Split a BQL expression into tokens, whitespace is dropped
+     *
+     * @param input the expression
+     * @return the List of tokens, in order of appearance
+     * @throws IllegalArgumentException if the input contains an unterminated string or an unexpected character
+     */
     static List<Token> tokenize(String input) {
         List<Token> tokens = new ArrayList<>();
+        int len = input.length();
         int p = 0;
-        while (p < input.length()) {
-            Token en = next(input, p);
-            int n = p + en.getText().length();
-            if (en.getType() != Type.WHITESPACE)
-                tokens.add(en);
-            p = n;
+        while (p < len) {
+            int start = p;
+            char c = input.charAt(p);
+            switch (charClass(c)) {
+                case CC_WHITESPACE:
+                    p++;
+                    while (p < len && charClass(input.charAt(p)) == CC_WHITESPACE)
+                        p++;
+                    break;
+                case CC_COMMA:
+                    p++;
+                    tokens.add(new Token(input.substring(start, p), Type.COMMA, start));
+                    break;
+                case CC_LEFT_BRACKET:
+                    p++;
+                    tokens.add(new Token(input.substring(start, p), Type.LEFT_BRACKET, start));
+                    break;
+                case CC_RIGHT_BRACKET:
+                    p++;
+                    tokens.add(new Token(input.substring(start, p), Type.RIGHT_BRACKET, start));
+                    break;
+                case CC_QUOTE:
+                    p = input.indexOf('\'', start + 1);
+                    if (p < 0)
+                        throw new IllegalArgumentException("Unterminated string starting at position " + start);
+                    p++;
+                    tokens.add(new Token(input.substring(start, p), Type.STRING, start));
+                    break;
+                case CC_SYMBOL:
+                    p = endOfSymbol(input, start);
+                    tokens.add(new Token(input.substring(start, p), Type.OPERATOR, start));
+                    break;
+                case CC_DIGIT:
+                    p = endOfNumber(input, start);
+                    if (p > start)
+                        tokens.add(new Token(input.substring(start, p), Type.NUMBER, start));
+                    else
+                        // not a well-formed number, read it as a word instead
+                        p = readWord(input, start, tokens);
+                    break;
+                default:
+                    p = readWord(input, start, tokens);
+                    break;
+            }
         }
         return tokens;
     }
 
-    private static Token next(String input, int offset) {
-        int[] nextPos = {nextKeyword(input, offset),
-                nextNumber(input, offset),
-                nextWhitespace(input, offset),
-                nextComma(input, offset),
-                nextLeftBracket(input, offset),
-                nextRightBracket(input, offset),
-                nextString(input, offset)};
-        Type[] types = {Type.OPERATOR, Type.NUMBER, Type.WHITESPACE, Type.COMMA, Type.LEFT_BRACKET, Type.RIGHT_BRACKET, Type.STRING};
-
-        int max = nextPos[0];
-        Type type = types[0];
-        for (int i = 0; i < nextPos.length; i++) {
-            if (nextPos[i] > max) {
-                max = nextPos[i];
-                type = types[i];
-            }
+    private static int readWord(String input, int start, List<Token> tokens) {
+        int p = endOfWord(input, start);
+        if (isDistinct(input, start, p, tokens)) {
+            // SELECT DISTINCT is a single operator
+            Token select = tokens.remove(tokens.size() - 1);
+            tokens.add(new Token("SELECT DISTINCT", Type.OPERATOR, select.getPosition()));
+            return p;
         }
-        if (max == offset) {
-            max = nextVariable(input, offset);
-            type = Type.VARIABLE;
+        tokens.add(new Token(input.substring(start, p), isKeyword(input, start, p) ? Type.OPERATOR : Type.VARIABLE, start));
+        return p;
+    }
+
+    private static int endOfSymbol(String input, int offset) {
+        char c = input.charAt(offset);
+        boolean followedByEquals = offset + 1 < input.length() && input.charAt(offset + 1) == '=';
+        switch (c) {
+            case '*':
+                return offset + 1;
+            case '<':
+            case '>':
+                return followedByEquals ? (offset + 2) : (offset + 1);
+            default:
+                // '=' and '!' only exist as part of '==' and '!='
+                if (!followedByEquals)
+                    throw new IllegalArgumentException("Unexpected character '" + c + "' at position " + offset);
+                return offset + 2;
         }
-        return new Token(input.substring(offset, max), type);
     }
 
-    private static int nextVariable(String input, int offset) {
+    /**
+     * Scan a number of the form [0-9]*\.?[0-9]*, with at least one digit (like Double.parseDouble, 5. and .5 are numbers)
+     *
+     * @return the end of the number, or offset if no well-formed number starts at offset
+     */
+    private static int endOfNumber(String input, int offset) {
         int p = offset;
+        int digits = 0;
+        int dots = 0;
         while (p < input.length()) {
             char c = input.charAt(p);
-            if (c == ',' || c == '[' || c == '{' || c == '(' || c == ']' || c == '}' || c == ')' || c == ' ')
+            if (c >= '0' && c <= '9')
+                digits++;
+            else if (c == '.')
+                dots++;
+            else
                 break;
             p++;
         }
+        if (digits == 0 || dots > 1)
+            return offset;
+        // a number glued to a word (e.g. 10abc) is a word
+        if (p < input.length() && charClass(input.charAt(p)) == CC_WORD)
+            return offset;
         return p;
     }
 
-    private static int nextString(String input, int offset) {
-        if (input.charAt(offset) != '\'')
-            return offset;
+    private static int endOfWord(String input, int offset) {
         int p = offset + 1;
-        while (p < input.length() && input.charAt(p) != '\'')
+        while (p < input.length()) {
+            int cc = charClass(input.charAt(p));
+            if (cc != CC_WORD && cc != CC_DIGIT)
+                break;
             p++;
-        return input.charAt(p) == '\'' ? (p + 1) : offset;
-    }
-
-    private static int nextComma(String input, int offset) {
-        char c = input.charAt(offset);
-        if (c == ',')
-            return offset + 1;
-        return offset;
-    }
-
-    private static int nextLeftBracket(String input, int offset) {
-        char c = input.charAt(offset);
-        if (c == '(' || c == '[' || c == '{')
-            return offset + 1;
-        return offset;
+        }
+        return p;
     }
 
-    private static int nextRightBracket(String input, int offset) {
-        char c = input.charAt(offset);
-        if (c == ')' || c == ']' || c == '}')
-            return offset + 1;
-        return offset;
+    private static boolean isDistinct(String input, int start, int end, List<Token> tokens) {
+        if (end - start != 8 || !input.regionMatches(true, start, "DISTINCT", 0, 8) || tokens.isEmpty())
+            return false;
+        Token previous = tokens.get(tokens.size() - 1);
+        return previous.getType() == Type.OPERATOR && previous.getText().equalsIgnoreCase("SELECT");
     }
 
-    private static int nextKeyword(String input, int offset) {
-        input = input.toUpperCase();
-        String[] operators = {"!=", "*", "<", "<=", "==", ">", ">=", "AND", "ENDS_WITH", "OR", "SELECT", "SORT", "STARTS_WITH", "WHERE"};
-        int maxPos = offset;
-        for (String operator : operators) {
-            int endPos = input.startsWith(operator, offset) ? (offset + operator.length()) : offset;
-            maxPos = Math.max(maxPos, endPos);
-        }
-        return maxPos;
+    private static boolean isKeyword(String input, int start, int end) {
+        if (matchesAny(KEYWORDS, input, start, end))
+            return true;
+        return matchesAny(FUNCTIONS, input, start, end) && isFollowedByLeftBracket(input, end);
     }
 
-    private static int nextNumber(String input, int offset) {
-        int p = offset;
-        while (p < input.length() && (Character.isDigit(input.charAt(p)) || input.charAt(p) == '.'))
-            p++;
-        String subs = input.substring(offset, p);
-        try {
-            Double.parseDouble(subs);
-            return p;
-        } catch (NumberFormatException ex) {
-            return offset;
+    private static boolean matchesAny(String[] keywords, String input, int start, int end) {
+        int len = end - start;
+        for (String keyword : keywords) {
+            if (keyword.length() == len && input.regionMatches(true, start, keyword, 0, len))
+                return true;
         }
+        return false;
     }
 
-    private static int nextWhitespace(String input, int offset) {
+    /**
+     * Check whether the next character that is not whitespace is a left bracket, as in COUNT (..) or SUM [..]
+     */
+    private static boolean isFollowedByLeftBracket(String input, int offset) {
         int p = offset;
-        while (p < input.length() && (Character.isWhitespace(input.charAt(p)) || input.charAt(p) == '\n'))
+        while (p < input.length() && charClass(input.charAt(p)) == CC_WHITESPACE)
             p++;
-        return p;
+        return p < input.length() && charClass(input.charAt(p)) == CC_LEFT_BRACKET;
     }
 }
@@ -0,0 +1,34 @@
+package com.itextpdf.pdfchain.bql.executor;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+import com.itextpdf.pdfchain.blockchain.batch.SelectionVector;
+import com.itextpdf.pdfchain.bql.AbstractBQLFilter;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregate;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import com.itextpdf.pdfchain.bql.transform.Select;
+
+import java.util.Collection;
+
+/**
+ * Evaluates a tree of BQL operators over a columnar RecordBatch.
+ * Filters narrow down a SelectionVector on the columns, and only the selected rows are turned into records
+ * before they are projected, sorted or aggregated.
+ */
+class ColumnarEvaluator {
+
+    static Collection<Record> apply(AbstractBQLOperator op, RecordBatch batch) {
+        if (AbstractBQLFilter.isPredicate(op)) {
+            SelectionVector selection = ((AbstractBQLFilter) op).select(batch, SelectionVector.all(batch.size()));
+            return batch.getRecords(selection);
+        }
+        if (op instanceof Select)
+            return ((Select) op).project(apply(op.getChildren().get(0), batch));
+        if (op instanceof SortBy)
+            return ((SortBy) op).sort(apply(op.getChildren().get(0), batch));
+        if (op instanceof Aggregate)
+            return ((Aggregate) op).aggregate(apply(op.getChildren().get(0), batch));
+        return op.apply(batch.getRecords(SelectionVector.all(batch.size())));
+    }
+}
@@ -0,0 +1,19 @@
+package com.itextpdf.pdfchain.bql.executor;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+
+import java.util.Collection;
+
+/**
+ * Receives the records a standing query yields on newly published items
+ */
+public interface IBQLSubscriptionListener {
+
+    /**
+     * Called after a poll found new items that pass the query
+     *
+     * @param subscription the subscription the records belong to
+     * @param records      the records the query yields on the new items only
+     */
+    void onRecords(BQLSubscription subscription, Collection<Record> records);
+}
@@ -0,0 +1,71 @@
+package com.itextpdf.pdfchain.bql.executor;
+
+import com.itextpdf.pdfchain.blockchain.index.IndexManager;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregate;
+import com.itextpdf.pdfchain.bql.logical.And;
+import com.itextpdf.pdfchain.bql.logical.Or;
+import com.itextpdf.pdfchain.bql.relational.Equal;
+import com.itextpdf.pdfchain.bql.relational.EqualID;
+import com.itextpdf.pdfchain.bql.relational.Greater;
+import com.itextpdf.pdfchain.bql.relational.GreaterOrEqual;
+import com.itextpdf.pdfchain.bql.relational.Smaller;
+import com.itextpdf.pdfchain.bql.relational.SmallerOrEqual;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import com.itextpdf.pdfchain.bql.string.StartsWith;
+import com.itextpdf.pdfchain.bql.transform.Select;
+
+import java.util.BitSet;
+
+/**
+ * Determines which rows of an IndexManager a query can possibly retain, using the indexes that exist.
+ * The rows are a superset of the result, the query itself is still applied to them.
+ */
+class IndexPlanner {
+
+    private IndexPlanner() {
+    }
+
+    /**
+     * Get the candidate rows for a query
+     *
+     * @param op      the root of a tree of BQL operators
+     * @param indexes the indexes
+     * @return the candidate rows, or null if no index narrows down the query
+     */
+    static BitSet candidates(AbstractBQLOperator op, IndexManager indexes) {
+        if (op instanceof EqualID)
+            return indexes.lookupEqual("id1", ((EqualID) op).getSelectedValue());
+        if (op instanceof Equal)
+            return indexes.lookupEqual(((Equal) op).getFieldName(), ((Equal) op).getFieldValue());
+        if (op instanceof Greater && ((Greater) op).getFieldValue() instanceof Number)
+            return indexes.lookupRange(((Greater) op).getFieldName(), (Number) ((Greater) op).getFieldValue(), false, null, false);
+        if (op instanceof GreaterOrEqual && ((GreaterOrEqual) op).getFieldValue() instanceof Number)
+            return indexes.lookupRange(((GreaterOrEqual) op).getFieldName(), (Number) ((GreaterOrEqual) op).getFieldValue(), true, null, false);
+        if (op instanceof Smaller && ((Smaller) op).getFieldValue() instanceof Number)
+            return indexes.lookupRange(((Smaller) op).getFieldName(), null, false, (Number) ((Smaller) op).getFieldValue(), false);
+        if (op instanceof SmallerOrEqual && ((SmallerOrEqual) op).getFieldValue() instanceof Number)
+            return indexes.lookupRange(((SmallerOrEqual) op).getFieldName(), null, false, (Number) ((SmallerOrEqual) op).getFieldValue(), true);
+        if (op instanceof StartsWith)
+            return indexes.lookupPrefix(((StartsWith) op).getFieldName(), ((StartsWith) op).getPrefix());
+        if (op instanceof And) {
+            BitSet left = candidates(op.getChildren().get(0), indexes);
+            BitSet right = candidates(op.getChildren().get(1), indexes);
+            if (left == null || right == null)
+                return left == null ? right : left;
+            left.and(right);
+            return left;
+        }
+        if (op instanceof Or) {
+            BitSet left = candidates(op.getChildren().get(0), indexes);
+            BitSet right = candidates(op.getChildren().get(1), indexes);
+            if (left == null || right == null)
+                return null;
+            left.or(right);
+            return left;
+        }
+        if (op instanceof Select || op instanceof SortBy || op instanceof Aggregate)
+            return candidates(op.getChildren().get(0), indexes);
+        return null;
+    }
+}
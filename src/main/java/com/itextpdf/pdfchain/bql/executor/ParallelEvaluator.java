@@ -0,0 +1,100 @@
+package com.itextpdf.pdfchain.bql.executor;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLFilter;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregate;
+import com.itextpdf.pdfchain.bql.relational.Star;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import com.itextpdf.pdfchain.bql.transform.Select;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
+
+/**
+ * Evaluates a tree of BQL operators over chunks of the input in parallel.
+ * Filters are applied to every chunk independently and the results are concatenated in chunk order,
+ * projections are applied per chunk and concatenated, and sorting uses a parallel merge sort.
+ * Operators that can not be split are applied sequentially.
+ */
+class ParallelEvaluator {
+
+    // never split the input in chunks smaller than this
+    private static final int MIN_CHUNK_SIZE = 4096;
+
+    private final ForkJoinPool pool;
+
+    ParallelEvaluator(ForkJoinPool pool) {
+        this.pool = pool;
+    }
+
+    Collection<Record> apply(AbstractBQLOperator op, Collection<Record> in) {
+        if (AbstractBQLFilter.isPredicate(op))
+            return concat(applyToChunks(op, in));
+        if (op instanceof Select) {
+            Select select = (Select) op;
+            Collection<Record> selected = apply(op.getChildren().get(0), in);
+            // a projection over the identity operator projects a single chunk, duplicates are removed after merging the chunks
+            AbstractBQLOperator projection = new Select(new Star(), select.getFieldNames());
+            Collection<Record> out = concat(applyToChunks(projection, selected));
+            return select.isDistinct() ? select.deduplicate(out) : out;
+        }
+        if (op instanceof SortBy)
+            return ((SortBy) op).sort(apply(op.getChildren().get(0), in), pool);
+        if (op instanceof Aggregate)
+            return ((Aggregate) op).aggregate(apply(op.getChildren().get(0), in));
+        return op.apply(in);
+    }
+
+    private List<Collection<Record>> applyToChunks(final AbstractBQLOperator op, Collection<Record> in) {
+        final List<Record> list = (in instanceof List) ? (List<Record>) in : new ArrayList<>(in);
+        int chunkSize = Math.max(MIN_CHUNK_SIZE, list.size() / (pool.getParallelism() * 4) + 1);
+        if (list.size() <= chunkSize) {
+            List<Collection<Record>> out = new ArrayList<>();
+            out.add(op.apply(list));
+            return out;
+        }
+
+        List<Callable<Collection<Record>>> tasks = new ArrayList<>();
+        for (int from = 0; from < list.size(); from += chunkSize) {
+            final List<Record> chunk = list.subList(from, Math.min(list.size(), from + chunkSize));
+            tasks.add(new Callable<Collection<Record>>() {
+                @Override
+                public Collection<Record> call() {
+                    return op.apply(chunk);
+                }
+            });
+        }
+
+        List<Collection<Record>> out = new ArrayList<>();
+        try {
+            for (Future<Collection<Record>> f : pool.invokeAll(tasks))
+                out.add(f.get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new IllegalStateException("Interrupted while executing query", e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException)
+                throw (RuntimeException) e.getCause();
+            throw new IllegalStateException(e.getCause());
+        }
+        return out;
+    }
+
+    private static Collection<Record> concat(List<Collection<Record>> chunks) {
+        if (chunks.size() == 1)
+            return chunks.get(0);
+        int size = 0;
+        for (Collection<Record> chunk : chunks)
+            size += chunk.size();
+        List<Record> out = new ArrayList<>(size);
+        for (Collection<Record> chunk : chunks)
+            out.addAll(chunk);
+        return out;
+    }
+}
@@ -77,7 +77,7 @@ class ShuntingYard {
         while (!stk.isEmpty()) {
             BQLTokenizer.Token t = stk.pop();
             if (t.getType() == BQLTokenizer.Type.LEFT_BRACKET || t.getType() == BQLTokenizer.Type.RIGHT_BRACKET)
-                throw new IllegalArgumentException("Mismatched parenthesis in expression");
+                throw new IllegalArgumentException("Mismatched parenthesis at position " + t.getPosition());
             output.add(t);
         }
         return output;
@@ -107,10 +107,19 @@ class ShuntingYard {
                 // display operators
                 "SELECT",
                 "WHERE",
+                // aggregate operators
+                "COUNT",
+                "SUM",
+                "AVG",
+                "MIN",
+                "MAX",
+                "GROUP_BY",
                 "SORT"
         };
+        // SELECT DISTINCT binds like SELECT
+        String text = token.getText().equalsIgnoreCase("SELECT DISTINCT") ? "SELECT" : token.getText();
         for (int i = 0; i < operators.length; i++) {
-            if (token.getText().equalsIgnoreCase(operators[i]))
+            if (text.equalsIgnoreCase(operators[i]))
                 return operators.length - i;
         }
         return (int) Math.pow(operators.length, 2);
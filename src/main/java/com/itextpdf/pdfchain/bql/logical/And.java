@@ -1,6 +1,9 @@
 package com.itextpdf.pdfchain.bql.logical;
 
 import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+import com.itextpdf.pdfchain.blockchain.batch.SelectionVector;
+import com.itextpdf.pdfchain.bql.AbstractBQLFilter;
 import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
 import com.itextpdf.pdfchain.bql.IBQLOperator;
 
@@ -8,16 +11,40 @@ import java.util.Collection;
 
 /**
  * BQL Logical AND operator
+ * When both operands are filters, every record is tested in a single pass and the right operand is skipped
+ * for records the left operand rejects. Otherwise the left operand is applied to the output of the right operand.
+ * test and select may only be called when both operands are filters.
  */
-public class And extends AbstractBQLOperator {
+public class And extends AbstractBQLFilter {
+
+    // decided once, so that testing a record does not walk the whole subtree
+    private final boolean predicate;
 
     public And(AbstractBQLOperator left, AbstractBQLOperator right) {
         addChild(left);
         addChild(right);
+        predicate = isPredicate(left) && isPredicate(right);
+    }
+
+    @Override
+    public boolean isPredicate() {
+        return predicate;
+    }
+
+    @Override
+    public boolean test(Record r) {
+        return ((AbstractBQLFilter) getChild(0)).test(r) && ((AbstractBQLFilter) getChild(1)).test(r);
+    }
+
+    @Override
+    public SelectionVector select(RecordBatch batch, SelectionVector in) {
+        return ((AbstractBQLFilter) getChild(1)).select(batch, ((AbstractBQLFilter) getChild(0)).select(batch, in));
     }
 
     @Override
     public Collection<Record> apply(Collection<Record> in) {
+        if (predicate)
+            return super.apply(in);
         IBQLOperator left = getChild(0);
         IBQLOperator right = getChild(1);
         return left.apply(right.apply(in));
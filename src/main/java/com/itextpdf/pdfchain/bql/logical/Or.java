@@ -1,29 +1,66 @@
 package com.itextpdf.pdfchain.bql.logical;
 
 import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+import com.itextpdf.pdfchain.blockchain.batch.SelectionVector;
+import com.itextpdf.pdfchain.bql.AbstractBQLFilter;
 import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
 import com.itextpdf.pdfchain.bql.IBQLOperator;
 
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
+import java.util.IdentityHashMap;
 import java.util.List;
+import java.util.Set;
 
 /**
  * BQL Logical OR operator
+ * When both operands are filters, every record is tested in a single pass and the right operand is skipped
+ * for records the left operand accepts. Otherwise both operands are applied, and their results are merged.
+ * Either way, a record is retained at most once. test and select may only be called when both operands are filters.
  */
-public class Or extends AbstractBQLOperator {
+public class Or extends AbstractBQLFilter {
+
+    // decided once, so that testing a record does not walk the whole subtree
+    private final boolean predicate;
 
     public Or(AbstractBQLOperator left, AbstractBQLOperator right) {
         addChild(left);
         addChild(right);
+        predicate = isPredicate(left) && isPredicate(right);
+    }
+
+    @Override
+    public boolean isPredicate() {
+        return predicate;
+    }
+
+    @Override
+    public boolean test(Record r) {
+        return ((AbstractBQLFilter) getChild(0)).test(r) || ((AbstractBQLFilter) getChild(1)).test(r);
+    }
+
+    @Override
+    public SelectionVector select(RecordBatch batch, SelectionVector in) {
+        SelectionVector left = ((AbstractBQLFilter) getChild(0)).select(batch, in);
+        SelectionVector right = ((AbstractBQLFilter) getChild(1)).select(batch, in.minus(left));
+        return left.union(right);
     }
 
     @Override
     public Collection<Record> apply(Collection<Record> in) {
+        if (predicate)
+            return super.apply(in);
         IBQLOperator left = getChild(0);
         IBQLOperator right = getChild(1);
         List<Record> out = new ArrayList<>(left.apply(in));
-        out.addAll(right.apply(in));
+        Set<Record> seen = Collections.newSetFromMap(new IdentityHashMap<Record, Boolean>());
+        seen.addAll(out);
+        for (Record r : right.apply(in)) {
+            if (seen.add(r))
+                out.add(r);
+        }
         return out;
     }
 
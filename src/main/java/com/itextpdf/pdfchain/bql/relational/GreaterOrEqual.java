@@ -1,39 +1,50 @@
 package com.itextpdf.pdfchain.bql.relational;
 
 import com.itextpdf.pdfchain.blockchain.Record;
-import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
-
-import java.util.ArrayList;
-import java.util.Collection;
+import com.itextpdf.pdfchain.blockchain.RecordField;
+import com.itextpdf.pdfchain.blockchain.batch.Column;
+import com.itextpdf.pdfchain.blockchain.batch.NumberColumn;
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+import com.itextpdf.pdfchain.blockchain.batch.SelectionVector;
+import com.itextpdf.pdfchain.bql.AbstractBQLFilter;
 
 /**
  * BQL Relational &gt;= operator
  */
-public class GreaterOrEqual extends AbstractBQLOperator {
+public class GreaterOrEqual extends AbstractBQLFilter {
 
     private String fieldName;
+    private RecordField field;
     private Object fieldValue;
 
     public GreaterOrEqual(String fieldName, Object fieldValue) {
         this.fieldName = fieldName;
+        this.field = RecordField.of(fieldName);
         this.fieldValue = fieldValue;
     }
 
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public Object getFieldValue() {
+        return fieldValue;
+    }
+
+    @Override
+    public boolean test(Record r) {
+        Object val = field.get(r);
+        return (val instanceof Number) && cmpNumbers((Number) val, (Number) fieldValue) >= 0;
+    }
+
     @Override
-    public Collection<Record> apply(Collection<Record> in) {
-        Collection<Record> out = new ArrayList<>();
-        for (Record r : in) {
-            if (r.containsKey(fieldName)) {
-                Object val = r.get(fieldName);
-                if (val instanceof Number) {
-                    Number valN = (Number) val;
-                    Number fldN = (Number) fieldValue;
-                    if (cmpNumbers(valN, fldN) >= 0)
-                        out.add(r);
-                }
-            }
-        }
-        return out;
+    public SelectionVector select(RecordBatch batch, SelectionVector in) {
+        Column column = batch.getColumn(fieldName);
+        if (column == null)
+            return new SelectionVector(0);
+        if (column instanceof NumberColumn)
+            return ((NumberColumn) column).selectCompare(in, ((Number) fieldValue).doubleValue(), 1, true);
+        return super.select(batch, in);
     }
 
     private int cmpNumbers(Number n0, Number n1) {
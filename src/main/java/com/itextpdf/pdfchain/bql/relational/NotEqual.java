@@ -1,32 +1,60 @@
 package com.itextpdf.pdfchain.bql.relational;
 
 import com.itextpdf.pdfchain.blockchain.Record;
-import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
-
-import java.util.ArrayList;
-import java.util.Collection;
+import com.itextpdf.pdfchain.blockchain.RecordField;
+import com.itextpdf.pdfchain.blockchain.batch.Column;
+import com.itextpdf.pdfchain.blockchain.batch.DictionaryColumn;
+import com.itextpdf.pdfchain.blockchain.batch.NumberColumn;
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+import com.itextpdf.pdfchain.blockchain.batch.SelectionVector;
+import com.itextpdf.pdfchain.bql.AbstractBQLFilter;
 
 /**
  * BQL Relational != operator
  */
-public class NotEqual extends AbstractBQLOperator {
+public class NotEqual extends AbstractBQLFilter {
 
     private String fieldName;
+    private RecordField field;
     private Object fieldValue;
 
     public NotEqual(String fieldName, Object fieldValue) {
         this.fieldName = fieldName;
+        this.field = RecordField.of(fieldName);
         this.fieldValue = fieldValue;
     }
 
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public Object getFieldValue() {
+        return fieldValue;
+    }
+
+    @Override
+    public boolean test(Record r) {
+        Object val = field.get(r);
+        return val != null && !val.equals(fieldValue);
+    }
+
     @Override
-    public Collection<Record> apply(Collection<Record> in) {
-        Collection<Record> out = new ArrayList<>();
-        for (Record r : in) {
-            if (r.containsKey(fieldName) && !r.get(fieldName).equals(fieldValue))
-                out.add(r);
+    public SelectionVector select(RecordBatch batch, SelectionVector in) {
+        Column column = batch.getColumn(fieldName);
+        if (column == null)
+            return new SelectionVector(0);
+        if (column instanceof NumberColumn)
+            return ((NumberColumn) column).selectEqual(in, fieldValue, true);
+        if (column instanceof DictionaryColumn) {
+            DictionaryColumn dictionaryColumn = (DictionaryColumn) column;
+            boolean[] accepted = new boolean[dictionaryColumn.getDictionary().length];
+            int code = dictionaryColumn.codeOf(fieldValue);
+            java.util.Arrays.fill(accepted, true);
+            if (code >= 0)
+                accepted[code] = false;
+            return dictionaryColumn.selectCodes(in, accepted);
         }
-        return out;
+        return super.select(batch, in);
     }
 
 }
@@ -1,11 +1,23 @@
 package com.itextpdf.pdfchain.bql.relational;
 
 import com.itextpdf.pdfchain.blockchain.Record;
-import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+import com.itextpdf.pdfchain.blockchain.batch.SelectionVector;
+import com.itextpdf.pdfchain.bql.AbstractBQLFilter;
 
 import java.util.Collection;
 
-public class Star extends AbstractBQLOperator {
+public class Star extends AbstractBQLFilter {
+
+    @Override
+    public boolean test(Record r) {
+        return true;
+    }
+
+    @Override
+    public SelectionVector select(RecordBatch batch, SelectionVector in) {
+        return in;
+    }
 
     @Override
     public Collection<Record> apply(Collection<Record> in) {
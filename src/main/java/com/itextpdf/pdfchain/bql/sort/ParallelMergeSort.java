@@ -0,0 +1,100 @@
+package com.itextpdf.pdfchain.bql.sort;
+
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Stable merge sort of row numbers by their SortKeys.
+ * Both halves of a large range are sorted in parallel on a ForkJoinPool, if one is given.
+ */
+final class ParallelMergeSort {
+
+    // below this size a range is sorted sequentially
+    private static final int SEQUENTIAL_THRESHOLD = 8192;
+
+    // below this size a range is sorted by insertion
+    private static final int INSERTION_THRESHOLD = 32;
+
+    private ParallelMergeSort() {
+    }
+
+    /**
+     * Sort row numbers
+     *
+     * @param rows the row numbers to be sorted
+     * @param keys the sort keys of the rows
+     * @param pool the pool on which the sort is executed, or null to sort on the calling thread
+     */
+    static void sort(int[] rows, SortKeys keys, ForkJoinPool pool) {
+        int[] tmp = rows.clone();
+        if (pool == null || rows.length <= SEQUENTIAL_THRESHOLD)
+            sequentialSort(rows, tmp, 0, rows.length, keys);
+        else
+            pool.invoke(new SortTask(rows, tmp, 0, rows.length, keys));
+    }
+
+    private static void sequentialSort(int[] a, int[] tmp, int from, int to, SortKeys keys) {
+        if (to - from <= INSERTION_THRESHOLD) {
+            for (int i = from + 1; i < to; i++) {
+                int row = a[i];
+                int j = i - 1;
+                while (j >= from && keys.compare(a[j], row) > 0) {
+                    a[j + 1] = a[j];
+                    j--;
+                }
+                a[j + 1] = row;
+            }
+            return;
+        }
+        int mid = (from + to) >>> 1;
+        sequentialSort(a, tmp, from, mid, keys);
+        sequentialSort(a, tmp, mid, to, keys);
+        merge(a, tmp, from, mid, to, keys);
+    }
+
+    private static void merge(int[] a, int[] tmp, int from, int mid, int to, SortKeys keys) {
+        // already in order
+        if (keys.compare(a[mid - 1], a[mid]) <= 0)
+            return;
+
+        // merge both halves into tmp, prefer the left half on ties to keep the sort stable
+        int i = from;
+        int j = mid;
+        int k = from;
+        while (i < mid && j < to)
+            tmp[k++] = keys.compare(a[j], a[i]) < 0 ? a[j++] : a[i++];
+        while (i < mid)
+            tmp[k++] = a[i++];
+        while (j < to)
+            tmp[k++] = a[j++];
+        System.arraycopy(tmp, from, a, from, to - from);
+    }
+
+    private static class SortTask extends RecursiveAction {
+
+        private final int[] a;
+        private final int[] tmp;
+        private final int from;
+        private final int to;
+        private final SortKeys keys;
+
+        SortTask(int[] a, int[] tmp, int from, int to, SortKeys keys) {
+            this.a = a;
+            this.tmp = tmp;
+            this.from = from;
+            this.to = to;
+            this.keys = keys;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from <= SEQUENTIAL_THRESHOLD) {
+                sequentialSort(a, tmp, from, to, keys);
+                return;
+            }
+            int mid = (from + to) >>> 1;
+            invokeAll(new SortTask(a, tmp, from, mid, keys), new SortTask(a, tmp, mid, to, keys));
+            merge(a, tmp, from, mid, to, keys);
+        }
+    }
+}
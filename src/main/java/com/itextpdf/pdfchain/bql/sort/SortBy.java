@@ -1,56 +1,106 @@
 package com.itextpdf.pdfchain.bql.sort;
 
 import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.RecordField;
 import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
 
 import java.util.ArrayList;
 import java.util.Collection;
-import java.util.Comparator;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
 
 /**
  * Sort operator for BQL
+ * Records are sorted by one or more fields, each in ascending or descending order.
+ * Records without a field come first, numbers are compared by value regardless of their type,
+ * and come before strings.
  */
 public class SortBy extends AbstractBQLOperator {
 
-    private String fieldName;
-    private boolean ascending;
+    private String[] fieldNames;
+    private boolean[] ascending;
+    private RecordField[] fields;
 
-    public SortBy(AbstractBQLOperator source, String fieldName, boolean ascending) {
+    public SortBy(AbstractBQLOperator source, String[] fieldNames, boolean[] ascending) {
+        if (fieldNames.length == 0 || fieldNames.length != ascending.length)
+            throw new IllegalArgumentException("Every sort field needs a direction");
         this.addChild(source);
-        this.fieldName = fieldName;
+        this.fieldNames = fieldNames;
         this.ascending = ascending;
+        this.fields = new RecordField[fieldNames.length];
+        for (int i = 0; i < fieldNames.length; i++)
+            this.fields[i] = RecordField.of(fieldNames[i]);
+    }
+
+    public SortBy(AbstractBQLOperator source, String fieldName, boolean ascending) {
+        this(source, new String[]{fieldName}, new boolean[]{ascending});
     }
 
     public SortBy(AbstractBQLOperator source, String fieldName) {
-        this.addChild(source);
-        this.fieldName = fieldName;
-        this.ascending = true;
+        this(source, fieldName, true);
     }
 
-    @Override
-    public Collection<Record> apply(Collection<Record> in) {
-        List<Record> out = new ArrayList<>(getChild(0).apply(in));
+    /**
+     * Get the name of the first sort field
+     *
+     * @return the name of the field records are sorted by first
+     */
+    public String getFieldName() {
+        return fieldNames[0];
+    }
+
+    /**
+     * Get the direction of the first sort field
+     *
+     * @return true iff records are sorted in ascending order of the first sort field
+     */
+    public boolean isAscending() {
+        return ascending[0];
+    }
 
-        java.util.Collections.sort(out, new Comparator<Record>() {
-            @Override
-            public int compare(Record o1, Record o2) {
-                Object val0 = o1.get(fieldName);
-                Object val1 = o2.get(fieldName);
+    public String[] getFieldNames() {
+        return fieldNames;
+    }
 
-                if (val0 == null && val1 == null)
-                    return 0;
-                if (val0 == null || val1 == null)
-                    return val0 == null ? -1 : 1;
+    public boolean[] getAscending() {
+        return ascending;
+    }
 
-                Comparable cmp0 = (Comparable) val0;
-                Comparable cmp1 = (Comparable) val1;
+    @Override
+    public Collection<Record> apply(Collection<Record> in) {
+        return sort(getChild(0).apply(in));
+    }
+
+    /**
+     * Sort records, without applying the source operator
+     *
+     * @param in the records to sort
+     * @return a sorted copy of the input
+     */
+    public List<Record> sort(Collection<Record> in) {
+        return sort(in, null);
+    }
 
-                return (ascending ? 1 : -1) * cmp0.compareTo(cmp1);
-            }
-        });
+    /**
+     * Sort records, without applying the source operator.
+     * The sort keys are extracted once per record, after which only row numbers are sorted.
+     * The sort is stable.
+     *
+     * @param in   the records to sort
+     * @param pool the pool on which large inputs are sorted in parallel, or null to sort on the calling thread
+     * @return a sorted copy of the input
+     */
+    public List<Record> sort(Collection<Record> in, ForkJoinPool pool) {
+        // rows are looked up by index, which only an ArrayList does in constant time
+        List<Record> rows = (in instanceof ArrayList) ? (List<Record>) in : new ArrayList<>(in);
+        int[] order = new int[rows.size()];
+        for (int i = 0; i < order.length; i++)
+            order[i] = i;
+        ParallelMergeSort.sort(order, new SortKeys(rows, fields, ascending), pool);
 
+        List<Record> out = new ArrayList<>(order.length);
+        for (int row : order)
+            out.add(rows.get(row));
         return out;
     }
-
 }
@@ -0,0 +1,92 @@
+package com.itextpdf.pdfchain.bql.sort;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.RecordField;
+
+import java.util.List;
+
+/**
+ * The sort keys of a list of rows, extracted once per row into primitive arrays.
+ * Every value is normalised into a rank and a key: missing values come first, then numbers (compared as doubles),
+ * then strings, then any other value (compared by its String representation).
+ * Missing values come first regardless of the direction of the key.
+ */
+final class SortKeys {
+
+    private static final byte MISSING = 0;
+    private static final byte NUMBER = 1;
+    private static final byte STRING = 2;
+    private static final byte OTHER = 3;
+
+    private final byte[][] ranks;
+    private final double[][] numbers;
+    private final String[][] strings;
+    private final boolean[] ascending;
+
+    // a single key that is a number for every row is compared without looking at ranks
+    private final boolean singleNumber;
+
+    SortKeys(List<Record> rows, RecordField[] fields, boolean[] ascending) {
+        int n = rows.size();
+        this.ranks = new byte[fields.length][];
+        this.numbers = new double[fields.length][];
+        this.strings = new String[fields.length][];
+        this.ascending = ascending;
+
+        boolean allNumbers = true;
+        for (int k = 0; k < fields.length; k++) {
+            byte[] rank = new byte[n];
+            double[] number = null;
+            String[] string = null;
+            for (int row = 0; row < n; row++) {
+                Object val = fields[k].get(rows.get(row));
+                if (val == null) {
+                    rank[row] = MISSING;
+                } else if (val instanceof Number) {
+                    if (number == null)
+                        number = new double[n];
+                    rank[row] = NUMBER;
+                    number[row] = ((Number) val).doubleValue();
+                } else {
+                    if (string == null)
+                        string = new String[n];
+                    rank[row] = (val instanceof String) ? STRING : OTHER;
+                    string[row] = val.toString();
+                }
+                allNumbers &= rank[row] == NUMBER;
+            }
+            ranks[k] = rank;
+            numbers[k] = number;
+            strings[k] = string;
+        }
+        this.singleNumber = fields.length == 1 && allNumbers && n > 0;
+    }
+
+    int compare(int a, int b) {
+        if (singleNumber) {
+            int c = Double.compare(numbers[0][a], numbers[0][b]);
+            return ascending[0] ? c : -c;
+        }
+        for (int k = 0; k < ranks.length; k++) {
+            int rankA = ranks[k][a];
+            int rankB = ranks[k][b];
+            if (rankA != rankB)
+                return (rankA == MISSING || rankB == MISSING || ascending[k]) ? rankA - rankB : rankB - rankA;
+            int c;
+            switch (rankA) {
+                case MISSING:
+                    c = 0;
+                    break;
+                case NUMBER:
+                    c = Double.compare(numbers[k][a], numbers[k][b]);
+                    break;
+                default:
+                    c = strings[k][a].compareTo(strings[k][b]);
+                    break;
+            }
+            if (c != 0)
+                return ascending[k] ? c : -c;
+        }
+        return 0;
+    }
+}
@@ -1,29 +1,53 @@
 package com.itextpdf.pdfchain.bql.string;
 
 import com.itextpdf.pdfchain.blockchain.Record;
-import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.blockchain.RecordField;
+import com.itextpdf.pdfchain.blockchain.batch.Column;
+import com.itextpdf.pdfchain.blockchain.batch.DictionaryColumn;
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+import com.itextpdf.pdfchain.blockchain.batch.SelectionVector;
+import com.itextpdf.pdfchain.bql.AbstractBQLFilter;
 
-import java.util.ArrayList;
-import java.util.Collection;
-
-public class EndsWith extends AbstractBQLOperator {
+public class EndsWith extends AbstractBQLFilter {
 
     private String fieldName;
+    private RecordField field;
     private String suffix;
 
     public EndsWith(String fieldName, String suffix) {
         this.fieldName = fieldName;
+        this.field = RecordField.of(fieldName);
         this.suffix = suffix;
     }
 
+    public String getFieldName() {
+        return fieldName;
+    }
+
+    public String getSuffix() {
+        return suffix;
+    }
+
+    @Override
+    public boolean test(Record r) {
+        Object val = field.get(r);
+        return val != null && val.toString().endsWith(suffix);
+    }
+
     @Override
-    public Collection<Record> apply(Collection<Record> in) {
-        Collection<Record> out = new ArrayList<>();
-        for (Record r : in) {
-            if (r.containsKey(fieldName) && r.get(fieldName).toString().endsWith(suffix))
-                out.add(r);
+    public SelectionVector select(RecordBatch batch, SelectionVector in) {
+        Column column = batch.getColumn(fieldName);
+        if (column == null)
+            return new SelectionVector(0);
+        if (column instanceof DictionaryColumn) {
+            // test every distinct value once
+            String[] dictionary = ((DictionaryColumn) column).getDictionary();
+            boolean[] accepted = new boolean[dictionary.length];
+            for (int i = 0; i < dictionary.length; i++)
+                accepted[i] = dictionary[i].endsWith(suffix);
+            return ((DictionaryColumn) column).selectCodes(in, accepted);
         }
-        return out;
+        return super.select(batch, in);
     }
 
 }
@@ -0,0 +1,180 @@
+package com.itextpdf.pdfchain.bql.transform;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.RecordField;
+
+import java.io.ObjectStreamException;
+import java.util.AbstractMap;
+import java.util.AbstractSet;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.NoSuchElementException;
+import java.util.Set;
+
+/**
+ * Record that shows a subset of the fields of another Record, without copying them.
+ * The first modification copies the projected fields, after which this record no longer depends on its source.
+ */
+class ProjectedRecord extends Record {
+
+    private static final long serialVersionUID = 1L;
+
+    private transient Record source;
+    private transient RecordField[] fields;
+
+    ProjectedRecord(Record source, RecordField[] fields) {
+        this.source = source;
+        this.fields = fields;
+    }
+
+    @Override
+    public Object get(int slot) {
+        if (source == null)
+            return super.get(slot);
+        RecordField field = field(slot);
+        return field == null ? null : source.get(slot);
+    }
+
+    @Override
+    public boolean has(int slot) {
+        if (source == null)
+            return super.has(slot);
+        return field(slot) != null && source.has(slot);
+    }
+
+    @Override
+    public Object get(Object key) {
+        if (source == null)
+            return super.get(key);
+        RecordField field = field(key);
+        return field == null ? null : field.get(source);
+    }
+
+    @Override
+    public boolean containsKey(Object key) {
+        if (source == null)
+            return super.containsKey(key);
+        RecordField field = field(key);
+        return field != null && field.isSet(source);
+    }
+
+    @Override
+    public int size() {
+        if (source == null)
+            return super.size();
+        int size = 0;
+        for (RecordField field : fields) {
+            if (field.isSet(source))
+                size++;
+        }
+        return size;
+    }
+
+    @Override
+    public Set<Map.Entry<String, Object>> entrySet() {
+        if (source == null)
+            return super.entrySet();
+        return new AbstractSet<Map.Entry<String, Object>>() {
+            @Override
+            public Iterator<Map.Entry<String, Object>> iterator() {
+                return new ViewIterator();
+            }
+
+            @Override
+            public int size() {
+                return ProjectedRecord.this.size();
+            }
+        };
+    }
+
+    @Override
+    public Object put(String key, Object value) {
+        materialize();
+        return super.put(key, value);
+    }
+
+    @Override
+    public Object remove(Object key) {
+        materialize();
+        return super.remove(key);
+    }
+
+    @Override
+    public void clear() {
+        source = null;
+        fields = null;
+        super.clear();
+    }
+
+    private RecordField field(int slot) {
+        for (RecordField field : fields) {
+            if (field.getSlot() == slot)
+                return field;
+        }
+        return null;
+    }
+
+    private RecordField field(Object key) {
+        for (RecordField field : fields) {
+            if (field.getName().equals(key))
+                return field;
+        }
+        return null;
+    }
+
+    private void materialize() {
+        if (source == null)
+            return;
+        Record s = source;
+        source = null;
+        for (RecordField field : fields) {
+            if (field.isSet(s))
+                super.put(field.getName(), field.get(s));
+        }
+        fields = null;
+    }
+
+    /**
+     * Serialize as a plain Record holding the projected fields
+     */
+    private Object writeReplace() throws ObjectStreamException {
+        return new Record(this);
+    }
+
+    /**
+     * Iterates over the projected fields the source has, read-only
+     */
+    private class ViewIterator implements Iterator<Map.Entry<String, Object>> {
+
+        private int next = 0;
+
+        ViewIterator() {
+            advance();
+        }
+
+        private void advance() {
+            while (next < fields.length && !fields[next].isSet(source))
+                next++;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return next < fields.length;
+        }
+
+        @Override
+        public Map.Entry<String, Object> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            RecordField field = fields[next++];
+            Map.Entry<String, Object> out = new AbstractMap.SimpleImmutableEntry<>(field.getName(), field.get(source));
+            advance();
+            return out;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
@@ -1,40 +1,115 @@
 package com.itextpdf.pdfchain.bql.transform;
 
 import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.RecordField;
 import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
 import com.itextpdf.pdfchain.bql.IBQLOperator;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.HashSet;
+import java.util.LinkedHashSet;
+import java.util.List;
 import java.util.Set;
 
+/**
+ * Projection operator for BQL.
+ * Projected records are views on the records they were projected from, no fields are copied.
+ * Duplicates are only removed for SELECT DISTINCT.
+ */
 public class Select extends AbstractBQLOperator {
 
+    // marks a field that is absent, as opposed to a field that is set to null
+    private static final Object ABSENT = new Object();
+
     private String[] fieldNames;
+    private RecordField[] fields;
+    private boolean distinct;
 
-    public Select(AbstractBQLOperator from, String[] fieldNames) {
+    public Select(AbstractBQLOperator from, String[] fieldNames, boolean distinct) {
         this.addChild(from);
         this.fieldNames = fieldNames;
+        this.distinct = distinct;
+
+        // a field that is selected twice is projected once
+        Set<String> unique = new LinkedHashSet<>(Arrays.asList(fieldNames));
+        this.fields = new RecordField[unique.size()];
+        int i = 0;
+        for (String fieldName : unique)
+            this.fields[i++] = RecordField.of(fieldName);
+    }
+
+    public Select(AbstractBQLOperator from, String[] fieldNames) {
+        this(from, fieldNames, false);
+    }
+
+    public String[] getFieldNames() {
+        return fieldNames;
+    }
+
+    public boolean isDistinct() {
+        return distinct;
     }
 
     @Override
     public Collection<Record> apply(Collection<Record> in) {
         IBQLOperator from = getChild(0);
-        Set<Record> out = new HashSet<>();
-        for (Record r : from.apply(in)) {
-            Record rCopy = retainAll(r, fieldNames);
-            out.add(rCopy);
-        }
-        return out;
+        return project(from.apply(in));
+    }
+
+    /**
+     * Project records onto the selected fields, without applying the source operator
+     *
+     * @param in the records to project
+     * @return the List of projected records, in order of the input, without duplicates for SELECT DISTINCT
+     */
+    public List<Record> project(Collection<Record> in) {
+        List<Record> out = new ArrayList<>(in.size());
+        for (Record r : in)
+            out.add(new ProjectedRecord(r, fields));
+        return distinct ? deduplicate(out) : out;
     }
 
-    private Record retainAll(Record in, String[] keys) {
-        Record out = new Record();
-        for (String k : keys) {
-            if (in.containsKey(k))
-                out.put(k, in.get(k));
+    /**
+     * Remove records that have the same values for the selected fields
+     *
+     * @param in the records
+     * @return the first record of every distinct combination of values, in order of the input
+     */
+    public List<Record> deduplicate(Collection<Record> in) {
+        Set<ProjectionKey> seen = new HashSet<>();
+        List<Record> out = new ArrayList<>();
+        for (Record r : in) {
+            if (seen.add(new ProjectionKey(r)))
+                out.add(r);
         }
         return out;
     }
 
+    /**
+     * The values of the selected fields of a record, hashed once
+     */
+    private class ProjectionKey {
+
+        private final Object[] values;
+        private final int hash;
+
+        ProjectionKey(Record r) {
+            values = new Object[fields.length];
+            for (int i = 0; i < fields.length; i++)
+                values[i] = fields[i].isSet(r) ? fields[i].get(r) : ABSENT;
+            hash = Arrays.hashCode(values);
+        }
+
+        @Override
+        public boolean equals(Object o) {
+            return o instanceof ProjectionKey && hash == ((ProjectionKey) o).hash && Arrays.equals(values, ((ProjectionKey) o).values);
+        }
+
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+    }
 }
@@ -0,0 +1,20 @@
+package com.itextpdf.pdfchain.metrics;
+
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Built-in ICounter
+ */
+public class Counter implements ICounter {
+
+    private final AtomicLong count = new AtomicLong();
+
+    @Override
+    public void increment(long amount) {
+        count.addAndGet(amount);
+    }
+
+    public long getCount() {
+        return count.get();
+    }
+}
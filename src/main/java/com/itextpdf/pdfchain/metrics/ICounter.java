@@ -0,0 +1,14 @@
+package com.itextpdf.pdfchain.metrics;
+
+/**
+ * Monotonically increasing count of events
+ */
+public interface ICounter {
+
+    /**
+     * Add to the count
+     *
+     * @param amount the number of events
+     */
+    void increment(long amount);
+}
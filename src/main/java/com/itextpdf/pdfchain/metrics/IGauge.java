@@ -0,0 +1,9 @@
+package com.itextpdf.pdfchain.metrics;
+
+/**
+ * Value that is read when it is reported, such as the number of requests in flight
+ */
+public interface IGauge {
+
+    long getValue();
+}
@@ -0,0 +1,14 @@
+package com.itextpdf.pdfchain.metrics;
+
+/**
+ * Distribution of measured values, such as latencies or sizes
+ */
+public interface IHistogram {
+
+    /**
+     * Record a measurement
+     *
+     * @param value the measured value, negative values are recorded as 0
+     */
+    void record(long value);
+}
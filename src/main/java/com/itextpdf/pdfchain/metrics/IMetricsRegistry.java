@@ -0,0 +1,32 @@
+package com.itextpdf.pdfchain.metrics;
+
+/**
+ * Registry of named instruments.
+ * Implement this interface to report to an existing metrics library, or use MetricsRegistry.
+ */
+public interface IMetricsRegistry {
+
+    /**
+     * Get a counter, creating it if needed
+     *
+     * @param name the name of the counter
+     * @return the counter, the same instance for every call with the same name
+     */
+    ICounter counter(String name);
+
+    /**
+     * Get a histogram, creating it if needed
+     *
+     * @param name the name of the histogram
+     * @return the histogram, the same instance for every call with the same name
+     */
+    IHistogram histogram(String name);
+
+    /**
+     * Register a gauge, replacing any gauge registered under the same name
+     *
+     * @param name  the name of the gauge
+     * @param gauge the gauge
+     */
+    void gauge(String name, IGauge gauge);
+}
@@ -0,0 +1,95 @@
+package com.itextpdf.pdfchain.metrics;
+
+import java.util.Locale;
+import java.util.Map;
+import java.util.TreeMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentMap;
+
+/**
+ * Built-in IMetricsRegistry that keeps every instrument in memory
+ */
+public class MetricsRegistry implements IMetricsRegistry {
+
+    private final ConcurrentMap<String, Counter> counters = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, Histogram> histograms = new ConcurrentHashMap<>();
+    private final ConcurrentMap<String, IGauge> gauges = new ConcurrentHashMap<>();
+
+    @Override
+    public Counter counter(String name) {
+        Counter counter = counters.get(name);
+        if (counter == null) {
+            Counter created = new Counter();
+            counter = counters.putIfAbsent(name, created);
+            if (counter == null)
+                counter = created;
+        }
+        return counter;
+    }
+
+    @Override
+    public Histogram histogram(String name) {
+        Histogram histogram = histograms.get(name);
+        if (histogram == null) {
+            Histogram created = new Histogram();
+            histogram = histograms.putIfAbsent(name, created);
+            if (histogram == null)
+                histogram = created;
+        }
+        return histogram;
+    }
+
+    @Override
+    public void gauge(String name, IGauge gauge) {
+        gauges.put(name, gauge);
+    }
+
+    /**
+     * @return the counters, sorted by name
+     */
+    public Map<String, Counter> getCounters() {
+        return new TreeMap<>(counters);
+    }
+
+    /**
+     * @return the histograms, sorted by name
+     */
+    public Map<String, Histogram> getHistograms() {
+        return new TreeMap<>(histograms);
+    }
+
+    /**
+     * Read every gauge
+     *
+     * @return the current value of every gauge, sorted by name
+     */
+    public Map<String, Long> getGauges() {
+        Map<String, Long> out = new TreeMap<>();
+        for (Map.Entry<String, IGauge> en : gauges.entrySet())
+            out.put(en.getKey(), en.getValue().getValue());
+        return out;
+    }
+
+    /**
+     * Render every instrument as text, one line per instrument
+     */
+    @Override
+    public String toString() {
+        StringBuilder out = new StringBuilder();
+        for (Map.Entry<String, Counter> en : getCounters().entrySet())
+            out.append(en.getKey()).append(' ').append(en.getValue().getCount()).append('\n');
+        for (Map.Entry<String, Long> en : getGauges().entrySet())
+            out.append(en.getKey()).append(' ').append(en.getValue()).append('\n');
+        for (Map.Entry<String, Histogram> en : getHistograms().entrySet()) {
+            Histogram h = en.getValue();
+            out.append(en.getKey())
+                    .append(" count=").append(h.getCount())
+                    .append(" mean=").append(String.format(Locale.ROOT, "%.1f", h.getMean()))
+                    .append(" p50=").append(h.getPercentile(50))
+                    .append(" p99=").append(h.getPercentile(99))
+                    .append(" max=").append(h.getMax())
+                    .append('\n');
+        }
+        return out.toString();
+    }
+}
@@ -1,6 +1,9 @@
 package com.itextpdf.pdfchain.pdfchain;
 
 import com.itextpdf.kernel.xmp.impl.Base64;
+import com.itextpdf.pdfchain.anchor.InclusionProof;
+import com.itextpdf.pdfchain.anchor.MerkleAnchor;
+import com.itextpdf.pdfchain.anchor.MerkleTree;
 import com.itextpdf.pdfchain.blockchain.IBlockChain;
 import com.itextpdf.pdfchain.blockchain.Record;
 import com.itextpdf.kernel.pdf.PdfArray;
@@ -17,6 +20,7 @@ import java.io.IOException;
 import java.io.InputStream;
 import java.security.GeneralSecurityException;
 import java.security.Key;
+import java.util.Collections;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
@@ -28,6 +32,7 @@ public class PdfChain {
 
     private final AbstractExternalSignature externalSignature;
     private final IBlockChain blockChain;
+    private final MerkleAnchor anchor;
 
     /**
      * Construct a new pdfchain.PdfChain object with a given IBlockchain implempentation and AbstractExternalSignature implementation
@@ -38,6 +43,20 @@ public class PdfChain {
     public PdfChain(IBlockChain blockChain, AbstractExternalSignature externalSignature) {
         this.blockChain = blockChain;
         this.externalSignature = externalSignature;
+        this.anchor = null;
+    }
+
+    /**
+     * Construct a new pdfchain.PdfChain object that anchors documents in batches instead of putting every document on the blockchain.
+     * The records of the documents are kept in the proof store of the MerkleAnchor, use getProofs to read them back.
+     *
+     * @param anchor            the MerkleAnchor collecting the batches, its blockchain is used for verification
+     * @param externalSignature the signing and hashing methods to be used
+     */
+    public PdfChain(MerkleAnchor anchor, AbstractExternalSignature externalSignature) {
+        this.blockChain = anchor.getBlockChain();
+        this.externalSignature = externalSignature;
+        this.anchor = anchor;
     }
 
     /**
@@ -48,6 +67,7 @@ public class PdfChain {
     public PdfChain(IBlockChain blockChain) {
         this.blockChain = blockChain;
         this.externalSignature = new NoOpSignature();
+        this.anchor = null;
     }
 
     /**
@@ -123,7 +143,7 @@ public class PdfChain {
      *
      * @param pdfFile   the pdf file being put on the blockchain
      * @param extraData extra attributes being added on the blockchain
-     * @return true iff the data was successfully added to the blockchain
+     * @return true iff the data was successfully added to the blockchain, or to the current batch when anchoring in batches
      * @throws IOException              if the file could not be read, or is not a valid PDF document
      * @throws GeneralSecurityException if the signature could not be generated
      */
@@ -155,10 +175,48 @@ public class PdfChain {
         dataOnChain.put("sgnalgo", externalSignature.getEncryptionAlgorithm());
         dataOnChain.put("shsh", signedHash);
 
+        // anchor in a batch
+        if (anchor != null) {
+            anchor.add(id1, dataOnChain);
+            return true;
+        }
+
         // call blockchain implementation
         return blockChain.put(id1, dataOnChain);
     }
 
+    /**
+     * Get the inclusion proofs of a document that was anchored in a batch
+     *
+     * @param id1 the first ID of the PDF document
+     * @return a List of proofs, empty if this PdfChain does not anchor in batches
+     */
+    public List<InclusionProof> getProofs(String id1) {
+        if (anchor == null)
+            return Collections.emptyList();
+        return anchor.getProofStore().get(id1);
+    }
+
+    /**
+     * Check whether a record was anchored on the blockchain
+     * @param r the record to check
+     * @param proof the inclusion proof of the record
+     * @return true iff the proof leads from the record to a Merkle root that is anchored on the blockchain
+     */
+    public boolean isAnchored(Record r, InclusionProof proof) {
+        if (r == null || proof == null)
+            return false;
+        if (!MerkleTree.verify(MerkleAnchor.leafOf(r), proof.getIndex(), proof.getSize(), proof.getPath(), proof.getRoot()))
+            return false;
+        String root = proof.getRootHex();
+        for (Record anchored : blockChain.get(root)) {
+            Object leaves = anchored.get("leaves");
+            if (root.equals(anchored.get("merkleroot")) && leaves instanceof Number && ((Number) leaves).intValue() == proof.getSize())
+                return true;
+        }
+        return false;
+    }
+
     /**
      * Check whether a given record is signed by a given public key
      * @param r the record to check
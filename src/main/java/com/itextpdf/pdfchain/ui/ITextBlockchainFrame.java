@@ -5,7 +5,6 @@ import com.itextpdf.pdfchain.blockchain.MultiChain;
 import com.itextpdf.pdfchain.blockchain.Record;
 import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
 import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
-import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
 import org.jdesktop.swingx.JXTaskPane;
 import org.jdesktop.swingx.JXTaskPaneContainer;
 import com.itextpdf.pdfchain.pdfchain.PdfChain;
@@ -15,22 +14,30 @@ import com.itextpdf.pdfchain.ui.dialog.KeystoreDialog;
 import com.itextpdf.pdfchain.ui.filechooser.JKeystoreFileChooser;
 import com.itextpdf.pdfchain.ui.filechooser.JPdfFileChooser;
 import com.itextpdf.pdfchain.ui.model.JBlockchainTableModel;
+import com.itextpdf.pdfchain.ui.worker.BQLQueryWorker;
 
 import javax.imageio.ImageIO;
 import javax.swing.*;
 import java.awt.*;
 import java.awt.event.ActionEvent;
+import java.awt.event.ActionListener;
+import java.beans.PropertyChangeEvent;
+import java.beans.PropertyChangeListener;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.IOException;
 import java.security.GeneralSecurityException;
-import java.util.Collection;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.ExecutionException;
 import java.util.logging.Level;
 import java.util.logging.Logger;
 
 class ITextBlockchainFrame extends JFrame {
 
     private JTable resultsTable;
+    private JProgressBar queryProgress;
+    private JButton cancelQueryButton;
+    private BQLQueryWorker queryWorker;
 
     private IBlockChain blockchainImpl = new MultiChain(
             "http://127.0.0.1",
@@ -76,6 +83,24 @@ class ITextBlockchainFrame extends JFrame {
         resultsTable = new JTable(new JBlockchainTableModel());
         add(new JScrollPane(resultsTable), BorderLayout.CENTER);
 
+        // progress of the running query
+        queryProgress = new JProgressBar(0, 100);
+        queryProgress.setStringPainted(true);
+        queryProgress.setString("");
+        cancelQueryButton = new JButton("cancel");
+        cancelQueryButton.setEnabled(false);
+        cancelQueryButton.addActionListener(new ActionListener() {
+            @Override
+            public void actionPerformed(ActionEvent e) {
+                if (queryWorker != null)
+                    queryWorker.cancel(true);
+            }
+        });
+        JPanel statusPanel = new JPanel(new BorderLayout());
+        statusPanel.add(queryProgress, BorderLayout.CENTER);
+        statusPanel.add(cancelQueryButton, BorderLayout.EAST);
+        add(statusPanel, BorderLayout.SOUTH);
+
         pack();
         setDefaultCloseOperation(JFrame.EXIT_ON_CLOSE);
     }
@@ -269,15 +294,57 @@ class ITextBlockchainFrame extends JFrame {
         if (q.isEmpty())
             return;
 
-        AbstractBQLOperator operator = null;
+        AbstractBQLOperator operator;
         try {
             operator = BQLCompiler.compile(q);
         } catch (Exception ex) {
-            ex.printStackTrace();
+            JOptionPane.showMessageDialog(this,
+                    ex.getMessage(),
+                    "Invalid BQL statement",
+                    JOptionPane.ERROR_MESSAGE);
+            return;
         }
 
-        BQLExecutor exe = new BQLExecutor(blockchainImpl);
-        Collection<Record> records = exe.execute(operator);
-        resultsTable.setModel(new JBlockchainTableModel().setData(records));
+        // only one query runs at a time
+        if (queryWorker != null)
+            queryWorker.cancel(true);
+
+        JBlockchainTableModel model = new JBlockchainTableModel();
+        resultsTable.setModel(model);
+        final BQLQueryWorker worker = new BQLQueryWorker(blockchainImpl, operator, model);
+        worker.addPropertyChangeListener(new PropertyChangeListener() {
+            @Override
+            public void propertyChange(PropertyChangeEvent evt) {
+                if (worker != queryWorker)
+                    return;
+                if ("progress".equals(evt.getPropertyName()))
+                    queryProgress.setValue((Integer) evt.getNewValue());
+                else if ("state".equals(evt.getPropertyName()) && evt.getNewValue() == SwingWorker.StateValue.DONE)
+                    queryDone(worker);
+            }
+        });
+        queryWorker = worker;
+        queryProgress.setValue(0);
+        queryProgress.setString(null);
+        cancelQueryButton.setEnabled(true);
+        worker.execute();
+    }
+
+    private void queryDone(BQLQueryWorker worker) {
+        queryWorker = null;
+        cancelQueryButton.setEnabled(false);
+        try {
+            queryProgress.setValue(100);
+            queryProgress.setString(worker.get() + " records");
+        } catch (CancellationException ex) {
+            queryProgress.setString("cancelled");
+        } catch (InterruptedException | ExecutionException ex) {
+            queryProgress.setString("failed");
+            Throwable cause = ex.getCause() == null ? ex : ex.getCause();
+            JOptionPane.showMessageDialog(this,
+                    String.valueOf(cause.getMessage()),
+                    cause.getClass().getSimpleName(),
+                    JOptionPane.ERROR_MESSAGE);
+        }
     }
 }
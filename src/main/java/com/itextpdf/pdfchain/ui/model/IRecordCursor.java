@@ -0,0 +1,25 @@
+package com.itextpdf.pdfchain.ui.model;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+
+import java.util.List;
+
+/**
+ * Source of the rows of a JBlockchainTableModel, read one page at a time
+ */
+public interface IRecordCursor {
+
+    /**
+     * @return the number of records
+     */
+    int size();
+
+    /**
+     * Read a page of records
+     *
+     * @param start the index of the first record
+     * @param count the maximum number of records
+     * @return at most count records, starting at start
+     */
+    List<Record> fetch(int start, int count);
+}
@@ -2,53 +2,104 @@ package com.itextpdf.pdfchain.ui.model;
 
 import com.itextpdf.pdfchain.blockchain.Record;
 
-import javax.swing.table.DefaultTableModel;
+import javax.swing.*;
+import javax.swing.table.AbstractTableModel;
 import java.util.ArrayList;
 import java.util.Collection;
+import java.util.Collections;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
-public class JBlockchainTableModel extends DefaultTableModel {
+/**
+ * Table model that reads its rows from an IRecordCursor one page at a time, when the table shows them.
+ * Only a bounded number of pages is kept, together with the text of their cells.
+ * The columns are the fields of the records that have been shown so far, the first page decides the initial columns
+ * and fields that appear in later pages are added as new columns.
+ */
+public class JBlockchainTableModel extends AbstractTableModel {
 
-    private List<Record> records = new ArrayList<>();
-    private List<String> columns = new ArrayList<>();
+    private static final int PAGE_SIZE = 256;
+    private static final int MAX_PAGES = 64;
+
+    private IRecordCursor cursor = new RecordListCursor();
+    private final List<String> columns = new ArrayList<>();
+    private final Map<String, Integer> columnIndex = new HashMap<>();
+    private boolean structureChangePending = false;
+
+    // most recently used pages, by page number
+    private final Map<Integer, Page> pages = new LinkedHashMap<Integer, Page>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, Page> eldest) {
+            return size() > MAX_PAGES;
+        }
+    };
 
     public JBlockchainTableModel() {
     }
 
+    /**
+     * Show records, the model keeps a reference to the collection rather than copying it
+     *
+     * @param records the records
+     * @return this model
+     */
     public JBlockchainTableModel setData(Collection<Record> records) {
-        // put records
-        this.records.clear();
-        this.records.addAll(records);
+        return setCursor(new RecordListCursor(records instanceof List ? (List<Record>) records : new ArrayList<>(records)));
+    }
 
-        // determine common columns
-        Map<String, Integer> columnNames = new HashMap<>();
-        for (Record r : records) {
-            for (String col : r.keySet()) {
-                if (!columnNames.containsKey(col))
-                    columnNames.put(col, 0);
-                columnNames.put(col, columnNames.get(col) + 1);
-            }
-        }
+    /**
+     * Show the records of a cursor
+     *
+     * @param cursor the cursor
+     * @return this model
+     */
+    public JBlockchainTableModel setCursor(IRecordCursor cursor) {
+        this.cursor = cursor;
+        pages.clear();
         columns.clear();
-        for (Map.Entry<String, Integer> en : columnNames.entrySet()) {
-            if (en.getValue() == records.size())
-                columns.add(en.getKey());
-        }
-        java.util.Collections.sort(columns);
+        columnIndex.clear();
+        if (cursor.size() > 0)
+            page(0);
+        structureChangePending = false;
+        fireTableStructureChanged();
+        return this;
+    }
 
+    /**
+     * Append records to the table
+     *
+     * @param records the records to append
+     * @return this model
+     */
+    public JBlockchainTableModel addData(Collection<Record> records) {
+        if (records.isEmpty())
+            return this;
+        if (!(cursor instanceof RecordListCursor))
+            throw new IllegalStateException("Records can only be added to a model that shows a list of records");
+        int firstRow = cursor.size();
+        ((RecordListCursor) cursor).add(records);
+        // the last page may have been loaded while it was not full
+        pages.remove(firstRow / PAGE_SIZE);
+        if (firstRow == 0) {
+            page(0);
+            structureChangePending = false;
+            fireTableStructureChanged();
+        } else {
+            fireTableRowsInserted(firstRow, cursor.size() - 1);
+        }
         return this;
     }
 
     @Override
     public int getRowCount() {
-        return records == null ? 0 : records.size();
+        return cursor.size();
     }
 
     @Override
     public int getColumnCount() {
-        return columns == null ? 0 : columns.size();
+        return columns.size();
     }
 
     @Override
@@ -68,7 +119,87 @@ public class JBlockchainTableModel extends DefaultTableModel {
 
     @Override
     public Object getValueAt(int rowIndex, int columnIndex) {
-        return records.get(rowIndex).get(columns.get(columnIndex));
+        return page(rowIndex / PAGE_SIZE).cell(rowIndex % PAGE_SIZE, columnIndex);
     }
 
+    /**
+     * Get a page, reading it from the cursor if it is not kept
+     */
+    private Page page(int number) {
+        Page page = pages.get(number);
+        if (page == null) {
+            page = new Page(cursor.fetch(number * PAGE_SIZE, PAGE_SIZE));
+            pages.put(number, page);
+        }
+        return page;
+    }
+
+    /**
+     * Add the fields of newly read records as columns, sorted by name
+     */
+    private void addColumns(List<Record> records) {
+        List<String> added = null;
+        for (Record r : records) {
+            for (String field : r.keySet()) {
+                if (!columnIndex.containsKey(field)) {
+                    columnIndex.put(field, -1);
+                    if (added == null)
+                        added = new ArrayList<>();
+                    added.add(field);
+                }
+            }
+        }
+        if (added == null)
+            return;
+        Collections.sort(added);
+        for (String field : added) {
+            columnIndex.put(field, columns.size());
+            columns.add(field);
+        }
+        // the table may be painting, tell it about the new columns afterwards
+        if (!structureChangePending) {
+            structureChangePending = true;
+            SwingUtilities.invokeLater(new Runnable() {
+                @Override
+                public void run() {
+                    if (structureChangePending) {
+                        structureChangePending = false;
+                        fireTableStructureChanged();
+                    }
+                }
+            });
+        }
+    }
+
+    /**
+     * Records of a page, and the text of the cells that have been shown
+     */
+    private class Page {
+
+        private final Record[] records;
+        private final String[][] cells;
+
+        Page(List<Record> records) {
+            this.records = records.toArray(new Record[records.size()]);
+            this.cells = new String[this.records.length][];
+            addColumns(records);
+        }
+
+        String cell(int row, int column) {
+            if (row >= records.length)
+                return null;
+            String[] text = cells[row];
+            if (text == null || text.length <= column) {
+                String[] grown = new String[columns.size()];
+                if (text != null)
+                    System.arraycopy(text, 0, grown, 0, text.length);
+                text = cells[row] = grown;
+            }
+            if (text[column] == null) {
+                Object value = records[row].get(columns.get(column));
+                text[column] = value == null ? "" : value.toString();
+            }
+            return text[column];
+        }
+    }
 }
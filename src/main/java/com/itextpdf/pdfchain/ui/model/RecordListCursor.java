@@ -0,0 +1,52 @@
+package com.itextpdf.pdfchain.ui.model;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * IRecordCursor over a List of records, such as the result of a query.
+ * The list is not copied until records are added to the cursor.
+ */
+public class RecordListCursor implements IRecordCursor {
+
+    private List<Record> records;
+    private boolean shared;
+
+    public RecordListCursor(List<Record> records) {
+        this.records = records;
+        this.shared = true;
+    }
+
+    public RecordListCursor() {
+        this.records = new ArrayList<>();
+        this.shared = false;
+    }
+
+    /**
+     * Append records
+     *
+     * @param more the records to append
+     * @return this cursor
+     */
+    public RecordListCursor add(Collection<Record> more) {
+        if (shared) {
+            records = new ArrayList<>(records);
+            shared = false;
+        }
+        records.addAll(more);
+        return this;
+    }
+
+    @Override
+    public int size() {
+        return records.size();
+    }
+
+    @Override
+    public List<Record> fetch(int start, int count) {
+        return records.subList(start, Math.min(records.size(), start + count));
+    }
+}
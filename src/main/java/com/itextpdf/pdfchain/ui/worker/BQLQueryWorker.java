@@ -0,0 +1,98 @@
+package com.itextpdf.pdfchain.ui.worker;
+
+import com.itextpdf.pdfchain.blockchain.IBlockChain;
+import com.itextpdf.pdfchain.blockchain.IStreamBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregate;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import com.itextpdf.pdfchain.bql.relational.EqualID;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import com.itextpdf.pdfchain.bql.transform.Select;
+import com.itextpdf.pdfchain.ui.model.JBlockchainTableModel;
+
+import javax.swing.*;
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * Executes a BQL query in the background, adding the records to a table model one page at a time.
+ * When the blockchain can be read in ranges and the query decides about every record on its own,
+ * the chain is read a page at a time and records appear in the table while the query runs.
+ * Otherwise the query is executed as a whole and its result is added in pages.
+ * The progress property goes from 0 to 100, cancel stops the query at the next page.
+ */
+public class BQLQueryWorker extends SwingWorker<Integer, List<Record>> {
+
+    // number of items read from the chain, and number of records added to the table, at once
+    private static final int PAGE_SIZE = 1000;
+
+    private final IBlockChain blockchain;
+    private final AbstractBQLOperator op;
+    private final JBlockchainTableModel model;
+
+    public BQLQueryWorker(IBlockChain blockchain, AbstractBQLOperator op, JBlockchainTableModel model) {
+        this.blockchain = blockchain;
+        this.op = op;
+        this.model = model;
+    }
+
+    /**
+     * @return the number of records the query returned
+     */
+    @Override
+    protected Integer doInBackground() {
+        if (blockchain instanceof IStreamBlockChain && isStreamable(op))
+            return stream((IStreamBlockChain) blockchain);
+
+        List<Record> records = new ArrayList<>(new BQLExecutor(blockchain).execute(op));
+        for (int start = 0; start < records.size() && !isCancelled(); start += PAGE_SIZE) {
+            int end = Math.min(records.size(), start + PAGE_SIZE);
+            publish(new ArrayList<>(records.subList(start, end)));
+            setProgress(end * 100 / records.size());
+        }
+        return records.size();
+    }
+
+    private int stream(IStreamBlockChain chain) {
+        int size = chain.size();
+        int found = 0;
+        for (int start = 0; start < size && !isCancelled(); start += PAGE_SIZE) {
+            List<Record> page = chain.range(start, PAGE_SIZE);
+            if (page.isEmpty())
+                break;
+            Collection<Record> out = op.apply(page);
+            if (!out.isEmpty()) {
+                publish(new ArrayList<>(out));
+                found += out.size();
+            }
+            setProgress((int) Math.min(100, (start + page.size()) * 100L / size));
+        }
+        return found;
+    }
+
+    @Override
+    protected void process(List<List<Record>> pages) {
+        if (isCancelled())
+            return;
+        for (List<Record> page : pages)
+            model.addData(page);
+    }
+
+    /**
+     * Check whether the result of a query over all items is the concatenation of its results over consecutive ranges of items.
+     * Sorting, aggregating and removing duplicates need every item at once, and a query on IDs is better served by a keyed get.
+     */
+    static boolean isStreamable(AbstractBQLOperator op) {
+        if (op instanceof SortBy || op instanceof Aggregate || op instanceof EqualID)
+            return false;
+        if (op instanceof Select && ((Select) op).isDistinct())
+            return false;
+        for (AbstractBQLOperator child : op.getChildren()) {
+            if (!isStreamable(child))
+                return false;
+        }
+        return true;
+    }
+}
@@ -0,0 +1,151 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.limit.AdaptiveLimitBlockChain;
+import com.itextpdf.pdfchain.blockchain.limit.ILimitListener;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveLimitBlockChainTest {
+
+    /**
+     * A node whose puts take a configurable time, and that keeps track of how many puts it handles at once
+     */
+    private static class StubNode extends InMemoryBlockChain {
+
+        private volatile long delayMillis = 1;
+        private volatile boolean failing = false;
+        private volatile CountDownLatch hold;
+        private final AtomicInteger concurrent = new AtomicInteger();
+        private final AtomicInteger maxConcurrent = new AtomicInteger();
+
+        @Override
+        public boolean put(String key, Record data) {
+            int now = concurrent.incrementAndGet();
+            int max;
+            while (now > (max = maxConcurrent.get()) && !maxConcurrent.compareAndSet(max, now)) {
+                // retry
+            }
+            try {
+                if (hold != null)
+                    hold.await();
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            } finally {
+                concurrent.decrementAndGet();
+            }
+            return !failing && super.put(key, data);
+        }
+    }
+
+    private static void putConcurrently(final AdaptiveLimitBlockChain chain, int threads, final int putsPerThread) throws InterruptedException {
+        List<Thread> out = new ArrayList<>();
+        for (int t = 0; t < threads; t++) {
+            out.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < putsPerThread; i++)
+                        chain.put("doc" + i, new Record());
+                }
+            }));
+        }
+        for (Thread t : out)
+            t.start();
+        for (Thread t : out)
+            t.join();
+    }
+
+    @Test
+    public void limitTest() throws InterruptedException {
+        StubNode node = new StubNode();
+        AdaptiveLimitBlockChain chain = new AdaptiveLimitBlockChain(node).setLimits(4, 1, 4);
+        putConcurrently(chain, 16, 20);
+        assertEquals(320, node.size());
+        assertTrue(node.maxConcurrent.get() <= 4);
+        assertEquals(0, chain.getInFlight());
+    }
+
+    @Test
+    public void additiveIncreaseTest() throws InterruptedException {
+        StubNode node = new StubNode();
+        AdaptiveLimitBlockChain chain = new AdaptiveLimitBlockChain(node)
+                .setLimits(2, 1, 16)
+                .setLatencyTolerance(1000);
+        putConcurrently(chain, 16, 50);
+        assertTrue(chain.getLimit() > 2);
+        assertTrue(node.maxConcurrent.get() <= 16);
+    }
+
+    @Test
+    public void multiplicativeDecreaseTest() throws InterruptedException {
+        StubNode node = new StubNode();
+        node.failing = true;
+        final List<Integer> limits = new ArrayList<>();
+        AdaptiveLimitBlockChain chain = new AdaptiveLimitBlockChain(node)
+                .setLimits(32, 2, 32)
+                .setBackoffRatio(0.5)
+                .setListener(new ILimitListener() {
+                    @Override
+                    public synchronized void onLimitChanged(int previous, int limit) {
+                        limits.add(limit);
+                    }
+                });
+        for (int i = 0; i < 10; i++)
+            assertFalse(chain.put("doc" + i, new Record()));
+        assertEquals(2, chain.getLimit());
+        assertEquals(16, (int) limits.get(0));
+        assertEquals(2, (int) limits.get(limits.size() - 1));
+    }
+
+    @Test
+    public void latencyDecreaseTest() {
+        StubNode node = new StubNode();
+        node.delayMillis = 10;
+        AdaptiveLimitBlockChain chain = new AdaptiveLimitBlockChain(node).setLimits(8, 1, 8);
+        for (int i = 0; i < 5; i++)
+            assertTrue(chain.put("doc" + i, new Record()));
+        assertEquals(8, chain.getLimit());
+
+        // the node gets much slower than it was
+        node.delayMillis = 100;
+        for (int i = 0; i < 5; i++)
+            assertTrue(chain.put("doc" + i, new Record()));
+        assertTrue(chain.getLimit() < 8);
+    }
+
+    @Test
+    public void rejectTest() throws InterruptedException {
+        StubNode node = new StubNode();
+        final AdaptiveLimitBlockChain chain = new AdaptiveLimitBlockChain(node)
+                .setLimits(1, 1, 1)
+                .setMode(AdaptiveLimitBlockChain.Mode.REJECT);
+        CountDownLatch release = new CountDownLatch(1);
+        node.hold = release;
+        Thread blocked = new Thread(new Runnable() {
+            @Override
+            public void run() {
+                chain.put("doc1", new Record());
+            }
+        });
+        blocked.start();
+        while (chain.getInFlight() == 0)
+            Thread.sleep(1);
+
+        assertFalse(chain.put("doc2", new Record()));
+        assertEquals(1, chain.getRejected());
+        release.countDown();
+        blocked.join();
+        node.hold = null;
+        assertTrue(chain.put("doc3", new Record()));
+        assertEquals(2, node.size());
+    }
+}
@@ -0,0 +1,99 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregate;
+import com.itextpdf.pdfchain.bql.aggregate.AggregateFunction;
+import com.itextpdf.pdfchain.bql.aggregate.Aggregation;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import com.itextpdf.pdfchain.bql.logical.And;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import com.itextpdf.pdfchain.bql.transform.Select;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AggregateTest {
+
+    private static final InMemoryBlockChain CHAIN = InMemoryBlockChain.synthetic(6000);
+
+    private static List<Record> execute(String query) {
+        return new ArrayList<>(new BQLExecutor(CHAIN).execute(BQLCompiler.compile(query)));
+    }
+
+    @Test
+    public void countTest() {
+        List<Record> out = execute("COUNT (confirmations >= 50)");
+        assertEquals(1, out.size());
+        assertEquals(1000L, out.get(0).get("count_all"));
+        assertEquals(0L, execute("COUNT (confirmations > 100)").get(0).get("count_all"));
+    }
+
+    @Test
+    public void sumMinMaxAvgTest() {
+        assertEquals(100.0 * (59 * 60 / 2), execute("SUM [confirmations] (*)").get(0).get("sum_confirmations"));
+        assertEquals(29.5, execute("AVG [confirmations] (*)").get(0).get("avg_confirmations"));
+        assertEquals(10, execute("MIN [confirmations] (confirmations > 9.5)").get(0).get("min_confirmations"));
+        assertEquals(1499691151 + 599, execute("MAX [blocktime] (*)").get(0).get("max_blocktime"));
+    }
+
+    @Test
+    public void groupByTest() {
+        AbstractBQLOperator op = BQLCompiler.compile("COUNT (id2 STARTS_WITH 'rev') GROUP_BY [confirmations] SORT confirmations");
+        assertTrue(op instanceof SortBy);
+        assertTrue(op.getChildren().get(0) instanceof Aggregate);
+        List<Record> out = new ArrayList<>(new BQLExecutor(CHAIN).execute(op));
+        assertEquals(60, out.size());
+        for (int i = 0; i < 60; i++) {
+            assertEquals(i, out.get(i).get("confirmations"));
+            assertEquals(100L, out.get(i).get("count_all"));
+        }
+        assertEquals(2, execute("(confirmations < 2) GROUP_BY [confirmations]").size());
+        assertEquals(100, execute("MAX [blocktime] (confirmations < 2) GROUP_BY [confirmations, id1]").size());
+    }
+
+    @Test
+    public void parallelAndColumnarMatchSequentialTest() {
+        String[] queries = {
+                "COUNT (confirmations > 10 AND hsh STARTS_WITH 'a') GROUP_BY [id1]",
+                "AVG [blocktime] (*) GROUP_BY [confirmations]",
+                "SUM [confirmations] (id1 == 'doc1' OR id1 == 'doc2')"
+        };
+        for (String q : queries) {
+            AbstractBQLOperator op = BQLCompiler.compile(q);
+            HashSet<Record> expected = new HashSet<>(new BQLExecutor(CHAIN).execute(op));
+            assertEquals(q, expected, new HashSet<>(new BQLExecutor(CHAIN).setParallelism(4).execute(op)));
+            assertEquals(q, expected, new HashSet<>(new BQLExecutor(CHAIN).setColumnarScans(true).execute(op)));
+            assertEquals(q, expected, new HashSet<>(new BQLExecutor(CHAIN).setCompileFilters(true).execute(op)));
+        }
+    }
+
+    @Test
+    public void functionNamesAsFieldsTest() {
+        // aggregate functions are only keywords when an argument follows
+        AbstractBQLOperator op = BQLCompiler.compile("SELECT [count, min] (count > 5 AND max == 1) SORT sum");
+        assertTrue(op instanceof SortBy);
+        assertTrue(op.getChildren().get(0) instanceof Select);
+        assertTrue(op.getChildren().get(0).getChildren().get(0) instanceof And);
+        assertEquals(6000L, execute("COUNT(*)").get(0).get("count_all"));
+    }
+
+    @Test
+    public void outputNameIgnoresLocaleTest() {
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(new Locale("tr", "TR"));
+            assertEquals("min_blocktime", new Aggregation(AggregateFunction.MIN, "blocktime").getOutputName());
+            assertEquals(1, execute("min [blocktime] (*)").size());
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
@@ -0,0 +1,91 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.logical.And;
+import com.itextpdf.pdfchain.bql.logical.Or;
+import com.itextpdf.pdfchain.bql.relational.Equal;
+import com.itextpdf.pdfchain.bql.relational.Greater;
+import com.itextpdf.pdfchain.bql.relational.SmallerOrEqual;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import com.itextpdf.pdfchain.bql.transform.Select;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class BQLCompilerTest {
+
+    @Test
+    public void compileWithoutWhitespaceTest() {
+        AbstractBQLOperator op = BQLCompiler.compile("confirmations>10 AND confirmations<=50");
+        assertTrue(op instanceof And);
+        assertTrue(op.getChildren().get(0) instanceof SmallerOrEqual);
+        assertTrue(op.getChildren().get(1) instanceof Greater);
+    }
+
+    @Test
+    public void compileKeywordsAreCaseInsensitiveTest() {
+        AbstractBQLOperator op = BQLCompiler.compile("select [id1, id2] (confirmations > 10 or hsh == 'abc') sort confirmations");
+        assertTrue(op instanceof SortBy);
+        assertTrue(op.getChildren().get(0) instanceof Select);
+        assertTrue(op.getChildren().get(0).getChildren().get(0) instanceof Or);
+    }
+
+    @Test
+    public void compileVariableStartingWithKeywordTest() {
+        // 'origin' starts with 'OR', 'android' contains 'AND'
+        AbstractBQLOperator op = BQLCompiler.compile("origin == 'x' AND android == 1");
+        assertTrue(op instanceof And);
+        assertTrue(op.getChildren().get(0) instanceof Equal);
+        assertTrue(op.getChildren().get(1) instanceof Equal);
+    }
+
+    @Test
+    public void compileLongExpressionTest() {
+        StringBuilder sb = new StringBuilder("confirmations == 0");
+        for (int i = 1; i < 20000; i++)
+            sb.append(" OR confirmations == ").append(i);
+        AbstractBQLOperator op = BQLCompiler.compile(sb.toString());
+        assertTrue(op instanceof Or);
+    }
+
+    @Test
+    public void compileDecimalNumberTest() {
+        AbstractBQLOperator op = BQLCompiler.compile("SELECT [a] (x < .5)");
+        assertEquals(Select.class, op.getClass());
+    }
+
+    @Test
+    public void compileTrailingDotNumberTest() {
+        AbstractBQLOperator op = BQLCompiler.compile("x > 5.");
+        assertTrue(op instanceof Greater);
+        assertEquals(5.0, ((Number) ((Greater) op).getFieldValue()).doubleValue(), 0.0);
+    }
+
+    @Test
+    public void unterminatedStringPositionTest() {
+        assertError("hsh == 'abc", "position 7");
+    }
+
+    @Test
+    public void unexpectedCharacterPositionTest() {
+        assertError("confirmations = 10", "position 14");
+    }
+
+    @Test
+    public void mismatchedParenthesisPositionTest() {
+        assertError("(confirmations > 10]", "position 19");
+        assertError("(confirmations > 10", "position 0");
+    }
+
+    private static void assertError(String expression, String expectedMessagePart) {
+        try {
+            BQLCompiler.compile(expression);
+            fail("Expected '" + expression + "' to be rejected");
+        } catch (IllegalArgumentException ex) {
+            assertTrue(ex.getMessage(), ex.getMessage().contains(expectedMessagePart));
+        }
+    }
+}
@@ -0,0 +1,61 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import com.itextpdf.pdfchain.bql.logical.And;
+import com.itextpdf.pdfchain.bql.logical.Or;
+import com.itextpdf.pdfchain.bql.relational.EqualID;
+import com.itextpdf.pdfchain.bql.relational.Greater;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import org.junit.Test;
+
+import java.util.Collection;
+import java.util.HashSet;
+
+import static org.junit.Assert.assertEquals;
+
+public class BQLExecutorTest {
+
+    @Test
+    public void orRetainsRecordsOnceTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(1000);
+        Collection<Record> out = new BQLExecutor(chain).execute(BQLCompiler.compile("confirmations > 10 OR confirmations < 50"));
+        assertEquals(1000, out.size());
+        assertEquals(1000, new HashSet<>(out).size());
+    }
+
+    @Test
+    public void orOfIDsFetchesByKeyTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(5000);
+        AbstractBQLOperator op = new SortBy(new And(
+                new Or(new EqualID("doc1"), new Or(new EqualID("doc2"), new EqualID("doc1"))),
+                new Greater("confirmations", 5)),
+                "confirmations");
+        Collection<Record> out = new BQLExecutor(chain).execute(op);
+        assertEquals(0, chain.allCalls.get());
+        assertEquals(2, chain.getCalls.get());
+        for (Record r : out)
+            assertEquals(true, r.get("id1").equals("doc1") || r.get("id1").equals("doc2"));
+        assertEquals(6, out.size());
+    }
+
+    @Test
+    public void orWithUnkeyedOperandFetchesAllTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(1000);
+        new BQLExecutor(chain).execute(new Or(new EqualID("doc1"), new Greater("confirmations", 58)));
+        assertEquals(1, chain.allCalls.get());
+        assertEquals(0, chain.getCalls.get());
+    }
+
+    @Test(timeout = 1000)
+    public void longOrChainTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(100);
+        AbstractBQLOperator op = new Greater("confirmations", 1000);
+        for (int i = 0; i < 2000; i++)
+            op = new Or(op, new Greater("confirmations", 1000 + i));
+        op = new Or(op, new Greater("confirmations", 49));
+        assertEquals(10, op.apply(chain.all()).size());
+    }
+}
@@ -0,0 +1,70 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import com.itextpdf.pdfchain.bql.executor.BQLExplanation;
+import com.itextpdf.pdfchain.bql.executor.BQLPlanNode;
+import com.itextpdf.pdfchain.bql.logical.And;
+import com.itextpdf.pdfchain.bql.logical.Or;
+import com.itextpdf.pdfchain.bql.relational.EqualID;
+import com.itextpdf.pdfchain.bql.relational.Greater;
+import com.itextpdf.pdfchain.bql.relational.Smaller;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import com.itextpdf.pdfchain.bql.transform.Select;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collections;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BQLExplainTest {
+
+    @Test
+    public void keyedGetTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(10000);
+        // keys are only used for EqualID, which the compiler does not produce
+        AbstractBQLOperator op = new SortBy(new And(new EqualID("doc3"), new Smaller("confirmations", 30.0)), "blocktime", false);
+        BQLExplanation explanation = new BQLExecutor(chain).explainAnalyze(op);
+
+        assertEquals(BQLExplanation.AccessPath.KEYED_GET, explanation.getAccessPath());
+        assertEquals(Collections.singleton("doc3"), explanation.getKeys());
+        assertEquals(10, explanation.getFetchedRows());
+        assertEquals(new ArrayList<>(new BQLExecutor(chain).execute(op)), new ArrayList<>(explanation.getResult()));
+
+        BQLPlanNode sort = explanation.getRoot();
+        assertEquals("SORT [blocktime DESC]", sort.getDescription());
+        assertEquals(10, sort.getRowsIn());
+        assertEquals(explanation.getResult().size(), sort.getRowsOut());
+        assertTrue(sort.getWallNanos() >= 0);
+
+        BQLPlanNode and = sort.getChildren().get(0);
+        assertEquals("AND", and.getDescription());
+        assertEquals(10, and.getRowsIn());
+        // the right operand only sees the records the left operand accepted
+        assertEquals(and.getChildren().get(0).getRowsOut(), and.getChildren().get(1).getRowsIn());
+        assertEquals(-1, and.getChildren().get(1).getWallNanos());
+    }
+
+    @Test
+    public void fullScanTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(10000);
+        AbstractBQLOperator op = new Select(new Or(new EqualID("doc3"), new Greater("confirmations", 57.0)), new String[]{"id1", "confirmations"});
+        BQLExplanation explanation = new BQLExecutor(chain).explainAnalyze(op);
+
+        assertEquals(BQLExplanation.AccessPath.FULL_SCAN, explanation.getAccessPath());
+        assertEquals(10000, explanation.getFetchedRows());
+        assertEquals(1, explanation.getNotes().size());
+
+        BQLPlanNode or = explanation.getRoot().getChildren().get(0);
+        assertEquals(10000, or.getRowsIn());
+        assertEquals(10, or.getChildren().get(0).getRowsOut());
+        assertEquals(10000 - 10, or.getChildren().get(1).getRowsIn());
+        assertEquals(new BQLExecutor(chain).execute(op).size(), or.getRowsOut());
+        assertTrue(explanation.toString().startsWith("FETCH FULL_SCAN"));
+        for (Record r : explanation.getResult())
+            assertEquals(2, r.size());
+    }
+}
@@ -0,0 +1,90 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.IRecordPredicate;
+import com.itextpdf.pdfchain.bql.codegen.BQLPredicateCompiler;
+import com.itextpdf.pdfchain.bql.codegen.CompiledFilter;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.relational.Equal;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import com.itextpdf.pdfchain.bql.transform.Select;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
+
+public class BQLPredicateCompilerTest {
+
+    private static List<Record> records() {
+        List<Record> out = new ArrayList<>();
+        for (int i = 0; i < 200; i++) {
+            Record r = new Record();
+            r.put("txid", "tx" + i);
+            r.put("confirmations", i % 60);
+            r.put("blocktime", 1499691151 + i);
+            r.put("hsh", (i % 3 == 0 ? "ab" : "cd") + Integer.toHexString(i));
+            if (i % 7 != 0)
+                r.put("score", (double) (i % 10));
+            out.add(r);
+        }
+        return out;
+    }
+
+    @Test
+    public void compiledMatchesInterpretedTest() {
+        String[] queries = {
+                "confirmations > 10 AND confirmations < 50",
+                "confirmations >= 10 OR confirmations <= 5",
+                "hsh STARTS_WITH 'ab' AND (score == 3 OR score != 4)",
+                "(hsh ENDS_WITH 'f' OR confirmations == 12) AND blocktime > 1499691200",
+                "txid == 'tx17' OR txid == 'tx18' OR txid == 'tx19'",
+                "*"
+        };
+        List<Record> records = records();
+        for (String q : queries) {
+            AbstractBQLOperator op = BQLCompiler.compile(q);
+            assertTrue(q, BQLPredicateCompiler.isCompilable(op));
+            IRecordPredicate predicate = BQLPredicateCompiler.compile(op);
+            List<Record> compiled = new ArrayList<>();
+            for (Record r : records) {
+                if (predicate.test(r))
+                    compiled.add(r);
+            }
+            assertEquals(q, new HashSet<>(op.apply(records)), new HashSet<>(compiled));
+        }
+    }
+
+    @Test
+    public void predicatesAreCachedTest() {
+        IRecordPredicate p0 = BQLPredicateCompiler.compile(BQLCompiler.compile("confirmations > 10 AND hsh == 'ab0'"));
+        IRecordPredicate p1 = BQLPredicateCompiler.compile(BQLCompiler.compile("confirmations > 10 AND hsh == 'ab0'"));
+        IRecordPredicate p2 = BQLPredicateCompiler.compile(BQLCompiler.compile("confirmations > 11 AND hsh == 'ab0'"));
+        assertSame(p0, p1);
+        assertFalse(p0.getClass().equals(p2.getClass()));
+    }
+
+    @Test
+    public void nonStringConstantTest() {
+        Record r = new Record();
+        r.put("confirmations", 12);
+        assertTrue(BQLPredicateCompiler.compile(new Equal("confirmations", 12)).test(r));
+        assertFalse(BQLPredicateCompiler.compile(new Equal("confirmations", 12L)).test(r));
+    }
+
+    @Test
+    public void compileFiltersKeepsProjectionAndSortTest() {
+        AbstractBQLOperator op = BQLCompiler.compile("SELECT [txid, confirmations] (confirmations > 10 AND confirmations < 50) SORT confirmations");
+        AbstractBQLOperator compiled = BQLPredicateCompiler.compileFilters(op);
+        assertTrue(compiled instanceof SortBy);
+        assertTrue(compiled.getChildren().get(0) instanceof Select);
+        assertTrue(compiled.getChildren().get(0).getChildren().get(0) instanceof CompiledFilter);
+        assertEquals(new ArrayList<>(op.apply(records())), new ArrayList<>(compiled.apply(records())));
+    }
+}
@@ -0,0 +1,62 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import com.itextpdf.pdfchain.ui.model.JBlockchainTableModel;
+import com.itextpdf.pdfchain.ui.worker.BQLQueryWorker;
+import org.junit.Test;
+
+import javax.swing.*;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class BQLQueryWorkerTest {
+
+    /**
+     * Wait until every page the worker published has been added to the model
+     */
+    private static int rowsWhenSettled(final JBlockchainTableModel model, int expected) throws Exception {
+        final AtomicInteger rows = new AtomicInteger();
+        for (int attempt = 0; attempt < 100; attempt++) {
+            SwingUtilities.invokeAndWait(new Runnable() {
+                @Override
+                public void run() {
+                    rows.set(model.getRowCount());
+                }
+            });
+            if (rows.get() == expected)
+                break;
+            Thread.sleep(20);
+        }
+        return rows.get();
+    }
+
+    private static void check(InMemoryBlockChain chain, String query) throws Exception {
+        AbstractBQLOperator op = BQLCompiler.compile(query);
+        int expected = new BQLExecutor(chain).execute(op).size();
+        JBlockchainTableModel model = new JBlockchainTableModel();
+        BQLQueryWorker worker = new BQLQueryWorker(chain, op, model);
+        worker.execute();
+        assertEquals(query, expected, (int) worker.get());
+        assertEquals(query, expected, rowsWhenSettled(model, expected));
+        assertEquals(100, worker.getProgress());
+    }
+
+    @Test
+    public void streamedQueryTest() throws Exception {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(5500);
+        check(chain, "SELECT [id1, confirmations] (confirmations > 50)");
+        // the worker reads ranges of items, the single call to all was made to compute the expected result
+        assertEquals(1, chain.allCalls.get());
+    }
+
+    @Test
+    public void sortedQueryTest() throws Exception {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(5500);
+        check(chain, "(confirmations > 50) SORT [blocktime DESC]");
+        // sorting needs all items at once
+        assertEquals(2, chain.allCalls.get());
+    }
+}
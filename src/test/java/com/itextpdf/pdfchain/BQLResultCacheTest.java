@@ -0,0 +1,91 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import com.itextpdf.pdfchain.bql.executor.BQLResultCache;
+import com.itextpdf.pdfchain.bql.logical.And;
+import com.itextpdf.pdfchain.bql.relational.Equal;
+import com.itextpdf.pdfchain.bql.relational.Greater;
+import com.itextpdf.pdfchain.bql.relational.Star;
+import com.itextpdf.pdfchain.bql.transform.Select;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class BQLResultCacheTest {
+
+    @Test
+    public void repeatedQueryIsServedFromCacheTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(1000);
+        BQLResultCache cache = new BQLResultCache(16);
+        BQLExecutor e0 = new BQLExecutor(chain).setResultCache(cache);
+        BQLExecutor e1 = new BQLExecutor(chain).setResultCache(cache);
+
+        int size = e0.execute(BQLCompiler.compile("confirmations > 10 AND hsh STARTS_WITH 'a'")).size();
+        assertEquals(size, e1.execute(BQLCompiler.compile("hsh STARTS_WITH 'a' AND confirmations > 10")).size());
+        assertEquals(1, chain.allCalls.get());
+        assertEquals(1, cache.getHits());
+
+        // a new block invalidates the result
+        Record r = new Record();
+        r.put("confirmations", 11);
+        r.put("hsh", "abc");
+        chain.put("doc", r);
+        assertEquals(size + 1, e0.execute(BQLCompiler.compile("confirmations > 10 AND hsh STARTS_WITH 'a'")).size());
+        assertEquals(2, chain.allCalls.get());
+    }
+
+    @Test
+    public void constantTypesAreDistinguishedTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(100);
+        BQLExecutor executor = new BQLExecutor(chain).setResultCache(new BQLResultCache(16));
+        assertEquals(2, executor.execute(new Equal("confirmations", 10)).size());
+        assertEquals(0, executor.execute(new Equal("confirmations", 10.0)).size());
+    }
+
+    @Test
+    public void cacheIsBoundedTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(100);
+        BQLResultCache cache = new BQLResultCache(4);
+        BQLExecutor executor = new BQLExecutor(chain).setResultCache(cache);
+        for (int i = 0; i < 10; i++)
+            executor.execute(BQLCompiler.compile("confirmations > " + i));
+        assertEquals(4, cache.size());
+    }
+
+    @Test
+    public void unconfirmedItemInvalidatesResultTest() {
+        // a chain that lists new items before they are in a block
+        InMemoryBlockChain chain = new InMemoryBlockChain() {
+            @Override
+            public synchronized long height() {
+                return 1;
+            }
+        };
+        BQLExecutor executor = new BQLExecutor(chain).setResultCache(new BQLResultCache(16));
+        assertEquals(0, executor.execute(new Equal("id1", "doc1")).size());
+        Record r = new Record();
+        r.put("id1", "doc1");
+        chain.put("doc1", r);
+        assertEquals(1, executor.execute(new Equal("id1", "doc1")).size());
+    }
+
+    @Test
+    public void operandsThatAreNotFiltersDoNotCommuteTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(100);
+        BQLResultCache cache = new BQLResultCache(16);
+        BQLExecutor executor = new BQLExecutor(chain).setResultCache(cache);
+        AbstractBQLOperator select = new Select(new Star(), new String[]{"id1"}, false);
+        AbstractBQLOperator filter = new Greater("confirmations", 10);
+        List<Record> selectFirst = new ArrayList<>(new BQLExecutor(chain).execute(new And(select, filter)));
+        List<Record> filterFirst = new ArrayList<>(new BQLExecutor(chain).execute(new And(filter, select)));
+        assertEquals(selectFirst, new ArrayList<>(executor.execute(new And(select, filter))));
+        assertEquals(filterFirst, new ArrayList<>(executor.execute(new And(filter, select))));
+        assertEquals(0, cache.getHits());
+    }
+}
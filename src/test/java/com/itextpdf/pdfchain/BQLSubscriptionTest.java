@@ -0,0 +1,81 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import com.itextpdf.pdfchain.bql.executor.BQLSubscription;
+import com.itextpdf.pdfchain.bql.executor.IBQLSubscriptionListener;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class BQLSubscriptionTest {
+
+    private static class CollectingListener implements IBQLSubscriptionListener {
+        final List<Collection<Record>> deltas = new ArrayList<>();
+
+        @Override
+        public void onRecords(BQLSubscription subscription, Collection<Record> records) {
+            deltas.add(records);
+        }
+    }
+
+    private static void publish(InMemoryBlockChain chain, String id1, int confirmations) {
+        Record r = new Record();
+        r.put("id1", id1);
+        r.put("confirmations", confirmations);
+        chain.put(id1, r);
+    }
+
+    @Test
+    public void onlyNewItemsAreEvaluatedTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(1000);
+        BQLExecutor executor = new BQLExecutor(chain);
+        CollectingListener docs = new CollectingListener();
+        CollectingListener all = new CollectingListener();
+        executor.subscribe(BQLCompiler.compile("id1 == 'doc1'"), docs);
+        executor.subscribe(BQLCompiler.compile("*"), all);
+
+        executor.poll();
+        assertTrue(docs.deltas.isEmpty());
+        assertTrue(all.deltas.isEmpty());
+
+        publish(chain, "doc1", 0);
+        publish(chain, "doc2", 0);
+        executor.poll();
+        assertEquals(1, docs.deltas.size());
+        assertEquals(1, docs.deltas.get(0).size());
+        assertEquals(2, all.deltas.get(0).size());
+
+        publish(chain, "doc2", 0);
+        executor.poll();
+        assertEquals(1, docs.deltas.size());
+        assertEquals(2, all.deltas.size());
+        assertEquals(1, all.deltas.get(1).size());
+
+        // new items are fetched once per poll, not once per subscription, and never all items
+        assertEquals(0, chain.allCalls.get());
+    }
+
+    @Test
+    public void cancelledSubscriptionTest() {
+        InMemoryBlockChain chain = new InMemoryBlockChain();
+        BQLExecutor executor = new BQLExecutor(chain);
+        CollectingListener listener = new CollectingListener();
+        BQLSubscription subscription = executor.subscribe(BQLCompiler.compile("*"), listener);
+        publish(chain, "doc1", 0);
+        subscription.cancel();
+        executor.poll();
+        assertTrue(listener.deltas.isEmpty());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void aggregateSubscriptionTest() {
+        new BQLExecutor(new InMemoryBlockChain()).subscribe(BQLCompiler.compile("COUNT (*)"), new CollectingListener());
+    }
+}
@@ -0,0 +1,206 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.IMultiKeyBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.coalesce.CoalescingBlockChain;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class CoalescingBlockChainTest {
+
+    /**
+     * Holds every lookup until it is released, and fails lookups on request
+     */
+    private static class SlowBlockChain implements IMultiKeyBlockChain {
+
+        private final InMemoryBlockChain chain = InMemoryBlockChain.synthetic(1000);
+        private final CountDownLatch release = new CountDownLatch(1);
+        private volatile boolean failing = false;
+
+        final AtomicInteger getAllCalls = new AtomicInteger();
+
+        private void hold() {
+            try {
+                release.await();
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            if (failing)
+                throw new IllegalStateException("node unavailable");
+        }
+
+        @Override
+        public boolean put(String key, Record data) {
+            return chain.put(key, data);
+        }
+
+        @Override
+        public List<Record> get(String key) {
+            hold();
+            return chain.get(key);
+        }
+
+        @Override
+        public List<Record> all() {
+            hold();
+            return chain.all();
+        }
+
+        @Override
+        public Map<String, List<Record>> getAll(Collection<String> keys) {
+            getAllCalls.incrementAndGet();
+            hold();
+            Map<String, List<Record>> out = new HashMap<>();
+            for (String key : keys)
+                out.put(key, chain.get(key));
+            return out;
+        }
+    }
+
+    private static List<Future<List<Record>>> getConcurrently(ExecutorService executor, final CoalescingBlockChain chain, List<String> keys) {
+        List<Future<List<Record>>> out = new ArrayList<>();
+        for (final String key : keys) {
+            out.add(executor.submit(new Callable<List<Record>>() {
+                @Override
+                public List<Record> call() {
+                    return chain.get(key);
+                }
+            }));
+        }
+        return out;
+    }
+
+    /**
+     * Wait until the given number of callers joined a request that is already in flight
+     */
+    private static void awaitCoalesced(CoalescingBlockChain chain, int coalesced) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 10000;
+        while (chain.getCoalesced() < coalesced && System.currentTimeMillis() < deadline)
+            Thread.sleep(1);
+    }
+
+    @Test
+    public void singleFlightTest() throws Exception {
+        SlowBlockChain slow = new SlowBlockChain();
+        CoalescingBlockChain chain = new CoalescingBlockChain(slow);
+        ExecutorService executor = Executors.newFixedThreadPool(8);
+        try {
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < 8; i++)
+                keys.add("doc7");
+            List<Future<List<Record>>> results = getConcurrently(executor, chain, keys);
+            awaitCoalesced(chain, 7);
+            slow.release.countDown();
+
+            List<Record> first = results.get(0).get();
+            for (Future<List<Record>> f : results) {
+                assertEquals(1, f.get().size());
+                assertEquals("doc7", f.get().get(0).get("id1"));
+                if (f != results.get(0))
+                    assertNotSame(first, f.get());
+            }
+            assertEquals(1, slow.chain.getCalls.get());
+            assertEquals(8, chain.getRequests());
+
+            // a key that is no longer in flight is fetched again
+            chain.get("doc7");
+            assertEquals(2, slow.chain.getCalls.get());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void failureTest() throws Exception {
+        SlowBlockChain slow = new SlowBlockChain();
+        slow.failing = true;
+        CoalescingBlockChain chain = new CoalescingBlockChain(slow);
+        ExecutorService executor = Executors.newFixedThreadPool(4);
+        try {
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < 4; i++)
+                keys.add("doc1");
+            List<Future<List<Record>>> results = getConcurrently(executor, chain, keys);
+            awaitCoalesced(chain, 3);
+            slow.release.countDown();
+
+            for (Future<List<Record>> f : results) {
+                try {
+                    f.get();
+                    fail("every caller should see the failure");
+                } catch (ExecutionException e) {
+                    assertTrue(e.getCause() instanceof IllegalStateException);
+                }
+            }
+            slow.failing = false;
+            assertEquals(1, chain.get("doc1").size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void batchTest() throws Exception {
+        SlowBlockChain slow = new SlowBlockChain();
+        slow.release.countDown();
+        CoalescingBlockChain chain = new CoalescingBlockChain(slow).setBatchWindow(200, TimeUnit.MILLISECONDS);
+        ExecutorService executor = Executors.newFixedThreadPool(5);
+        try {
+            List<String> keys = new ArrayList<>();
+            for (int i = 0; i < 5; i++)
+                keys.add("doc" + i);
+            List<Future<List<Record>>> results = getConcurrently(executor, chain, keys);
+            for (int i = 0; i < 5; i++)
+                assertEquals("doc" + i, results.get(i).get().get(0).get("id1"));
+            assertEquals(1, slow.getAllCalls.get());
+            assertEquals(1, chain.getBatches());
+            assertEquals(5, chain.getRequests());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void fullBatchTest() throws Exception {
+        SlowBlockChain slow = new SlowBlockChain();
+        slow.release.countDown();
+        CoalescingBlockChain chain = new CoalescingBlockChain(slow)
+                .setBatchWindow(1, TimeUnit.HOURS)
+                .setMaxBatchSize(2);
+        ExecutorService executor = Executors.newFixedThreadPool(2);
+        try {
+            List<String> keys = new ArrayList<>();
+            keys.add("doc1");
+            keys.add("doc2");
+            // a full batch does not wait for the window to end
+            for (Future<List<Record>> f : getConcurrently(executor, chain, keys))
+                assertEquals(1, f.get(10, TimeUnit.SECONDS).size());
+            assertEquals(1, chain.getBatches());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void batchWithoutMultiKeyTest() {
+        new CoalescingBlockChain(new InMemoryBlockChain()).setBatchWindow(10, TimeUnit.MILLISECONDS);
+    }
+}
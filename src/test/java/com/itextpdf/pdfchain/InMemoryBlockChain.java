@@ -0,0 +1,96 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.IColumnarBlockChain;
+import com.itextpdf.pdfchain.blockchain.IStreamBlockChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * IBlockChain that keeps all records in memory, for tests that do not need a blockchain node
+ */
+class InMemoryBlockChain implements IColumnarBlockChain, IStreamBlockChain {
+
+    private final List<String> keys = new ArrayList<>();
+    private final List<Record> records = new ArrayList<>();
+
+    // number of calls, so tests can check which access path was used
+    final AtomicInteger getCalls = new AtomicInteger();
+    final AtomicInteger allCalls = new AtomicInteger();
+
+    @Override
+    public synchronized boolean put(String key, Record data) {
+        keys.add(key);
+        records.add(data);
+        return true;
+    }
+
+    @Override
+    public synchronized List<Record> get(String key) {
+        getCalls.incrementAndGet();
+        List<Record> out = new ArrayList<>();
+        for (int i = 0; i < keys.size(); i++) {
+            if (keys.get(i).equals(key))
+                out.add(records.get(i));
+        }
+        return out;
+    }
+
+    @Override
+    public synchronized List<Record> all() {
+        allCalls.incrementAndGet();
+        return new ArrayList<>(records);
+    }
+
+    @Override
+    public synchronized int size() {
+        return records.size();
+    }
+
+    /**
+     * Every item is put in a block of its own
+     */
+    @Override
+    public synchronized long height() {
+        return records.size();
+    }
+
+    @Override
+    public synchronized List<Record> range(int start, int count) {
+        return new ArrayList<>(records.subList(start, Math.min(records.size(), start + count)));
+    }
+
+    @Override
+    public RecordBatch getBatch(String key) {
+        return RecordBatch.of(get(key));
+    }
+
+    @Override
+    public RecordBatch allBatch() {
+        return RecordBatch.of(all());
+    }
+
+    /**
+     * Build a chain of synthetic records
+     *
+     * @param size the number of records
+     * @return a chain holding size records, keyed by their id1
+     */
+    static InMemoryBlockChain synthetic(int size) {
+        InMemoryBlockChain chain = new InMemoryBlockChain();
+        for (int i = 0; i < size; i++) {
+            Record r = new Record();
+            r.put("id1", "doc" + (i % 1000));
+            r.put("id2", "rev" + i);
+            r.put("txid", "tx" + i);
+            r.put("confirmations", i % 60);
+            r.put("blocktime", 1499691151 + i / 10);
+            r.put("hsh", Integer.toHexString(i * 31));
+            chain.put(r.get("id1").toString(), r);
+        }
+        return chain;
+    }
+}
@@ -0,0 +1,97 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.index.IndexedBlockChain;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+
+public class IndexedBlockChainTest {
+
+    private static IndexedBlockChain indexed(InMemoryBlockChain chain) {
+        IndexedBlockChain indexed = new IndexedBlockChain(chain);
+        indexed.getIndexManager()
+                .createHashIndex("id2")
+                .createRangeIndex("confirmations")
+                .createRangeIndex("blocktime")
+                .createPrefixIndex("hsh");
+        indexed.refresh();
+        return indexed;
+    }
+
+    @Test
+    public void indexedMatchesScanTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(20000);
+        IndexedBlockChain indexed = indexed(chain);
+        String[] queries = {
+                "confirmations > 10 AND confirmations <= 50",
+                "blocktime >= 1499691200 AND blocktime < 1499691300",
+                "hsh STARTS_WITH 'ab' OR id2 == 'rev17'",
+                "hsh STARTS_WITH 'f' AND id1 != 'doc7'",
+                "id1 == 'doc3' AND confirmations < 5.5",
+                "id2 == 'rev18' OR id1 ENDS_WITH '99'",
+                "SELECT [id1, confirmations] (confirmations == 10)",
+                "*"
+        };
+        for (String q : queries) {
+            AbstractBQLOperator op = BQLCompiler.compile(q);
+            HashSet<Record> expected = new HashSet<>(new BQLExecutor(chain).execute(op));
+            int calls = chain.allCalls.get() + chain.getCalls.get();
+            assertEquals(q, expected, new HashSet<>(new BQLExecutor(indexed).execute(op)));
+            // the query is answered from the local copy
+            assertEquals(q, calls, chain.allCalls.get() + chain.getCalls.get());
+        }
+    }
+
+    @Test
+    public void refreshAddsNewItemsTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(100);
+        IndexedBlockChain indexed = indexed(chain);
+        Record r = new Record();
+        r.put("id1", "doc1");
+        r.put("txid", "new");
+        r.put("confirmations", 1000);
+        chain.put("doc1", r);
+
+        AbstractBQLOperator op = BQLCompiler.compile("confirmations > 500");
+        assertEquals(0, new BQLExecutor(indexed).execute(op).size());
+        assertEquals(1, indexed.refresh());
+        assertEquals(0, indexed.refresh());
+        assertEquals(1, new BQLExecutor(indexed).execute(op).size());
+        assertEquals(2, indexed.get("doc1").size());
+    }
+
+    @Test
+    public void refreshFetchesOnlyNewItemsTest() {
+        final List<Integer> starts = new ArrayList<>();
+        InMemoryBlockChain chain = new InMemoryBlockChain() {
+            @Override
+            public synchronized List<Record> range(int start, int count) {
+                starts.add(start);
+                // a node that returns at most 30 items per request
+                return super.range(start, Math.min(count, 30));
+            }
+        };
+        for (int i = 0; i < 100; i++)
+            chain.put("doc" + i, new Record());
+        IndexedBlockChain indexed = new IndexedBlockChain(chain);
+        assertEquals(100, indexed.refresh());
+        assertEquals(Arrays.asList(0, 30, 60, 90), starts);
+
+        chain.put("doc1", new Record());
+        starts.clear();
+        assertEquals(1, indexed.refresh());
+        assertEquals(Collections.singletonList(100), starts);
+        assertEquals(0, chain.allCalls.get());
+        assertEquals(101, indexed.all().size());
+    }
+}
@@ -0,0 +1,95 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.ui.model.IRecordCursor;
+import com.itextpdf.pdfchain.ui.model.JBlockchainTableModel;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class JBlockchainTableModelTest {
+
+    private static Record record(int i) {
+        Record r = new Record();
+        r.put("id1", "doc" + i);
+        r.put("confirmations", i % 60);
+        return r;
+    }
+
+    /**
+     * Cursor over generated records, counting the records it hands out
+     */
+    private static class CountingCursor implements IRecordCursor {
+
+        private final int size;
+        final AtomicInteger fetched = new AtomicInteger();
+
+        CountingCursor(int size) {
+            this.size = size;
+        }
+
+        @Override
+        public int size() {
+            return size;
+        }
+
+        @Override
+        public List<Record> fetch(int start, int count) {
+            List<Record> out = new ArrayList<>();
+            for (int i = start; i < Math.min(size, start + count); i++)
+                out.add(record(i));
+            fetched.addAndGet(out.size());
+            return out;
+        }
+    }
+
+    @Test
+    public void pagesAreReadOnDemandTest() {
+        CountingCursor cursor = new CountingCursor(1000000);
+        JBlockchainTableModel model = new JBlockchainTableModel().setCursor(cursor);
+        assertEquals(1000000, model.getRowCount());
+        assertEquals(Arrays.asList("confirmations", "id1"), Arrays.asList(model.getColumnName(0), model.getColumnName(1)));
+        assertEquals("doc999999", model.getValueAt(999999, 1));
+        assertEquals("39", model.getValueAt(999999, 0));
+        // the first page, and the page of the last row
+        assertTrue(cursor.fetched.get() < 1000);
+
+        // scrolling through every row keeps a bounded number of pages
+        for (int row = 0; row < 1000000; row += 100)
+            model.getValueAt(row, 1);
+        int fetched = cursor.fetched.get();
+        model.getValueAt(999900, 1);
+        assertEquals(fetched, cursor.fetched.get());
+        model.getValueAt(0, 1);
+        assertTrue(cursor.fetched.get() > fetched);
+    }
+
+    @Test
+    public void columnsGrowTest() {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++)
+            records.add(record(i));
+        records.get(999).put("hsh", "ab");
+        JBlockchainTableModel model = new JBlockchainTableModel().setData(records);
+        assertEquals(2, model.getColumnCount());
+        // reading the last page discovers the new field
+        assertEquals("39", model.getValueAt(999, 0));
+        assertEquals(3, model.getColumnCount());
+        assertEquals("hsh", model.getColumnName(2));
+        assertEquals("ab", model.getValueAt(999, 2));
+        assertEquals("", model.getValueAt(0, 2));
+
+        // the list that was shown is not modified
+        model.addData(Collections.singletonList(record(1000)));
+        assertEquals(1001, model.getRowCount());
+        assertEquals(1000, records.size());
+        assertEquals("doc1000", model.getValueAt(1000, 1));
+    }
+}
@@ -0,0 +1,168 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.MultiChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.RecordSchema;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+/**
+ * Tests the records MultiChain returns, which decode their fields lazily
+ */
+public class LazyRecordTest {
+
+    private static JSONObject item(String payload) {
+        JSONObject item = new JSONObject();
+        item.put("txid", "tx1");
+        item.put("confirmations", 12);
+        item.put("blocktime", 1499691151);
+        item.put("publishers", Arrays.asList("p1"));
+        item.put("data", new String(Hex.encodeHex(payload.getBytes())));
+        return item;
+    }
+
+    /**
+     * Read the given item through MultiChain, from a node that answers every request with it
+     */
+    private static Record read(final JSONObject item) throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                JSONObject request = new JSONObject(IOUtils.toString(exchange.getRequestBody(), "UTF-8"));
+                JSONObject response = new JSONObject();
+                response.put("id", request.getString("id"));
+                response.put("result", new JSONArray().put(item));
+                response.put("error", JSONObject.NULL);
+                byte[] body = response.toString().getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        try {
+            MultiChain mc = new MultiChain("http://127.0.0.1", server.getAddress().getPort(), "chain1", "stream1", "user", "password");
+            List<Record> records = mc.all();
+            assertEquals(1, records.size());
+            return records.get(0);
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    private static Record eager() {
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("id1", "doc1");
+        expected.put("hsh", "ab");
+        expected.put("txid", "tx1");
+        expected.put("confirmations", 12);
+        expected.put("blocktime", 1499691151);
+        expected.put("publishers", Arrays.<Object>asList("p1"));
+        expected.put("meta", new HashMap<>(Collections.singletonMap("size", 3)));
+        return new Record(expected);
+    }
+
+    @Test
+    public void matchesEagerDecodingTest() throws IOException {
+        Record r = read(item("{\"id1\":\"doc1\",\"hsh\":\"ab\",\"confirmations\":0,\"meta\":{\"size\":3}}"));
+        // item fields take precedence over payload fields
+        assertEquals(12, r.get(RecordSchema.CONFIRMATIONS));
+        assertEquals("doc1", r.get("id1"));
+        assertTrue(r.has(RecordSchema.HSH));
+        assertFalse(r.containsKey("data"));
+        assertNull(r.get("missing"));
+        assertEquals(eager(), r);
+        assertEquals(7, r.size());
+    }
+
+    @Test
+    public void modificationTest() throws IOException {
+        Record r = read(item("{\"id1\":\"doc1\",\"hsh\":\"ab\",\"meta\":{\"size\":3}}"));
+        assertEquals("tx1", r.get("txid"));
+        r.put("id2", "rev1");
+        r.remove("hsh");
+        Record expected = eager();
+        expected.put("id2", "rev1");
+        expected.remove("hsh");
+        assertEquals(expected, r);
+    }
+
+    @Test
+    public void invalidPayloadTest() throws IOException {
+        Record r = read(item("not json"));
+        assertEquals(12, r.get("confirmations"));
+        assertNull(r.get("id1"));
+        assertEquals(4, r.size());
+    }
+
+    @Test
+    public void concurrentReadTest() throws Exception {
+        final Record r = read(item("{\"id1\":\"doc1\",\"hsh\":\"ab\",\"meta\":{\"size\":3}}"));
+        final Record expected = eager();
+        final AtomicInteger mismatches = new AtomicInteger();
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 8; t++) {
+            final int thread = t;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 1000; i++) {
+                        // one thread converts the record while the others read it
+                        if (thread == 0 && i == 500)
+                            r.size();
+                        for (String key : expected.keySet()) {
+                            if (!expected.get(key).equals(r.get(key)))
+                                mismatches.incrementAndGet();
+                        }
+                    }
+                }
+            }));
+        }
+        for (Thread t : threads)
+            t.start();
+        for (Thread t : threads)
+            t.join();
+        assertEquals(0, mismatches.get());
+        assertEquals(expected, r);
+    }
+
+    @Test
+    public void serializationTest() throws Exception {
+        Record r = read(item("{\"id1\":\"doc1\",\"hsh\":\"ab\",\"meta\":{\"size\":3}}"));
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(r);
+        out.close();
+        Object copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals(Record.class, copy.getClass());
+        assertEquals(eager(), copy);
+    }
+}
@@ -0,0 +1,217 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.anchor.FileProofStore;
+import com.itextpdf.pdfchain.anchor.InMemoryProofStore;
+import com.itextpdf.pdfchain.anchor.InclusionProof;
+import com.itextpdf.pdfchain.anchor.MerkleAnchor;
+import com.itextpdf.pdfchain.anchor.MerkleTree;
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.pdfchain.PdfChain;
+import com.itextpdf.pdfchain.sign.NoOpSignature;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+import static org.junit.Assert.fail;
+
+public class MerkleAnchorTest {
+
+    private static Record document(int i) {
+        Record r = new Record();
+        r.put("id1", "doc" + i);
+        r.put("id2", "rev" + i);
+        r.put("hsh", Integer.toHexString(i * 31));
+        r.put("pages", i);
+        r.put("size", i * 1.5);
+        return r;
+    }
+
+    @Test
+    public void leafTypesTest() {
+        Record number = new Record();
+        number.put("pages", 1);
+        Record string = new Record();
+        string.put("pages", "1");
+        assertFalse(Arrays.equals(MerkleAnchor.leafOf(number), MerkleAnchor.leafOf(string)));
+
+        // the type a number was read back as does not matter
+        Record asLong = new Record();
+        asLong.put("pages", 1L);
+        Record asDouble = new Record();
+        asDouble.put("pages", 1.0);
+        assertArrayEquals(MerkleAnchor.leafOf(number), MerkleAnchor.leafOf(asLong));
+        assertArrayEquals(MerkleAnchor.leafOf(number), MerkleAnchor.leafOf(asDouble));
+    }
+
+    @Test
+    public void merkleTreeTest() {
+        for (int size = 1; size <= 33; size++) {
+            List<byte[]> leaves = new ArrayList<>();
+            for (int i = 0; i < size; i++)
+                leaves.add(("leaf" + i).getBytes(StandardCharsets.UTF_8));
+            MerkleTree tree = new MerkleTree(leaves);
+            for (int i = 0; i < size; i++) {
+                List<byte[]> path = tree.getPath(i);
+                assertArrayEquals(tree.getRoot(), MerkleTree.computeRoot(leaves.get(i), i, size, path));
+                // the proof of a leaf does not hold for another leaf or position
+                assertFalse(MerkleTree.verify("other".getBytes(StandardCharsets.UTF_8), i, size, path, tree.getRoot()));
+                if (size > 1)
+                    assertFalse(MerkleTree.verify(leaves.get(i), (i + 1) % size, size, path, tree.getRoot()));
+            }
+        }
+    }
+
+    @Test
+    public void anchorTest() {
+        InMemoryBlockChain chain = new InMemoryBlockChain();
+        MerkleAnchor anchor = new MerkleAnchor(chain, new InMemoryProofStore()).setMaxBatchSize(40);
+        for (int i = 0; i < 100; i++)
+            anchor.add("doc" + i, document(i));
+
+        // two full batches were anchored, the rest waits for a flush
+        assertEquals(2, chain.size());
+        assertEquals(20, anchor.getPending());
+        String root = anchor.flush();
+        assertEquals(3, chain.size());
+        assertEquals(0, anchor.getPending());
+        assertNull(anchor.flush());
+        assertEquals(root, chain.get(root).get(0).get("merkleroot"));
+
+        PdfChain pdfChain = new PdfChain(anchor, new NoOpSignature());
+        for (int i = 0; i < 100; i++) {
+            List<InclusionProof> proofs = pdfChain.getProofs("doc" + i);
+            assertEquals(1, proofs.size());
+            assertTrue(proofs.get(0).isValid());
+            assertTrue(pdfChain.isAnchored(document(i), proofs.get(0)));
+        }
+
+        // a modified record, or a root that was never anchored, is not accepted
+        InclusionProof proof = pdfChain.getProofs("doc7").get(0);
+        Record modified = document(7);
+        modified.put("hsh", "0");
+        assertFalse(pdfChain.isAnchored(modified, proof));
+        InMemoryBlockChain otherChain = new InMemoryBlockChain();
+        PdfChain otherPdfChain = new PdfChain(new MerkleAnchor(otherChain, new InMemoryProofStore()), new NoOpSignature());
+        assertFalse(otherPdfChain.isAnchored(document(7), proof));
+    }
+
+    @Test
+    public void failedPublishTest() {
+        InMemoryBlockChain chain = new InMemoryBlockChain() {
+            @Override
+            public synchronized boolean put(String key, Record data) {
+                return false;
+            }
+        };
+        MerkleAnchor anchor = new MerkleAnchor(chain, new InMemoryProofStore());
+        anchor.add("doc1", document(1));
+        try {
+            anchor.flush();
+            fail("a batch that could not be published should not be reported as anchored");
+        } catch (IllegalStateException e) {
+            // expected
+        }
+        assertEquals(1, anchor.getPending());
+        assertTrue(anchor.getProofStore().get("doc1").isEmpty());
+    }
+
+    @Test
+    public void maxDelayTest() throws InterruptedException {
+        InMemoryBlockChain chain = new InMemoryBlockChain();
+        MerkleAnchor anchor = new MerkleAnchor(chain, new InMemoryProofStore()).setMaxDelay(50, TimeUnit.MILLISECONDS);
+        anchor.add("doc1", document(1));
+        anchor.add("doc2", document(2));
+        long deadline = System.currentTimeMillis() + 10000;
+        while (anchor.getBatches() == 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+        assertEquals(1, anchor.getBatches());
+        assertEquals(1, chain.size());
+        anchor.close();
+    }
+
+    @Test
+    public void fileProofStoreTest() throws IOException {
+        File file = File.createTempFile("proofs", ".jsonl");
+        file.deleteOnExit();
+        try {
+            InMemoryBlockChain chain = new InMemoryBlockChain();
+            MerkleAnchor anchor = new MerkleAnchor(chain, new FileProofStore(file));
+            for (int i = 0; i < 10; i++)
+                anchor.add("doc" + i, document(i));
+            anchor.close();
+
+            Record withNull = document(10);
+            withNull.put("hsh", null);
+            anchor = new MerkleAnchor(chain, new FileProofStore(file));
+            anchor.add("doc10", withNull);
+            anchor.close();
+
+            // proofs survive reopening the store
+            MerkleAnchor reopened = new MerkleAnchor(chain, new FileProofStore(file));
+            PdfChain pdfChain = new PdfChain(reopened, new NoOpSignature());
+            for (int i = 0; i < 10; i++) {
+                InclusionProof proof = pdfChain.getProofs("doc" + i).get(0);
+                assertEquals(10, proof.getSize());
+                assertTrue(pdfChain.isAnchored(document(i), proof));
+            }
+            InclusionProof proof = pdfChain.getProofs("doc10").get(0);
+            assertTrue(proof.getRecord().containsKey("hsh"));
+            assertNull(proof.getRecord().get("hsh"));
+            assertTrue(proof.isValid());
+            assertTrue(pdfChain.isAnchored(withNull, proof));
+        } finally {
+            file.delete();
+        }
+    }
+
+    @Test
+    public void tornProofStoreTest() throws IOException {
+        File file = File.createTempFile("proofs", ".jsonl");
+        file.deleteOnExit();
+        try {
+            InMemoryBlockChain chain = new InMemoryBlockChain();
+            MerkleAnchor anchor = new MerkleAnchor(chain, new FileProofStore(file));
+            for (int i = 0; i < 10; i++)
+                anchor.add("doc" + i, document(i));
+            anchor.close();
+            long length = file.length();
+            List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+
+            // a line cut short by a crash is dropped
+            Files.write(file.toPath(), lines.get(0).substring(0, 20).getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            FileProofStore store = new FileProofStore(file);
+            assertEquals(length, file.length());
+            for (int i = 0; i < 10; i++)
+                assertEquals(1, store.get("doc" + i).size());
+
+            // so is a complete last line that is malformed
+            Files.write(file.toPath(), "{\"index\":\n".getBytes(StandardCharsets.UTF_8), StandardOpenOption.APPEND);
+            new FileProofStore(file);
+            assertEquals(length, file.length());
+
+            // a malformed line before the last one is corruption
+            lines.add(1, "{\"index\":");
+            Files.write(file.toPath(), lines, StandardCharsets.UTF_8);
+            try {
+                new FileProofStore(file);
+                fail();
+            } catch (IOException expected) {
+            }
+        } finally {
+            file.delete();
+        }
+    }
+}
@@ -0,0 +1,122 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.MultiChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.metrics.Histogram;
+import com.itextpdf.pdfchain.metrics.MetricsRegistry;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.Locale;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class MetricsTest {
+
+    private static final int MESSAGE_LENGTH = 200;
+    private static final String MESSAGE = new String(new char[MESSAGE_LENGTH]).replace('\0', '\u00e9');
+
+    @Test
+    public void histogramTest() {
+        Histogram h = new Histogram();
+        for (int i = 1; i <= 1000; i++)
+            h.record(i);
+        assertEquals(1000, h.getCount());
+        assertEquals(1, h.getMin());
+        assertEquals(1000, h.getMax());
+        assertEquals(500.5, h.getMean(), 0.001);
+        // buckets are within 12.5% of the value
+        assertTrue(Math.abs(h.getPercentile(50) - 500) <= 500 / 8);
+        assertTrue(Math.abs(h.getPercentile(99) - 990) <= 990 / 8);
+        assertEquals(1000, h.getPercentile(100));
+        assertEquals(0, new Histogram().getPercentile(50));
+    }
+
+    /**
+     * Answers liststreams and getblockcount, and rejects everything else with an RPC error
+     */
+    private static HttpServer node() throws IOException {
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                JSONObject request = new JSONObject(IOUtils.toString(exchange.getRequestBody(), "UTF-8"));
+                JSONObject response = new JSONObject();
+                response.put("id", request.getString("id"));
+                String method = request.getString("method");
+                if (method.equals("liststreams")) {
+                    response.put("result", new JSONArray().put(new JSONObject().put("items", 3)));
+                    response.put("error", JSONObject.NULL);
+                } else if (method.equals("getblockcount")) {
+                    response.put("result", 42);
+                    response.put("error", JSONObject.NULL);
+                } else {
+                    response.put("result", JSONObject.NULL);
+                    response.put("error", new JSONObject().put("message", MESSAGE));
+                }
+                byte[] body = response.toString().getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        return server;
+    }
+
+    @Test
+    public void multiChainMetricsTest() throws IOException {
+        HttpServer server = node();
+        try {
+            MetricsRegistry metrics = new MetricsRegistry();
+            MultiChain mc = new MultiChain("http://127.0.0.1", server.getAddress().getPort(), "chain1", "stream1", "user", "password");
+            mc.setMetricsRegistry(metrics).setMaxConnections(2);
+
+            for (int i = 0; i < 5; i++)
+                assertEquals(3, mc.size());
+            assertEquals(42, mc.height());
+            assertFalse(mc.put("key", new Record()));
+
+            Histogram latency = metrics.getHistograms().get("multichain.rpc.liststreams.latency_us");
+            assertEquals(5, latency.getCount());
+            assertTrue(latency.getMax() > 0);
+            assertEquals(1, metrics.getHistograms().get("multichain.rpc.getblockcount.response_bytes").getCount());
+            // the error message takes two bytes per character
+            assertTrue(metrics.getHistograms().get("multichain.rpc.publish.response_bytes").getMin() >= 2 * MESSAGE_LENGTH);
+            assertTrue(metrics.getHistograms().get("multichain.rpc.publish.request_bytes").getMin() > 0);
+            assertEquals(1, metrics.getCounters().get("multichain.rpc.publish.errors.rpc").getCount());
+            assertFalse(metrics.getCounters().containsKey("multichain.rpc.liststreams.errors.rpc"));
+            assertEquals(0L, (long) metrics.getGauges().get("multichain.rpc.inflight"));
+            assertEquals(2L, (long) metrics.getGauges().get("multichain.pool.max"));
+            // the connection is reused
+            assertEquals(1L, (long) metrics.getGauges().get("multichain.pool.connections"));
+        } finally {
+            server.stop(0);
+        }
+    }
+
+    @Test
+    public void toStringIgnoresLocaleTest() {
+        MetricsRegistry registry = new MetricsRegistry();
+        registry.histogram("latency").record(1);
+        registry.histogram("latency").record(2);
+        Locale locale = Locale.getDefault();
+        try {
+            Locale.setDefault(Locale.GERMANY);
+            assertTrue(registry.toString().contains(" mean=1.5 "));
+        } finally {
+            Locale.setDefault(locale);
+        }
+    }
+}
@@ -0,0 +1,124 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.offheap.OffHeapRecordStore;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.math.BigDecimal;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class OffHeapRecordStoreTest {
+
+    @Test
+    public void roundTripTest() {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("name", "wallet");
+        nested.put("balance", new BigDecimal("12.50"));
+        Record r = new Record();
+        r.put("id1", "doc1");
+        r.put("confirmations", 12);
+        r.put("blocktime", 1499691151L);
+        r.put("ratio", 0.5);
+        r.put("valid", true);
+        r.put("empty", null);
+        r.put("publishers", Arrays.<Object>asList("a", "b", 3));
+        r.put("owner", nested);
+
+        OffHeapRecordStore store = new OffHeapRecordStore(64);
+        store.put("doc1", r);
+        Record copy = store.get("doc1").get(0);
+        assertEquals(r, copy);
+        assertEquals(Integer.class, copy.get("confirmations").getClass());
+        assertEquals(Long.class, copy.get("blocktime").getClass());
+        assertTrue(copy.containsKey("empty"));
+        assertFalse(copy.containsKey("missing"));
+        assertNull(copy.get("missing"));
+
+        // modifying a record does not modify the store
+        copy.put("confirmations", 13);
+        copy.remove("owner");
+        assertEquals(13, copy.get("confirmations"));
+        assertEquals(7, copy.size());
+        assertEquals(r, store.all().get(0));
+    }
+
+    @Test
+    public void serializationTest() throws Exception {
+        Map<String, Object> nested = new HashMap<>();
+        nested.put("name", "wallet");
+        Record r = new Record();
+        r.put("id1", "doc1");
+        r.put("confirmations", 12);
+        r.put("empty", null);
+        r.put("publishers", Arrays.<Object>asList("a", "b"));
+        r.put("owner", nested);
+
+        OffHeapRecordStore store = new OffHeapRecordStore(64);
+        store.put("doc1", r);
+        Record stored = store.get("doc1").get(0);
+        assertNull(stored.get(null));
+        assertFalse(stored.containsKey(null));
+
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream out = new ObjectOutputStream(bytes);
+        out.writeObject(stored);
+        out.close();
+        Object copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals(Record.class, copy.getClass());
+        assertEquals(r, copy);
+    }
+
+    @Test
+    public void executorMatchesInMemoryTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(20000);
+        // small chunks, so records are spread over many buffers
+        OffHeapRecordStore store = new OffHeapRecordStore(4096);
+        assertEquals(20000, store.load(chain));
+        assertEquals(20000, store.size());
+        assertEquals(chain.get("doc7"), store.get("doc7"));
+
+        String[] queries = {
+                "confirmations > 10 AND confirmations <= 50",
+                "hsh STARTS_WITH 'ab' OR id2 == 'rev17'",
+                "SELECT [id1, confirmations] (confirmations == 10)",
+                "(id1 == 'doc3') SORT [blocktime DESC, id2]",
+                "*"
+        };
+        for (String q : queries) {
+            AbstractBQLOperator op = BQLCompiler.compile(q);
+            List<Record> expected = new ArrayList<>(new BQLExecutor(chain).execute(op));
+            List<Record> actual = new ArrayList<>(new BQLExecutor(store).execute(op));
+            if (q.contains("SORT"))
+                assertEquals(q, expected, actual);
+            else
+                assertEquals(q, new HashSet<>(expected), new HashSet<>(actual));
+        }
+    }
+
+    @Test
+    public void rangeTest() {
+        OffHeapRecordStore store = new OffHeapRecordStore();
+        store.load(InMemoryBlockChain.synthetic(100));
+        List<Record> range = store.range(95, 10);
+        assertEquals(5, range.size());
+        assertEquals("rev95", range.get(0).get("id2"));
+        assertEquals(0, store.range(200, 10).size());
+    }
+}
@@ -0,0 +1,197 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.outbox.OutboxBlockChain;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OutboxBlockChainTest {
+
+    private File file;
+
+    /**
+     * Refuses every put while it is down, and throws on the given number of puts after that
+     */
+    private static class UnreliableBlockChain extends InMemoryBlockChain {
+
+        private volatile boolean down = false;
+        private final AtomicInteger failures = new AtomicInteger();
+
+        @Override
+        public synchronized boolean put(String key, Record data) {
+            if (down)
+                return false;
+            if (failures.getAndDecrement() > 0)
+                throw new IllegalStateException("node unavailable");
+            return super.put(key, data);
+        }
+    }
+
+    private static Record record(int i) {
+        Record r = new Record();
+        r.put("id1", "doc" + i);
+        r.put("hsh", "line\nbreak " + i);
+        return r;
+    }
+
+    @Before
+    public void createFile() throws IOException {
+        file = File.createTempFile("outbox", ".log");
+        file.delete();
+    }
+
+    @After
+    public void deleteFile() {
+        file.delete();
+        new File(file.getPath() + ".offset").delete();
+    }
+
+    @Test
+    public void publishTest() throws Exception {
+        InMemoryBlockChain chain = new InMemoryBlockChain();
+        final OutboxBlockChain outbox = new OutboxBlockChain(chain, file);
+        List<Thread> threads = new ArrayList<>();
+        for (int t = 0; t < 4; t++) {
+            final int thread = t;
+            threads.add(new Thread(new Runnable() {
+                @Override
+                public void run() {
+                    for (int i = 0; i < 50; i++)
+                        assertTrue(outbox.put("doc" + thread, record(thread * 1000 + i)));
+                }
+            }));
+        }
+        for (Thread t : threads)
+            t.start();
+        for (Thread t : threads)
+            t.join();
+
+        assertTrue(outbox.awaitDrained(10, TimeUnit.SECONDS));
+        assertEquals(200, chain.size());
+        assertEquals(200, outbox.getPublished());
+        assertEquals("line\nbreak 7", chain.get("doc0").get(7).get("hsh"));
+        outbox.close();
+    }
+
+    @Test
+    public void retryTest() throws Exception {
+        UnreliableBlockChain chain = new UnreliableBlockChain();
+        chain.failures.set(3);
+        OutboxBlockChain outbox = new OutboxBlockChain(chain, file).setRetryBackoff(1, 10, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 10; i++)
+            assertTrue(outbox.put("doc", record(i)));
+        assertTrue(outbox.awaitDrained(10, TimeUnit.SECONDS));
+        assertEquals(3, outbox.getRetries());
+
+        // records are published in the order they were put
+        List<Record> published = chain.get("doc");
+        assertEquals(10, published.size());
+        for (int i = 0; i < 10; i++)
+            assertEquals("doc" + i, published.get(i).get("id1"));
+        outbox.close();
+    }
+
+    @Test
+    public void restartTest() throws Exception {
+        UnreliableBlockChain down = new UnreliableBlockChain();
+        down.down = true;
+        OutboxBlockChain outbox = new OutboxBlockChain(down, file).setRetryBackoff(1, 10, TimeUnit.MILLISECONDS);
+        for (int i = 0; i < 10; i++)
+            assertTrue(outbox.put("doc", record(i)));
+        assertEquals(10, outbox.getPending());
+        outbox.close();
+        assertEquals(0, down.size());
+
+        // records that were not published survive a restart
+        InMemoryBlockChain chain = new InMemoryBlockChain();
+        OutboxBlockChain reopened = new OutboxBlockChain(chain, file);
+        assertTrue(reopened.awaitDrained(10, TimeUnit.SECONDS));
+        assertEquals(10, chain.size());
+
+        // the log is emptied once everything in it was published
+        long deadline = System.currentTimeMillis() + 10000;
+        while (file.length() > 0 && System.currentTimeMillis() < deadline)
+            Thread.sleep(5);
+        assertEquals(0, file.length());
+        assertTrue(reopened.put("doc", record(10)));
+        assertTrue(reopened.awaitDrained(10, TimeUnit.SECONDS));
+        assertEquals(11, chain.size());
+        reopened.close();
+
+        // nothing is published twice
+        InMemoryBlockChain again = new InMemoryBlockChain();
+        OutboxBlockChain third = new OutboxBlockChain(again, file);
+        assertEquals(0, third.getPending());
+        third.close();
+        assertEquals(0, again.size());
+    }
+
+    @Test
+    public void partialRecordTest() throws Exception {
+        UnreliableBlockChain down = new UnreliableBlockChain();
+        down.down = true;
+        OutboxBlockChain outbox = new OutboxBlockChain(down, file);
+        outbox.put("doc", record(1));
+        outbox.close();
+
+        // a crash in the middle of a write leaves half a record at the end of the log
+        FileOutputStream out = new FileOutputStream(file, true);
+        out.write("{\"key\":\"doc\",\"da".getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        // the node is down, so the record is still pending when it is checked
+        OutboxBlockChain reopened = new OutboxBlockChain(down, file).setRetryBackoff(1, 10, TimeUnit.MILLISECONDS);
+        assertEquals(1, reopened.getPending());
+        down.down = false;
+        assertTrue(reopened.awaitDrained(10, TimeUnit.SECONDS));
+        assertEquals(1, down.size());
+        reopened.close();
+    }
+
+    @Test
+    public void malformedRecordTest() throws Exception {
+        UnreliableBlockChain down = new UnreliableBlockChain();
+        down.down = true;
+        OutboxBlockChain outbox = new OutboxBlockChain(down, file);
+        outbox.put("doc", record(1));
+        outbox.close();
+
+        // a complete line that is not a record
+        FileOutputStream out = new FileOutputStream(file, true);
+        out.write("{\"key\":\"doc\",\"da\n".getBytes(StandardCharsets.UTF_8));
+        out.close();
+
+        OutboxBlockChain reopened = new OutboxBlockChain(down, file).setRetryBackoff(1, 10, TimeUnit.MILLISECONDS);
+        assertTrue(reopened.put("doc", record(2)));
+        assertEquals(3, reopened.getPending());
+        down.down = false;
+
+        // the malformed record is skipped, the record after it is published
+        assertTrue(reopened.awaitDrained(10, TimeUnit.SECONDS));
+        assertEquals(1, reopened.getSkipped());
+        List<Record> published = down.get("doc");
+        assertEquals(2, published.size());
+        assertEquals("doc2", published.get(1).get("id1"));
+        reopened.close();
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void putAfterCloseTest() throws Exception {
+        OutboxBlockChain outbox = new OutboxBlockChain(new InMemoryBlockChain(), file);
+        outbox.close();
+        outbox.put("doc", record(1));
+    }
+}
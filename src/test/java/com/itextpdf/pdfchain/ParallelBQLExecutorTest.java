@@ -0,0 +1,71 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Collection;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+
+public class ParallelBQLExecutorTest {
+
+    private static final InMemoryBlockChain chain = InMemoryBlockChain.synthetic(100000);
+
+    @Test
+    public void parallelFilterTest() {
+        assertSameRecords("(confirmations > 10 AND confirmations < 50) OR hsh STARTS_WITH 'ff'");
+    }
+
+    @Test
+    public void parallelSelectTest() {
+        assertSameRecords("SELECT [id1, confirmations] (confirmations >= 30)");
+    }
+
+    @Test
+    public void parallelSortTest() {
+        AbstractBQLOperator op = BQLCompiler.compile("(confirmations > 10 AND confirmations < 50) SORT blocktime");
+        List<Record> sequential = new ArrayList<>(new BQLExecutor(chain).execute(op));
+        List<Record> parallel = new ArrayList<>(new BQLExecutor(chain).setParallelism(4).execute(op));
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void parallelCompiledSortTest() {
+        AbstractBQLOperator op = BQLCompiler.compile("(confirmations < 5 OR confirmations > 55) SORT confirmations");
+        List<Record> sequential = new ArrayList<>(new BQLExecutor(chain).execute(op));
+        List<Record> parallel = new ArrayList<>(new BQLExecutor(chain).setParallelism(4).setCompileFilters(true).execute(op));
+        assertEquals(sequential, parallel);
+    }
+
+    @Test
+    public void changeParallelismTest() {
+        AbstractBQLOperator op = BQLCompiler.compile("(confirmations > 10 AND confirmations < 50) SORT blocktime");
+        List<Record> sequential = new ArrayList<>(new BQLExecutor(chain).execute(op));
+        BQLExecutor executor = new BQLExecutor(chain).setParallelism(4);
+        executor.execute(op);
+        // the previous pool is shut down, the new one is used
+        assertEquals(sequential, new ArrayList<>(executor.setParallelism(2).execute(op)));
+        assertEquals(sequential, new ArrayList<>(executor.setParallelism(1).execute(op)));
+    }
+
+    private static void assertSameRecords(String query) {
+        AbstractBQLOperator op = BQLCompiler.compile(query);
+        Collection<Record> sequential = new BQLExecutor(chain).execute(op);
+        Collection<Record> parallel = new BQLExecutor(chain).setParallelism(4).execute(op);
+        assertEquals(count(sequential), count(parallel));
+    }
+
+    private static Map<Record, Integer> count(Collection<Record> records) {
+        Map<Record, Integer> out = new HashMap<>();
+        for (Record r : records)
+            out.put(r, out.containsKey(r) ? out.get(r) + 1 : 1);
+        return out;
+    }
+}
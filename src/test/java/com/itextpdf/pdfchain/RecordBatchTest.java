@@ -0,0 +1,130 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.MultiChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.batch.DictionaryColumn;
+import com.itextpdf.pdfchain.blockchain.batch.NumberColumn;
+import com.itextpdf.pdfchain.blockchain.batch.ObjectColumn;
+import com.itextpdf.pdfchain.blockchain.batch.RecordBatch;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import com.itextpdf.pdfchain.bql.relational.Equal;
+import com.sun.net.httpserver.HttpExchange;
+import com.sun.net.httpserver.HttpHandler;
+import com.sun.net.httpserver.HttpServer;
+import org.apache.commons.codec.binary.Hex;
+import org.apache.commons.io.IOUtils;
+import org.json.JSONArray;
+import org.json.JSONObject;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RecordBatchTest {
+
+    @Test
+    public void columnTypesTest() {
+        List<Record> records = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            Record r = new Record();
+            r.put("confirmations", i);
+            r.put("hsh", "h" + (i % 4));
+            r.put("mixed", i == 50 ? "fifty" : (Object) i);
+            if (i % 2 == 0)
+                r.put("publishers", Arrays.asList("a", "b"));
+            records.add(r);
+        }
+        RecordBatch batch = RecordBatch.of(records);
+        assertEquals(100, batch.size());
+        assertTrue(batch.getColumn("confirmations") instanceof NumberColumn);
+        assertTrue(batch.getColumn("hsh") instanceof DictionaryColumn);
+        assertEquals(4, ((DictionaryColumn) batch.getColumn("hsh")).getDictionary().length);
+        assertTrue(batch.getColumn("mixed") instanceof ObjectColumn);
+        assertTrue(batch.getColumn("publishers").isNull(1));
+        for (int i = 0; i < 100; i++)
+            assertEquals(records.get(i), batch.getRecord(i));
+    }
+
+    @Test
+    public void columnarScanMatchesRowScanTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(20000);
+        String[] queries = {
+                "confirmations > 10 AND confirmations <= 50",
+                "(confirmations < 5 OR hsh STARTS_WITH 'f') AND id1 != 'doc7'",
+                "id2 ENDS_WITH '99' OR confirmations >= 59",
+                "SELECT [id1, confirmations] (confirmations == 10)",
+                "(id1 == 'doc3' OR id1 == 'doc4') SORT blocktime",
+                "*"
+        };
+        for (String q : queries) {
+            AbstractBQLOperator op = BQLCompiler.compile(q);
+            List<Record> rows = new ArrayList<>(new BQLExecutor(chain).execute(op));
+            List<Record> columns = new ArrayList<>(new BQLExecutor(chain).setColumnarScans(true).execute(op));
+            if (q.contains("SORT"))
+                assertEquals(q, rows, columns);
+            else
+                assertEquals(q, new HashSet<>(rows), new HashSet<>(columns));
+        }
+    }
+
+    @Test
+    public void numberEqualityFollowsBoxedTypeTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(100);
+        assertEquals(2, new BQLExecutor(chain).setColumnarScans(true).execute(new Equal("confirmations", 10)).size());
+        assertEquals(0, new BQLExecutor(chain).setColumnarScans(true).execute(new Equal("confirmations", 10.0)).size());
+    }
+
+    private static JSONObject item(String txid, String payload) {
+        JSONObject item = new JSONObject();
+        item.put("txid", txid);
+        item.put("confirmations", 3);
+        item.put("data", new String(Hex.encodeHex(payload.getBytes())));
+        return item;
+    }
+
+    @Test
+    public void invalidPayloadMatchesRowsTest() throws IOException {
+        final JSONArray items = new JSONArray()
+                .put(item("tx1", "{\"id1\":\"doc1\"}"))
+                .put(item("tx2", "not json"));
+        HttpServer server = HttpServer.create(new InetSocketAddress("127.0.0.1", 0), 0);
+        server.createContext("/", new HttpHandler() {
+            @Override
+            public void handle(HttpExchange exchange) throws IOException {
+                JSONObject request = new JSONObject(IOUtils.toString(exchange.getRequestBody(), "UTF-8"));
+                JSONObject response = new JSONObject();
+                response.put("id", request.getString("id"));
+                response.put("result", items);
+                response.put("error", JSONObject.NULL);
+                byte[] body = response.toString().getBytes("UTF-8");
+                exchange.sendResponseHeaders(200, body.length);
+                OutputStream out = exchange.getResponseBody();
+                out.write(body);
+                out.close();
+            }
+        });
+        server.start();
+        try {
+            MultiChain mc = new MultiChain("http://127.0.0.1", server.getAddress().getPort(), "chain1", "stream1", "user", "password");
+            List<Record> rows = mc.all();
+            RecordBatch batch = mc.allBatch();
+            // an item that was not published by PdfChain keeps its metadata in both
+            assertEquals(2, batch.size());
+            for (int i = 0; i < rows.size(); i++)
+                assertEquals(rows.get(i), batch.getRecord(i));
+            assertEquals("tx2", batch.getRecord(1).get("txid"));
+        } finally {
+            server.stop(0);
+        }
+    }
+}
@@ -0,0 +1,70 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.RecordField;
+import com.itextpdf.pdfchain.blockchain.RecordSchema;
+import org.junit.Test;
+
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+public class RecordTest {
+
+    private static Map<String, Object> sample() {
+        Map<String, Object> m = new HashMap<>();
+        m.put("id1", "doc1");
+        m.put("hsh", "abcdef");
+        m.put("confirmations", 12);
+        m.put("blocktime", 1499691151L);
+        m.put("txid", null);
+        m.put("publishers", "somebody");
+        return m;
+    }
+
+    @Test
+    public void behavesLikeHashMapTest() {
+        Map<String, Object> expected = sample();
+        Record r = new Record(expected);
+        assertEquals(expected, r);
+        assertEquals(r, expected);
+        assertEquals(expected.hashCode(), r.hashCode());
+        assertEquals(6, r.size());
+        assertTrue(r.containsKey("txid"));
+        assertFalse(r.containsKey("shsh"));
+        assertNull(r.get("shsh"));
+        assertEquals("somebody", r.get("publishers"));
+    }
+
+    @Test
+    public void numbersKeepTheirTypeTest() {
+        Record r = new Record(sample());
+        assertEquals(Integer.valueOf(12), r.get("confirmations"));
+        assertEquals(Long.valueOf(1499691151L), r.get("blocktime"));
+        r.put("confirmations", 1.5);
+        assertEquals(1.5, r.get("confirmations"));
+        assertEquals(1.5, r.get(RecordSchema.CONFIRMATIONS));
+        assertEquals(Long.valueOf(1499691151L), RecordField.of("blocktime").get(r));
+    }
+
+    @Test
+    public void removeTest() {
+        Record r = new Record(sample());
+        assertEquals("doc1", r.remove("id1"));
+        assertFalse(r.containsKey("id1"));
+        Iterator<Map.Entry<String, Object>> it = r.entrySet().iterator();
+        while (it.hasNext()) {
+            String key = it.next().getKey();
+            if (key.equals("confirmations") || key.equals("publishers"))
+                it.remove();
+        }
+        assertEquals(3, r.size());
+        assertFalse(r.containsKey("confirmations"));
+        assertFalse(r.containsKey("publishers"));
+    }
+}
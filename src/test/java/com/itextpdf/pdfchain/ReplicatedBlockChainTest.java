@@ -0,0 +1,198 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.IBlockChain;
+import com.itextpdf.pdfchain.blockchain.MultiChain;
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.blockchain.replica.ReplicatedBlockChain;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.net.ServerSocket;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ReplicatedBlockChainTest {
+
+    /**
+     * A replica that can be made slow, held or unavailable
+     */
+    private static class StubNode implements IBlockChain {
+
+        private final InMemoryBlockChain chain;
+        private volatile long delayMillis = 0;
+        private volatile boolean down = false;
+        private volatile CountDownLatch hold;
+
+        final AtomicInteger reads = new AtomicInteger();
+        final AtomicInteger writes = new AtomicInteger();
+
+        StubNode(InMemoryBlockChain chain) {
+            this.chain = chain;
+        }
+
+        private void serve() {
+            reads.incrementAndGet();
+            try {
+                if (hold != null)
+                    hold.await();
+                Thread.sleep(delayMillis);
+            } catch (InterruptedException e) {
+                throw new IllegalStateException(e);
+            }
+            if (down)
+                throw new IllegalStateException("node is down");
+        }
+
+        @Override
+        public boolean put(String key, Record data) {
+            writes.incrementAndGet();
+            return chain.put(key, data);
+        }
+
+        @Override
+        public List<Record> get(String key) {
+            serve();
+            return chain.get(key);
+        }
+
+        @Override
+        public List<Record> all() {
+            serve();
+            return chain.all();
+        }
+    }
+
+    private static StubNode[] nodes(int count) {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(100);
+        StubNode[] out = new StubNode[count];
+        for (int i = 0; i < count; i++)
+            out[i] = new StubNode(chain);
+        return out;
+    }
+
+    @Test
+    public void leastOutstandingTest() throws Exception {
+        StubNode[] nodes = nodes(2);
+        final ReplicatedBlockChain chain = new ReplicatedBlockChain(nodes[0], Arrays.asList(nodes));
+        CountDownLatch release = new CountDownLatch(1);
+        nodes[0].hold = release;
+        nodes[1].hold = release;
+
+        ExecutorService executor = Executors.newSingleThreadExecutor();
+        try {
+            Future<List<Record>> blocked = executor.submit(new java.util.concurrent.Callable<List<Record>>() {
+                @Override
+                public List<Record> call() {
+                    return chain.get("doc1");
+                }
+            });
+            while (nodes[0].reads.get() + nodes[1].reads.get() == 0)
+                Thread.sleep(1);
+            StubNode busy = nodes[0].reads.get() == 1 ? nodes[0] : nodes[1];
+            StubNode idle = busy == nodes[0] ? nodes[1] : nodes[0];
+
+            // every following read goes to the replica that is not busy
+            busy.hold = null;
+            idle.hold = null;
+            for (int i = 0; i < 10; i++)
+                assertEquals(1, chain.get("doc" + i).size());
+            assertEquals(1, busy.reads.get());
+            assertEquals(10, idle.reads.get());
+
+            release.countDown();
+            assertEquals(1, blocked.get().size());
+        } finally {
+            executor.shutdown();
+        }
+    }
+
+    @Test
+    public void failoverTest() {
+        StubNode[] nodes = nodes(3);
+        ReplicatedBlockChain chain = new ReplicatedBlockChain(nodes[0], Arrays.asList(nodes))
+                .setFailureBackoff(1, TimeUnit.HOURS);
+        nodes[1].down = true;
+        for (int i = 0; i < 30; i++)
+            assertEquals(1, chain.get("doc" + i).size());
+
+        // the failing replica was tried once, then skipped
+        assertEquals(1, nodes[1].reads.get());
+        assertEquals(1, chain.getFailovers());
+        assertEquals(30, nodes[0].reads.get() + nodes[2].reads.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void allReplicasDownTest() {
+        StubNode[] nodes = nodes(2);
+        nodes[0].down = true;
+        nodes[1].down = true;
+        new ReplicatedBlockChain(nodes[0], Arrays.asList(nodes)).get("doc1");
+    }
+
+    @Test
+    public void hedgingTest() {
+        StubNode[] nodes = nodes(2);
+        ReplicatedBlockChain chain = new ReplicatedBlockChain(nodes[0], Arrays.asList(nodes));
+        for (int i = 0; i < 40; i++)
+            chain.get("doc" + i);
+        assertTrue(chain.getHedgeDelay() >= 0);
+        chain.setHedging(true);
+
+        // one replica becomes very slow, reads that hit it are answered by the other one
+        nodes[0].delayMillis = 5000;
+        long start = System.nanoTime();
+        for (int i = 0; i < 4; i++)
+            assertEquals(1, chain.get("doc" + i).size());
+        assertTrue(TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start) < 4000);
+        assertTrue(chain.getHedges() >= 1);
+        chain.close();
+    }
+
+    @Test
+    public void closeTest() {
+        StubNode[] nodes = nodes(2);
+        ReplicatedBlockChain chain = new ReplicatedBlockChain(nodes[0], Arrays.asList(nodes));
+        for (int i = 0; i < 40; i++)
+            chain.get("doc" + i);
+        chain.setHedging(true);
+        chain.close();
+
+        // reads still work after close, but are no longer hedged
+        nodes[0].delayMillis = 20;
+        nodes[1].delayMillis = 20;
+        for (int i = 0; i < 4; i++)
+            assertEquals(1, chain.get("doc" + i).size());
+        assertEquals(0, chain.getHedges());
+    }
+
+    @Test
+    public void writesArePinnedTest() {
+        StubNode[] nodes = nodes(3);
+        ReplicatedBlockChain chain = new ReplicatedBlockChain(nodes[2], Arrays.asList(nodes[0], nodes[1]));
+        for (int i = 0; i < 5; i++)
+            assertTrue(chain.put("new" + i, new Record()));
+        assertEquals(0, nodes[0].writes.get());
+        assertEquals(0, nodes[1].writes.get());
+        assertEquals(5, nodes[2].writes.get());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void multiChainFailOnErrorTest() throws IOException {
+        // a port nothing listens on
+        ServerSocket socket = new ServerSocket(0);
+        int port = socket.getLocalPort();
+        socket.close();
+        new MultiChain("http://127.0.0.1", port, "chain1", "stream1", "user", "password")
+                .setFailOnError(true)
+                .get("doc1");
+    }
+}
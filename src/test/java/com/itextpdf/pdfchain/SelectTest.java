@@ -0,0 +1,85 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import com.itextpdf.pdfchain.bql.relational.Star;
+import com.itextpdf.pdfchain.bql.transform.Select;
+import org.junit.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class SelectTest {
+
+    @Test
+    public void projectionIsAViewTest() {
+        Record r = new Record();
+        r.put("id1", "doc1");
+        r.put("hsh", "abc");
+        r.put("publishers", "somebody");
+        r.put("txid", null);
+
+        List<Record> out = new ArrayList<>(new Select(new Star(), new String[]{"id1", "publishers", "txid", "shsh"}).apply(Collections.singletonList(r)));
+        Record projected = out.get(0);
+
+        Map<String, Object> expected = new HashMap<>();
+        expected.put("id1", "doc1");
+        expected.put("publishers", "somebody");
+        expected.put("txid", null);
+        assertEquals(expected, projected);
+        assertEquals(expected.hashCode(), projected.hashCode());
+        assertFalse(projected.containsKey("hsh"));
+
+        // modifying a projection does not modify its source
+        projected.put("id1", "doc2");
+        projected.remove("publishers");
+        assertEquals("doc2", projected.get("id1"));
+        assertEquals(2, projected.size());
+        assertEquals("doc1", r.get("id1"));
+        assertTrue(r.containsKey("publishers"));
+    }
+
+    @Test
+    public void serializationTest() throws Exception {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(10);
+        List<Record> out = new ArrayList<>(new BQLExecutor(chain).execute(BQLCompiler.compile("SELECT [id1, confirmations] (*)")));
+        Record projected = out.get(0);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        ObjectOutputStream stream = new ObjectOutputStream(bytes);
+        stream.writeObject(projected);
+        stream.close();
+        Object copy = new ObjectInputStream(new ByteArrayInputStream(bytes.toByteArray())).readObject();
+        assertEquals(Record.class, copy.getClass());
+        assertEquals(projected, copy);
+        assertEquals(2, ((Record) copy).size());
+    }
+
+    @Test
+    public void distinctTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(6000);
+        AbstractBQLOperator all = BQLCompiler.compile("SELECT [id1, confirmations] (*)");
+        AbstractBQLOperator distinct = BQLCompiler.compile("select distinct [id1, confirmations] (*)");
+        assertTrue(distinct instanceof Select && ((Select) distinct).isDistinct());
+
+        assertEquals(6000, new BQLExecutor(chain).execute(all).size());
+        List<Record> expected = new ArrayList<>(new BQLExecutor(chain).execute(distinct));
+        assertEquals(3000, expected.size());
+        assertEquals(3000, new HashSet<>(expected).size());
+        assertEquals(expected, new ArrayList<>(new BQLExecutor(chain).setParallelism(4).execute(distinct)));
+        assertEquals(expected, new ArrayList<>(new BQLExecutor(chain).setColumnarScans(true).execute(distinct)));
+    }
+}
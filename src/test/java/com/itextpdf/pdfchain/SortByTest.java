@@ -0,0 +1,63 @@
+package com.itextpdf.pdfchain;
+
+import com.itextpdf.pdfchain.blockchain.Record;
+import com.itextpdf.pdfchain.bql.AbstractBQLOperator;
+import com.itextpdf.pdfchain.bql.executor.BQLCompiler;
+import com.itextpdf.pdfchain.bql.executor.BQLExecutor;
+import com.itextpdf.pdfchain.bql.relational.Star;
+import com.itextpdf.pdfchain.bql.sort.SortBy;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class SortByTest {
+
+    private static Record record(Object value) {
+        Record r = new Record();
+        if (value != null)
+            r.put("v", value);
+        return r;
+    }
+
+    @Test
+    public void mixedTypesTest() {
+        List<Record> in = Arrays.asList(record("b"), record(2.5), record(null), record(2), record("a"), record(1L), record(true));
+        List<Object> out = new ArrayList<>();
+        for (Record r : new SortBy(new Star(), "v").apply(in))
+            out.add(r.get("v"));
+        assertEquals(Arrays.<Object>asList(null, 1L, 2, 2.5, "a", "b", true), out);
+    }
+
+    @Test
+    public void compileMultipleKeysTest() {
+        AbstractBQLOperator op = BQLCompiler.compile("(*) SORT [confirmations DESC, id2]");
+        assertTrue(op instanceof SortBy);
+        assertArrayEquals(new String[]{"confirmations", "id2"}, ((SortBy) op).getFieldNames());
+        assertEquals(false, ((SortBy) op).getAscending()[0]);
+        assertEquals(true, ((SortBy) op).getAscending()[1]);
+    }
+
+    @Test
+    public void multipleKeysTest() {
+        InMemoryBlockChain chain = InMemoryBlockChain.synthetic(20000);
+        AbstractBQLOperator op = BQLCompiler.compile("(confirmations < 10) SORT [confirmations DESC, blocktime, id2 DESC]");
+        List<Record> out = new ArrayList<>(new BQLExecutor(chain).execute(op));
+        for (int i = 1; i < out.size(); i++) {
+            Record r0 = out.get(i - 1);
+            Record r1 = out.get(i);
+            int c = -Integer.compare((Integer) r0.get("confirmations"), (Integer) r1.get("confirmations"));
+            if (c == 0)
+                c = Integer.compare((Integer) r0.get("blocktime"), (Integer) r1.get("blocktime"));
+            if (c == 0)
+                c = -((String) r0.get("id2")).compareTo((String) r1.get("id2"));
+            assertTrue(c <= 0);
+        }
+        assertEquals(out, new ArrayList<>(new BQLExecutor(chain).setParallelism(4).execute(op)));
+    }
+}